@@ -0,0 +1,65 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bethuneci.spellingbee.AnswerChecker;
+import com.bethuneci.spellingbee.SpellingGameEngine;
+
+/* 
+ * Description: Answer comparison: the original trim and equalsIgnoreCase, and the fuzzy
+ * checker, over every word of the list typed in upper case with spaces around it.
+*/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompareBenchmark {
+
+	private String[] words;
+	private String[] answers;
+	private AnswerChecker checker;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void type(WordsState state) {
+		words = state.words;
+		answers = new String[words.length];
+		for (int i = 0; i < words.length; i++)
+			answers[i] = " " + words[i].toUpperCase(Locale.ROOT) + " ";
+		checker = new AnswerChecker();
+	}
+
+	@Benchmark
+	public boolean isCorrect() {
+		int word = next();
+		return SpellingGameEngine.isCorrect(answers[word], words[word]);
+	}
+
+	@Benchmark
+	public int answerChecker() {
+		int word = next();
+		return checker.evaluate(answers[word], words[word]);
+	}
+
+	private int next() {
+		if (++next == words.length)
+			next = 0;
+		return next;
+	}
+}
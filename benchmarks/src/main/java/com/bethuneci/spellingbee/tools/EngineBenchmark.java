@@ -0,0 +1,108 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bethuneci.spellingbee.Clock;
+import com.bethuneci.spellingbee.DifficultyWeights;
+import com.bethuneci.spellingbee.ShuffleBagScheduler;
+import com.bethuneci.spellingbee.SpellingGameEngine;
+
+/* 
+ * Description: Hints, scoring and saving a game, through the engine as the activity drives
+ * them. The clock is moved on by hand, so answer times do not depend on the machine.
+*/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+	private String[] words;
+	private long time;
+	private SpellingGameEngine hintEngine;
+	private SpellingGameEngine scoreEngine;
+	private SpellingGameEngine restoredEngine;
+	private ByteArrayOutputStream state;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void start(WordsState wordsState) throws IOException {
+		words = wordsState.words;
+		Clock clock = new Clock() {
+			@Override
+			public long now() {
+				return time;
+			}
+		};
+		hintEngine = new SpellingGameEngine(clock, clock);
+		hintEngine.setWordList(wordsState.wordList, new ShuffleBagScheduler(1));
+		hintEngine.getWordScheduler().reset(wordsState.wordList.size());
+		hintEngine.resetStats();
+
+		scoreEngine = new SpellingGameEngine(clock, clock);
+		scoreEngine.setWordList(wordsState.wordList, new ShuffleBagScheduler(1));
+		scoreEngine.getWordScheduler().reset(wordsState.wordList.size());
+		File weightsFile = new File(wordsState.assetsDir, DifficultyWeights.MANIFEST);
+		scoreEngine.setDifficultyWeights(weightsFile.exists() ? DifficultyWeights.read(new FileInputStream(weightsFile))
+				: DifficultyWeights.empty());
+		scoreEngine.resetStats();
+
+		//What the activity keeps of a game when it is recreated: written out and read back
+		restoredEngine = new SpellingGameEngine(clock, clock);
+		restoredEngine.setWordList(wordsState.wordList, scoreEngine.getWordScheduler());
+		state = new ByteArrayOutputStream(64);
+	}
+
+	@Benchmark
+	public String nextHint() {
+		if (hintEngine.getHintsUsed() > hintEngine.getCurrentWord().length() + 1)
+			hintEngine.nextWord();
+		return hintEngine.nextHint();
+	}
+
+	@Benchmark
+	public int points() {
+		int i = next++;
+		return SpellingGameEngine.points(words[(i & Integer.MAX_VALUE) % words.length], i & 31, i & 3, 80 + (i & 63));
+	}
+
+	@Benchmark
+	public int correctAnswer() {
+		time += 1500;
+		scoreEngine.submitAnswer(scoreEngine.getCurrentWord());
+		int points = scoreEngine.scoreCorrectAnswer();
+		scoreEngine.nextWord();
+		return points;
+	}
+
+	@Benchmark
+	public String snapshot() throws IOException {
+		state.reset();
+		DataOutputStream out = new DataOutputStream(state);
+		scoreEngine.saveState(out);
+		out.flush();
+		return restoredEngine.restoreState(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+	}
+}
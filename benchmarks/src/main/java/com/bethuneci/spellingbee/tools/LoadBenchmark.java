@@ -0,0 +1,55 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* 
+ * Description: Word list loading: the original two reads, one read, and the compiled pack.
+*/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+	private File listFile;
+	private ByteBuffer pack;
+
+	@Setup(Level.Trial)
+	public void map(WordsState words) throws IOException {
+		listFile = new File(words.assetsDir, "list.txt");
+		pack = WordListLoadTiming.map(new File(words.assetsDir, WordPackCompiler.PACK));
+	}
+
+	@Benchmark
+	public String[] twoPass() throws IOException {
+		return WordListLoadTiming.twoPass(listFile);
+	}
+
+	@Benchmark
+	public String[] singlePass() throws IOException {
+		return WordListLoadTiming.singlePass(listFile);
+	}
+
+	@Benchmark
+	public int pack() throws IOException {
+		return WordListLoadTiming.packed(pack, "list.txt", true);
+	}
+}
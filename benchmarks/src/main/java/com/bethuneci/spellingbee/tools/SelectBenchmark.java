@@ -0,0 +1,84 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bethuneci.spellingbee.Clock;
+import com.bethuneci.spellingbee.ShuffleBagScheduler;
+import com.bethuneci.spellingbee.SpacedRepetitionScheduler;
+import com.bethuneci.spellingbee.WordScheduler;
+
+/* 
+ * Description: Next word selection: the original retry-until-different loop against the
+ * schedulers, for lists of every size.
+*/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectBenchmark {
+
+	@Param({"10", "1000", "1000000"})
+	public int size;
+
+	private Random random;
+	private int current;
+	private ShuffleBagScheduler shuffleBag;
+	private SpacedRepetitionScheduler spacedRepetition;
+	private long time;
+	private int answer;
+
+	@Setup(Level.Trial)
+	public void reset() {
+		random = new Random(1);
+		current = -1;
+		shuffleBag = new ShuffleBagScheduler(1);
+		shuffleBag.reset(size);
+		spacedRepetition = new SpacedRepetitionScheduler(new Clock() {
+			@Override
+			public long now() {
+				return time;
+			}
+		}, new Random(1));
+		spacedRepetition.reset(size);
+	}
+
+	@Benchmark
+	public int rejection() {
+		int index = random.nextInt(size);
+		while (index == current)
+			index = random.nextInt(size);
+		current = index;
+		return index;
+	}
+
+	@Benchmark
+	public int shuffleBag() {
+		return shuffleBag.next();
+	}
+
+	@Benchmark
+	public int spacedRepetition() {
+		time += 1000;
+		int index = spacedRepetition.next();
+		spacedRepetition.recordAnswer(index, answer++ % 4 == 0 ? WordScheduler.QUALITY_FAILED
+				: WordScheduler.QUALITY_CORRECT);
+		return index;
+	}
+}
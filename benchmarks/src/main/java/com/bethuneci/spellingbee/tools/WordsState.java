@@ -0,0 +1,45 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.bethuneci.spellingbee.ArrayWordList;
+import com.bethuneci.spellingbee.WordList;
+import com.bethuneci.spellingbee.WordListLoader;
+
+/* 
+ * Description: The shipped word list, shared by the benchmarks that need real words. The
+ * assets directory is relative to the benchmarks module, -p assets=dir points elsewhere.
+*/
+
+@State(Scope.Benchmark)
+public class WordsState {
+
+	@Param("../assets")
+	public String assets;
+
+	File assetsDir;
+	String[] words;
+	WordList wordList;
+
+	@Setup(Level.Trial)
+	public void read() throws IOException {
+		assetsDir = new File(assets);
+		InputStream in = new FileInputStream(new File(assetsDir, "list.txt"));
+		try {
+			words = WordListLoader.readWords(in);
+		}
+		finally {
+			in.close();
+		}
+		wordList = new ArrayWordList(words);
+	}
+}
@@ -0,0 +1,199 @@
+package com.bethuneci.spellingbee;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/* 
+ * Description: WordScheduler that moves the student along a continuous difficulty axis
+ * instead of a fixed list. The words of one list are sorted by difficulty rating once, and
+ * each word is drawn from a small window around the student's level on that order. Recent
+ * answers are summed up in exponentially weighted moving averages of answer quality, time
+ * per letter and hints per word, a few numbers however long the student plays. After every
+ * answer the level moves a little towards keeping the student right about three times out
+ * of four, quickly enough and without many hints. Register the controller as the engine's
+ * listener too, to give it the answer times and hints.
+*/
+
+public class AdaptiveDifficultyController implements WordScheduler, SpellingGameEngine.Listener {
+
+	//Weight of the newest answer in each moving average
+	private static final double SMOOTHING = 0.2;
+	//How far one answer can move the level, on the axis from 0 to 1
+	private static final double LEVEL_RATE = 0.05;
+	private static final double TARGET_QUALITY = 0.75;
+	private static final double SLOW_MILLIS_PER_LETTER = 1500;
+	private static final double SLOW_PENALTY = 0.25;
+	private static final double HINT_PENALTY = 0.15;
+	private static final double START_LEVEL = 0.25;
+	//Words are drawn this far either side of the level, as a share of the list
+	private static final double WINDOW_FRACTION = 0.03;
+	private static final int MIN_WINDOW = 4;
+	//Words not asked again for this many draws, if the window allows it
+	private static final int RECENT_WORDS = 16;
+	private static final int MAX_LOOKAHEAD = 8;
+
+	private final Random random;
+	//Word indices from easiest to hardest
+	private final int[] byDifficulty;
+
+	private double level = START_LEVEL;
+	private double quality = TARGET_QUALITY;
+	private double millisPerLetter = 0;
+	private double hints = 0;
+	private boolean hasTimes;
+
+	private final int[] recent = new int[RECENT_WORDS];
+	private int recentCount;
+	private int recentNext;
+	//Words already drawn for peek(), oldest first
+	private final int[] lookahead = new int[MAX_LOOKAHEAD];
+	private int lookaheadStart;
+	private int lookaheadCount;
+
+	/* 
+	 * A controller over words with the given difficulty ratings, indexed like the word list.
+	*/
+	public AdaptiveDifficultyController(double[] ratings, Random random) {
+		this.random = random;
+		//Sort the indices by rating, packed with the index into longs so no objects are needed
+		long[] keys = new long[ratings.length];
+		for (int i = 0; i < ratings.length; i++)
+			keys[i] = (Math.round(ratings[i] * 1000) << 32) | i;
+		Arrays.sort(keys);
+		byDifficulty = new int[ratings.length];
+		for (int i = 0; i < keys.length; i++)
+			byDifficulty[i] = (int) keys[i];
+	}
+
+	/* 
+	 * A controller over a word list, each word rated by its length scaled by its weight.
+	*/
+	public static AdaptiveDifficultyController forWords(WordList words, DifficultyWeights weights) {
+		double[] ratings = new double[words.size()];
+		for (int i = 0; i < ratings.length; i++) {
+			String word = words.get(i);
+			ratings[i] = word.length() * weights.weight(word) / 100.0;
+		}
+		return new AdaptiveDifficultyController(ratings, new Random());
+	}
+
+	/* 
+	 * Forgets recently asked and peeked words. The level and averages are kept, so the
+	 * student carries on where they were.
+	*/
+	@Override
+	public void reset(int size) {
+		if (size != byDifficulty.length)
+			throw new IllegalArgumentException("Controller has " + byDifficulty.length + " words, not " + size);
+		recentCount = 0;
+		recentNext = 0;
+		lookaheadCount = 0;
+	}
+
+	@Override
+	public int next() {
+		if (byDifficulty.length == 0)
+			throw new IllegalStateException("No words to schedule");
+		int index;
+		if (lookaheadCount > 0) {
+			index = lookahead[lookaheadStart];
+			lookaheadStart = (lookaheadStart + 1) % MAX_LOOKAHEAD;
+			lookaheadCount--;
+		}
+		else
+			index = draw();
+		return index;
+	}
+
+	@Override
+	public int peek(int ahead) {
+		if (ahead < 0 || ahead >= MAX_LOOKAHEAD || byDifficulty.length == 0)
+			return -1;
+		while (lookaheadCount <= ahead) {
+			lookahead[(lookaheadStart + lookaheadCount) % MAX_LOOKAHEAD] = draw();
+			lookaheadCount++;
+		}
+		return lookahead[(lookaheadStart + ahead) % MAX_LOOKAHEAD];
+	}
+
+	/* 
+	 * Folds the quality of an answer into its average and moves the level.
+	*/
+	@Override
+	public void recordAnswer(int index, int quality) {
+		this.quality += SMOOTHING * (quality / (double) QUALITY_PERFECT - this.quality);
+		double signal = this.quality - TARGET_QUALITY;
+		if (hasTimes && millisPerLetter > SLOW_MILLIS_PER_LETTER)
+			signal -= SLOW_PENALTY * (millisPerLetter / SLOW_MILLIS_PER_LETTER - 1);
+		signal -= HINT_PENALTY * hints;
+		level = Math.max(0, Math.min(1, level + LEVEL_RATE * signal));
+	}
+
+	/* 
+	 * Folds the time and hints of a correct answer into their averages. Wrong answers only
+	 * count through recordAnswer().
+	*/
+	@Override
+	public void onAnswer(AnswerEvent event) {
+		if (!event.correct || event.mode == AnswerEvent.MODE_SKIPPED || event.word.length() == 0)
+			return;
+		double perLetter = event.answerMillis / (double) event.word.length();
+		millisPerLetter = hasTimes ? millisPerLetter + SMOOTHING * (perLetter - millisPerLetter) : perLetter;
+		hasTimes = true;
+		hints += SMOOTHING * (event.hints - hints);
+	}
+
+	/* 
+	 * Position on the difficulty axis, 0 for the easiest word and 1 for the hardest.
+	*/
+	public double getLevel() {
+		return level;
+	}
+
+	public void setLevel(double level) {
+		this.level = Math.max(0, Math.min(1, level));
+		lookaheadCount = 0;
+	}
+
+	/* 
+	 * Moving average of answer quality, from 0 for failed to 1 for perfect.
+	*/
+	public double getAverageQuality() {
+		return quality;
+	}
+
+	public double getAverageMillisPerLetter() {
+		return millisPerLetter;
+	}
+
+	public double getAverageHints() {
+		return hints;
+	}
+
+	/* 
+	 * Picks a word near the level, trying a few times to avoid a recent one.
+	*/
+	private int draw() {
+		int size = byDifficulty.length;
+		int window = Math.max(MIN_WINDOW, (int) (size * WINDOW_FRACTION));
+		int centre = (int) Math.round(level * (size - 1));
+		int low = Math.max(0, centre - window);
+		int high = Math.min(size - 1, centre + window);
+		int index = byDifficulty[low + random.nextInt(high - low + 1)];
+		for (int attempt = 0; attempt < 4 && isRecent(index); attempt++)
+			index = byDifficulty[low + random.nextInt(high - low + 1)];
+		recent[recentNext] = index;
+		recentNext = (recentNext + 1) % RECENT_WORDS;
+		if (recentCount < RECENT_WORDS)
+			recentCount++;
+		return index;
+	}
+
+	private boolean isRecent(int index) {
+		for (int i = 0; i < recentCount; i++) {
+			if (recent[i] == index)
+				return true;
+		}
+		return false;
+	}
+}
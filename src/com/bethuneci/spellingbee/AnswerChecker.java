@@ -0,0 +1,258 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Compares an answer with the word it should spell. The edit distance is found
+ * with Myers' bit-parallel algorithm (in Hyyro's formulation), one 64-bit word holding a
+ * column of the distance matrix, so words of up to 64 letters cost a few instructions per
+ * letter typed. A wrong answer is then classified as a swap of two neighbouring letters, a
+ * doubled letter too many or too few, a missing or extra letter, a wrong vowel, or another
+ * single wrong letter, and given partial credit accordingly. Longer words allow more slips
+ * before credit runs out; an empty answer, or any answer to a word of a letter or two, earns
+ * none, since one slip there is most of the word. Case and surrounding whitespace are
+ * ignored, as in SpellingGameEngine.isCorrect. Nothing is allocated per call, so the checker
+ * can also run on every keystroke. Not thread safe, use one checker per thread.
+*/
+
+public class AnswerChecker {
+
+	//Results of evaluate()
+	public static final int EXACT = 0;
+	public static final int TRANSPOSITION = 1;
+	public static final int DOUBLED_LETTER = 2;
+	public static final int OMISSION = 3;
+	public static final int INSERTION = 4;
+	public static final int VOWEL_SWAP = 5;
+	public static final int SUBSTITUTION = 6;
+	public static final int OTHER = 7;
+
+	//Partial credit in percent for a single slip, less for each further one
+	private static final int NEAR_MISS_CREDIT = 50;
+	//Shortest word that earns credit, and letters of the word per slip credit allows
+	private static final int MINIMUM_CREDIT_LENGTH = 3;
+	private static final int LETTERS_PER_SLIP = 3;
+	private static final int MAX_BIT_PARALLEL_LENGTH = 64;
+
+	//Match masks by character for the current word, cleared again after every call
+	private final long[] asciiMasks = new long[128];
+	//Two rows of the classic distance matrix, for the rare word longer than 64 letters
+	private int[] previousRow = new int[0];
+	private int[] currentRow = new int[0];
+
+	private int distance;
+	private int credit;
+
+	/* 
+	 * Compares an answer with a word and returns the kind of mistake, EXACT if there is none.
+	 * distance() and credit() then describe the same answer.
+	*/
+	public int evaluate(CharSequence input, String word) {
+		int start = 0;
+		int end = input.length();
+		while (start < end && Character.isWhitespace(input.charAt(start)))
+			start++;
+		while (end > start && Character.isWhitespace(input.charAt(end - 1)))
+			end--;
+		distance = word.length() <= MAX_BIT_PARALLEL_LENGTH ? bitParallelDistance(input, start, end, word)
+				: rowDistance(input, start, end, word);
+		int kind = classify(input, start, end, word);
+		if (kind == EXACT)
+			credit = 100;
+		else if (start == end || word.length() < MINIMUM_CREDIT_LENGTH)
+			credit = 0;
+		else
+			credit = nearMissCredit(kind == OTHER ? distance : 1, word.length());
+		return kind;
+	}
+
+	/* 
+	 * Credit for an answer a number of slips away from a word: full near miss credit for one
+	 * slip, falling evenly to none past one slip per LETTERS_PER_SLIP letters, e.g. 50 and 25
+	 * for one and two slips in a word of six letters.
+	*/
+	private static int nearMissCredit(int slips, int wordLength) {
+		int allowed = wordLength / LETTERS_PER_SLIP;
+		if (slips > allowed)
+			return 0;
+		return NEAR_MISS_CREDIT * (allowed - slips + 1) / allowed;
+	}
+
+	/* 
+	 * Levenshtein distance of the last evaluated answer.
+	*/
+	public int distance() {
+		return distance;
+	}
+
+	/* 
+	 * Partial credit of the last evaluated answer, in percent.
+	*/
+	public int credit() {
+		return credit;
+	}
+
+	/* 
+	 * Myers' algorithm: bit i of the vertical delta vectors tracks row i+1 of the current
+	 * column, and the distance is tracked through the last row.
+	*/
+	private int bitParallelDistance(CharSequence input, int start, int end, String word) {
+		int length = word.length();
+		if (length == 0)
+			return end - start;
+		for (int i = 0; i < length; i++) {
+			char c = lower(word.charAt(i));
+			if (c < 128)
+				asciiMasks[c] |= 1L << i;
+		}
+		long mask = length == 64 ? -1L : (1L << length) - 1;
+		long lastBit = 1L << (length - 1);
+		long positive = mask;
+		long negative = 0;
+		int score = length;
+		for (int j = start; j < end; j++) {
+			char c = lower(input.charAt(j));
+			long equal = c < 128 ? asciiMasks[c] : matchMask(word, c);
+			long xv = equal | negative;
+			long xh = (((equal & positive) + positive) ^ positive) | equal;
+			long horizontalPositive = negative | ~(xh | positive);
+			long horizontalNegative = positive & xh;
+			if ((horizontalPositive & lastBit) != 0)
+				score++;
+			else if ((horizontalNegative & lastBit) != 0)
+				score--;
+			horizontalPositive = (horizontalPositive << 1) | 1;
+			horizontalNegative <<= 1;
+			positive = (horizontalNegative | ~(xv | horizontalPositive)) & mask;
+			negative = horizontalPositive & xv & mask;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = lower(word.charAt(i));
+			if (c < 128)
+				asciiMasks[c] = 0;
+		}
+		return score;
+	}
+
+	/* 
+	 * Match mask for a character outside ASCII, built by scanning the word.
+	*/
+	private static long matchMask(String word, char c) {
+		long mask = 0;
+		for (int i = 0; i < word.length(); i++) {
+			if (lower(word.charAt(i)) == c)
+				mask |= 1L << i;
+		}
+		return mask;
+	}
+
+	/* 
+	 * Textbook two-row dynamic programme for words too long for one 64-bit column.
+	*/
+	private int rowDistance(CharSequence input, int start, int end, String word) {
+		int length = word.length();
+		if (previousRow.length <= length) {
+			previousRow = new int[length + 1];
+			currentRow = new int[length + 1];
+		}
+		for (int i = 0; i <= length; i++)
+			previousRow[i] = i;
+		for (int j = start; j < end; j++) {
+			char c = lower(input.charAt(j));
+			currentRow[0] = j - start + 1;
+			for (int i = 1; i <= length; i++) {
+				int substitution = previousRow[i - 1] + (lower(word.charAt(i - 1)) == c ? 0 : 1);
+				currentRow[i] = Math.min(substitution, Math.min(previousRow[i], currentRow[i - 1]) + 1);
+			}
+			int[] swap = previousRow;
+			previousRow = currentRow;
+			currentRow = swap;
+		}
+		return previousRow[length];
+	}
+
+	/* 
+	 * Works out what kind of slip turns the word into the answer, from the first and last
+	 * positions where they differ.
+	*/
+	private int classify(CharSequence input, int start, int end, String word) {
+		int inputLength = end - start;
+		int wordLength = word.length();
+		int prefix = 0;
+		int shorter = Math.min(inputLength, wordLength);
+		while (prefix < shorter && lower(input.charAt(start + prefix)) == lower(word.charAt(prefix)))
+			prefix++;
+		if (prefix == inputLength && prefix == wordLength)
+			return EXACT;
+		int suffix = 0;
+		while (suffix < shorter - prefix
+				&& lower(input.charAt(end - 1 - suffix)) == lower(word.charAt(wordLength - 1 - suffix)))
+			suffix++;
+		int inputDifference = inputLength - prefix - suffix;
+		int wordDifference = wordLength - prefix - suffix;
+
+		if (inputDifference == 2 && wordDifference == 2) {
+			char a = lower(input.charAt(start + prefix));
+			char b = lower(input.charAt(start + prefix + 1));
+			if (a == lower(word.charAt(prefix + 1)) && b == lower(word.charAt(prefix)))
+				return TRANSPOSITION;
+		}
+		if (inputDifference == 1 && wordDifference == 1) {
+			char typed = lower(input.charAt(start + prefix));
+			char expected = lower(word.charAt(prefix));
+			return isVowel(typed) && isVowel(expected) ? VOWEL_SWAP : SUBSTITUTION;
+		}
+		if (inputDifference == 1 && wordDifference == 0) {
+			//One letter too many, a doubling if it repeats a neighbour
+			char extra = lower(input.charAt(start + prefix));
+			boolean doubled = (prefix > 0 && lower(input.charAt(start + prefix - 1)) == extra)
+					|| (prefix + 1 < inputLength && lower(input.charAt(start + prefix + 1)) == extra);
+			return doubled ? DOUBLED_LETTER : INSERTION;
+		}
+		if (inputDifference == 0 && wordDifference == 1) {
+			//One letter missing, a lost doubling if it repeats a neighbour
+			char missing = lower(word.charAt(prefix));
+			boolean doubled = (prefix > 0 && lower(word.charAt(prefix - 1)) == missing)
+					|| (prefix + 1 < wordLength && lower(word.charAt(prefix + 1)) == missing);
+			return doubled ? DOUBLED_LETTER : OMISSION;
+		}
+		return OTHER;
+	}
+
+	/* 
+	 * Whether a partly typed answer could still become the word, ignoring case and leading
+	 * whitespace. Trailing whitespace only matches the end of the word.
+	*/
+	public static boolean isPrefix(CharSequence input, String word) {
+		int start = 0;
+		int end = input.length();
+		while (start < end && Character.isWhitespace(input.charAt(start)))
+			start++;
+		int length = end - start;
+		int matched = 0;
+		while (matched < length && matched < word.length()
+				&& lower(input.charAt(start + matched)) == lower(word.charAt(matched)))
+			matched++;
+		if (matched == length)
+			return true;
+		//Only whitespace may follow the whole word
+		if (matched < word.length())
+			return false;
+		for (int i = start + matched; i < end; i++) {
+			if (!Character.isWhitespace(input.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isVowel(char c) {
+		return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+	}
+
+	/* 
+	 * Lower case of a character, without the locale lookups of String.toLowerCase.
+	*/
+	static char lower(char c) {
+		if (c >= 'A' && c <= 'Z')
+			return (char) (c + ('a' - 'A'));
+		return c < 128 ? c : Character.toLowerCase(c);
+	}
+}
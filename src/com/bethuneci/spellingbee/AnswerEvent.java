@@ -0,0 +1,41 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: One submitted answer, as recorded in the AnswerLog.
+*/
+
+public class AnswerEvent {
+
+	public static final int MODE_REGULAR = 0;
+	public static final int MODE_TIMED = 1;
+	//Partial credit for a near miss paid when the word is skipped. The wrong answer was
+	//already recorded, so this is not another attempt
+	public static final int MODE_SKIPPED = 2;
+
+	public final String word;
+	public final boolean correct;
+	//Wall clock time of the answer, and how long the user took on the word
+	public final long time;
+	public final int answerMillis;
+	public final int hints;
+	public final int mode;
+	public final int points;
+	//What was typed for a wrong answer, null otherwise. Not kept in the AnswerLog
+	public final String answer;
+
+	public AnswerEvent(String word, boolean correct, long time, int answerMillis, int hints, int mode, int points) {
+		this(word, correct, time, answerMillis, hints, mode, points, null);
+	}
+
+	public AnswerEvent(String word, boolean correct, long time, int answerMillis, int hints, int mode, int points,
+			String answer) {
+		this.word = word;
+		this.correct = correct;
+		this.time = time;
+		this.answerMillis = answerMillis;
+		this.hints = hints;
+		this.mode = mode;
+		this.points = points;
+		this.answer = answer;
+	}
+}
@@ -0,0 +1,379 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/* 
+ * Description: Append-only log of every submitted answer. record() only queues the event;
+ * a background thread appends queued events in batches, so answering never waits on the
+ * disk. Each record carries a CRC, so a record torn by a crash is detected and dropped on
+ * the next start. Once the log grows past a threshold it is compacted into per word totals
+ * (WordHistory), which keeps history queries fast however long the app is used. One log is
+ * shared by the process through WarmUp, so a single thread ever writes the files. Plain
+ * Java, no Android dependencies, so the desktop tools can read a log pulled from a device.
+*/
+
+public class AnswerLog {
+
+	/* 
+	 * Told when a batch could not be written, on the log's own thread. The batch stays
+	 * queued and is written with the next one.
+	*/
+	public interface ErrorListener {
+		void onError(IOException error);
+	}
+
+	private static final String LOG_FILE = "answers.log";
+	private static final String AGGREGATE_FILE = "answers.agg";
+	private static final int AGGREGATE_MAGIC = 0x53424147;
+	private static final int AGGREGATE_VERSION = 2;
+	private static final int BATCH_SIZE = 32;
+	private static final long BATCH_DELAY_MILLIS = 2000;
+	private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+	private final File logFile;
+	private final File aggregateFile;
+	private final ConcurrentLinkedQueue<AnswerEvent> pending = new ConcurrentLinkedQueue<AnswerEvent>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final ScheduledExecutorService writer;
+	private final ErrorListener errorListener;
+	//Length of the intact part of the log as of the last read or write, and whether the log
+	//has been checked for a torn record yet. Only used on the writer thread
+	private long validLogLength;
+	private boolean recovered;
+	//CRC of the intact part of the log, and the length and CRC of the last log folded into the
+	//aggregates, to tell a log already folded when a crash kept it from being deleted
+	private long validLogCrc;
+	private long foldedLogLength;
+	private long foldedLogCrc;
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushScheduled.set(false);
+			try {
+				writePending();
+			}
+			catch (IOException e) {
+				if (errorListener != null)
+					errorListener.onError(e);
+			}
+		}
+	};
+
+	public AnswerLog(File directory) {
+		this(directory, null);
+	}
+
+	/* 
+	 * The error listener may be null, in which case write errors are only retried.
+	*/
+	public AnswerLog(File directory, ErrorListener errorListener) {
+		this.errorListener = errorListener;
+		logFile = new File(directory, LOG_FILE);
+		aggregateFile = new File(directory, AGGREGATE_FILE);
+		writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "AnswerLog");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+		writer.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				recover();
+				return null;
+			}
+		});
+	}
+
+	/* 
+	 * Queues an answer. Returns at once, the event is written with the next batch.
+	*/
+	public void record(AnswerEvent event) {
+		pending.add(event);
+		if (flushScheduled.compareAndSet(false, true))
+			writer.schedule(flushTask, BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		else if (pending.size() >= BATCH_SIZE)
+			writer.execute(flushTask);
+	}
+
+	/* 
+	 * Starts writing every queued event and syncing the log to disk, and returns at once
+	 * without waiting for it. Called when the app is paused, so the write is under way
+	 * before the process may be killed, which usually leaves it the few milliseconds it
+	 * takes. Answers are not guaranteed to survive a kill until then: at worst those since
+	 * the last batch, up to BATCH_DELAY_MILLIS of answering, are lost.
+	*/
+	public void flush() {
+		writer.execute(flushTask);
+	}
+
+	/* 
+	 * Returns the totals for every word answered so far, including queued answers. The work
+	 * runs on the log's own thread, callers can wait on the future off the UI thread.
+	*/
+	public Future<HashMap<String, WordHistory>> history() {
+		return writer.submit(new Callable<HashMap<String, WordHistory>>() {
+			@Override
+			public HashMap<String, WordHistory> call() throws IOException {
+				writePending();
+				HashMap<String, WordHistory> history = readAggregates();
+				for (AnswerEvent event : readLog())
+					add(history, event);
+				return history;
+			}
+		});
+	}
+
+	/* 
+	 * Cuts off a record torn by a crash, so new records are not appended behind it, and
+	 * finishes a compaction that crashed after writing the aggregates but before deleting
+	 * the log it folded in.
+	*/
+	private void recover() throws IOException {
+		try {
+			readAggregates();
+		}
+		catch (IOException e) {
+			//Damaged aggregates are reported by history(), the log is still written
+			foldedLogLength = 0;
+		}
+		readLog();
+		if (validLogLength > 0 && validLogLength == foldedLogLength && validLogCrc == foldedLogCrc)
+			startNewLog();
+		else
+			truncate();
+		recovered = true;
+	}
+
+	/* 
+	 * Cuts the log back to its intact part, if anything follows it.
+	*/
+	private void truncate() throws IOException {
+		if (logFile.length() <= validLogLength)
+			return;
+		RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+		try {
+			file.setLength(validLogLength);
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/* 
+	 * Runs on the writer thread. Appends the queued events as one batch and syncs, then
+	 * compacts if the log has grown too large. Events leave the queue only once they are on
+	 * disk; if the batch fails part way the log is cut back to where it started, so the
+	 * next batch writes them again instead of appending behind a torn record.
+	*/
+	private void writePending() throws IOException {
+		if (pending.isEmpty())
+			return;
+		if (!recovered)
+			recover();
+		ArrayList<AnswerEvent> batch = new ArrayList<AnswerEvent>(pending);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream recordOut = new DataOutputStream(record);
+		CRC32 crc = new CRC32();
+		boolean written = false;
+		FileOutputStream fileOut = new FileOutputStream(logFile, true);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			for (AnswerEvent event : batch) {
+				record.reset();
+				recordOut.writeUTF(event.word);
+				recordOut.writeBoolean(event.correct);
+				recordOut.writeLong(event.time);
+				recordOut.writeInt(event.answerMillis);
+				recordOut.writeByte(event.hints);
+				recordOut.writeByte(event.mode);
+				recordOut.writeInt(event.points);
+				crc.reset();
+				crc.update(record.toByteArray());
+				out.writeShort(record.size());
+				record.writeTo(out);
+				out.writeInt((int) crc.getValue());
+			}
+			out.flush();
+			fileOut.getFD().sync();
+			written = true;
+		}
+		finally {
+			fileOut.close();
+			if (!written)
+				truncate();
+		}
+		validLogLength = logFile.length();
+		for (int i = 0; i < batch.size(); i++)
+			pending.poll();
+		if (validLogLength > COMPACT_THRESHOLD_BYTES)
+			compact();
+	}
+
+	/* 
+	 * Folds the log into the aggregate file and starts a new log. The aggregates are written
+	 * to a temporary file and renamed, so a crash part way leaves the old state intact. They
+	 * record the length and CRC of the log folded in, so should the app die before the log
+	 * is deleted, recover() knows not to fold it in again.
+	*/
+	private void compact() throws IOException {
+		HashMap<String, WordHistory> history = readAggregates();
+		for (AnswerEvent event : readLog())
+			add(history, event);
+		File temporary = new File(aggregateFile.getPath() + ".tmp");
+		FileOutputStream fileOut = new FileOutputStream(temporary);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			out.writeInt(AGGREGATE_MAGIC);
+			out.writeInt(AGGREGATE_VERSION);
+			out.writeLong(validLogLength);
+			out.writeLong(validLogCrc);
+			out.writeInt(history.size());
+			for (WordHistory word : history.values()) {
+				out.writeUTF(word.word);
+				out.writeInt(word.attempts);
+				out.writeInt(word.correct);
+				out.writeInt(word.hints);
+				out.writeLong(word.answerMillis);
+				out.writeLong(word.points);
+				out.writeLong(word.lastAnswered);
+			}
+			out.flush();
+			fileOut.getFD().sync();
+		}
+		finally {
+			fileOut.close();
+		}
+		if (!temporary.renameTo(aggregateFile))
+			throw new IOException("Could not move " + temporary + " to " + aggregateFile);
+		foldedLogLength = validLogLength;
+		foldedLogCrc = validLogCrc;
+		startNewLog();
+	}
+
+	/* 
+	 * Deletes a log that has been folded into the aggregates, or empties it if it cannot be
+	 * deleted, so none of its events are counted twice.
+	*/
+	private void startNewLog() throws IOException {
+		if (!logFile.delete() && logFile.exists()) {
+			validLogLength = 0;
+			truncate();
+		}
+		validLogLength = 0;
+		validLogCrc = 0;
+	}
+
+	private HashMap<String, WordHistory> readAggregates() throws IOException {
+		HashMap<String, WordHistory> history = new HashMap<String, WordHistory>();
+		foldedLogLength = 0;
+		foldedLogCrc = 0;
+		if (!aggregateFile.exists())
+			return history;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(aggregateFile)));
+		try {
+			if (in.readInt() != AGGREGATE_MAGIC)
+				throw new IOException("Unrecognised answer history");
+			//Version 1 did not record the log folded in
+			int version = in.readInt();
+			if (version == AGGREGATE_VERSION) {
+				foldedLogLength = in.readLong();
+				foldedLogCrc = in.readLong();
+			}
+			else if (version != 1)
+				throw new IOException("Unrecognised answer history");
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				WordHistory word = new WordHistory(in.readUTF());
+				word.attempts = in.readInt();
+				word.correct = in.readInt();
+				word.hints = in.readInt();
+				word.answerMillis = in.readLong();
+				word.points = in.readLong();
+				word.lastAnswered = in.readLong();
+				history.put(word.word, word);
+			}
+		}
+		finally {
+			in.close();
+		}
+		return history;
+	}
+
+	/* 
+	 * Reads every intact record. Stops at the first truncated or corrupt record, which can
+	 * only be the tail of a batch that was being written when the app died.
+	*/
+	private ArrayList<AnswerEvent> readLog() throws IOException {
+		ArrayList<AnswerEvent> events = new ArrayList<AnswerEvent>();
+		validLogLength = 0;
+		validLogCrc = 0;
+		if (!logFile.exists())
+			return events;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+		CRC32 crc = new CRC32();
+		//Chained over the CRCs of the records, which identifies the log as a whole
+		CRC32 logCrc = new CRC32();
+		try {
+			while (true) {
+				byte[] record = new byte[in.readUnsignedShort()];
+				in.readFully(record);
+				crc.reset();
+				crc.update(record);
+				int recordCrc = in.readInt();
+				if (recordCrc != (int) crc.getValue())
+					break;
+				DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+				events.add(new AnswerEvent(recordIn.readUTF(), recordIn.readBoolean(), recordIn.readLong(),
+						recordIn.readInt(), recordIn.readByte(), recordIn.readByte(), recordIn.readInt()));
+				validLogLength += 2 + record.length + 4;
+				logCrc.update(recordCrc >>> 24);
+				logCrc.update(recordCrc >>> 16);
+				logCrc.update(recordCrc >>> 8);
+				logCrc.update(recordCrc);
+				validLogCrc = logCrc.getValue();
+			}
+		}
+		catch (EOFException endOfLog) {
+			//Normal end, or a record cut short by a crash
+		}
+		finally {
+			in.close();
+		}
+		return events;
+	}
+
+	private static void add(HashMap<String, WordHistory> history, AnswerEvent event) {
+		WordHistory word = history.get(event.word);
+		if (word == null) {
+			word = new WordHistory(event.word);
+			history.put(event.word, word);
+		}
+		word.add(event);
+	}
+}
@@ -0,0 +1,36 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: WordList backed by a String array, used for lists read from text files, with
+ * the hints of each word if they were worked out.
+*/
+
+public class ArrayWordList implements WordList {
+
+	private final String[] words;
+	private final WordHints[] hints;
+
+	public ArrayWordList(String[] words) {
+		this(words, null);
+	}
+
+	public ArrayWordList(String[] words, WordHints[] hints) {
+		this.words = words;
+		this.hints = hints;
+	}
+
+	@Override
+	public int size() {
+		return words.length;
+	}
+
+	@Override
+	public String get(int index) {
+		return words[index];
+	}
+
+	@Override
+	public WordHints hints(int index) {
+		return hints == null ? null : hints[index];
+	}
+}
@@ -0,0 +1,130 @@
+package com.bethuneci.spellingbee;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+/* 
+ * Description: Memory maps binary assets. Assets stored uncompressed in the APK are mapped
+ * in place through their file descriptor. Compressed assets cannot be, so they are copied
+ * once into the app's files directory and the copy is mapped instead. A copy is tagged with
+ * the APK it came from and copied again after the app is updated.
+*/
+
+public class AssetMapper {
+
+	private final Context context;
+
+	public AssetMapper(Context context) {
+		this.context = context.getApplicationContext();
+	}
+
+	/* 
+	 * Returns a read-only buffer over the whole asset.
+	*/
+	public ByteBuffer map(String assetName) throws IOException {
+		try {
+			AssetFileDescriptor descriptor = context.getAssets().openFd(assetName);
+			FileInputStream inputStream = descriptor.createInputStream();
+			try {
+				return inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						descriptor.getStartOffset(), descriptor.getLength());
+			}
+			finally {
+				//The mapping stays valid after the channel is closed
+				inputStream.close();
+			}
+		}
+		catch (IOException compressed) {
+			return mapFile(copyToFiles(assetName));
+		}
+	}
+
+	/* 
+	 * Returns a read-only buffer over a file that is not an asset, e.g. an imported list.
+	*/
+	public static ByteBuffer mapFile(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/* 
+	 * Copies an asset into the files directory, unless a copy from this APK is already there.
+	 * Writes to a temporary file first so a crash never leaves a half copy.
+	*/
+	private File copyToFiles(String assetName) throws IOException {
+		File target = new File(context.getFilesDir(), assetName.replace('/', '_'));
+		File versionFile = new File(target.getPath() + ".version");
+		//PackageInfo.lastUpdateTime needs API 9, the APK file changes with every install all the same
+		File apk = new File(context.getApplicationInfo().sourceDir);
+		long apkModified = apk.lastModified();
+		long apkLength = apk.length();
+		if (target.exists() && isVersion(versionFile, apkModified, apkLength))
+			return target;
+		versionFile.delete();
+		InputStream inputStream = context.getAssets().open(assetName);
+		try {
+			File temporary = new File(target.getPath() + ".tmp");
+			OutputStream outputStream = new FileOutputStream(temporary);
+			try {
+				byte[] buffer = new byte[16 * 1024];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1)
+					outputStream.write(buffer, 0, read);
+			}
+			finally {
+				outputStream.close();
+			}
+			if (!temporary.renameTo(target))
+				throw new IOException("Could not move " + temporary + " to " + target);
+		}
+		finally {
+			inputStream.close();
+		}
+		DataOutputStream version = new DataOutputStream(new FileOutputStream(versionFile));
+		try {
+			version.writeLong(apkModified);
+			version.writeLong(apkLength);
+		}
+		finally {
+			version.close();
+		}
+		return target;
+	}
+
+	/* 
+	 * Whether a copy's version file names the given APK. A missing or damaged file does not.
+	*/
+	private static boolean isVersion(File versionFile, long apkModified, long apkLength) {
+		if (versionFile.length() != 16)
+			return false;
+		try {
+			DataInputStream version = new DataInputStream(new FileInputStream(versionFile));
+			try {
+				return version.readLong() == apkModified && version.readLong() == apkLength;
+			}
+			finally {
+				version.close();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+}
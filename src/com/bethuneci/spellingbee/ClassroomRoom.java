@@ -0,0 +1,167 @@
+package com.bethuneci.spellingbee;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* 
+ * Description: Shared state of a classroom spelling bee: the word everyone is asked, the
+ * challenge clock everyone plays against, and each player's score. The host moves the room
+ * from word to word; answers from any number of players can arrive on any thread at once.
+ * Players live in a ConcurrentHashMap and their totals are atomics, the current round is an
+ * immutable object behind a volatile field, so answering never takes a lock. Answers are
+ * checked and scored with the same rules and difficulty weights as SpellingGameEngine.
+*/
+
+public class ClassroomRoom {
+
+	//answer() results other than points
+	public static final int ANSWER_WRONG = -1;
+	public static final int ANSWER_LATE = -2;
+	public static final int ANSWER_REPEATED = -3;
+
+	/* 
+	 * One connected player.
+	*/
+	public static class Player {
+		public final int id;
+		public final String name;
+		final AtomicLong score = new AtomicLong();
+		final AtomicInteger spelled = new AtomicInteger();
+		//Last round this player spelled correctly, so a round is scored once
+		final AtomicInteger lastSpelledRound = new AtomicInteger(-1);
+
+		Player(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public long getScore() {
+			return score.get();
+		}
+
+		public int getSpelled() {
+			return spelled.get();
+		}
+	}
+
+	/* 
+	 * A word put to the whole room.
+	*/
+	public static class Round {
+		public final int number;
+		public final String word;
+		public final long startTime;
+
+		Round(int number, String word, long startTime) {
+			this.number = number;
+			this.word = word;
+			this.startTime = startTime;
+		}
+	}
+
+	private final Clock clock;
+	private final DifficultyWeights difficultyWeights;
+	private final ConcurrentHashMap<Integer, Player> players = new ConcurrentHashMap<Integer, Player>();
+	private final AtomicInteger nextPlayerId = new AtomicInteger(1);
+	private volatile Round round;
+	//Challenge deadline on the room clock, or Long.MAX_VALUE when no challenge is running
+	private volatile long challengeEnd = Long.MAX_VALUE;
+
+	/* 
+	 * Words are worth what the given weights make them, as in the host's own game.
+	*/
+	public ClassroomRoom(Clock clock, DifficultyWeights difficultyWeights) {
+		this.clock = clock;
+		this.difficultyWeights = difficultyWeights;
+	}
+
+	public Player join(String name) {
+		Player player = new Player(nextPlayerId.getAndIncrement(), name);
+		players.put(player.id, player);
+		return player;
+	}
+
+	public void leave(Player player) {
+		players.remove(player.id);
+	}
+
+	/* 
+	 * Puts a new word to the room. Answers to earlier rounds are rejected from now on.
+	*/
+	public Round startRound(String word) {
+		Round previous = round;
+		Round next = new Round(previous == null ? 1 : previous.number + 1, word, clock.now());
+		round = next;
+		return next;
+	}
+
+	public Round currentRound() {
+		return round;
+	}
+
+	/* 
+	 * Starts a challenge for everyone: scores are cleared and answers are accepted until
+	 * the given number of minutes after startTime on the room clock.
+	*/
+	public void startChallenge(long startTime, int minutes) {
+		for (Player player : players.values()) {
+			player.score.set(0);
+			player.spelled.set(0);
+		}
+		challengeEnd = startTime + minutes * 60 * 1000L;
+	}
+
+	public void endChallenge() {
+		challengeEnd = Long.MAX_VALUE;
+	}
+
+	public boolean isChallengeOver() {
+		return clock.now() > challengeEnd;
+	}
+
+	/* 
+	 * Checks a player's answer to a round. Returns the points earned for a correct answer,
+	 * or ANSWER_WRONG, ANSWER_LATE if the round is over or the challenge time is up, or
+	 * ANSWER_REPEATED if the player already spelled this round.
+	*/
+	public int answer(Player player, int roundNumber, String input) {
+		Round current = round;
+		long now = clock.now();
+		if (current == null || current.number != roundNumber || now > challengeEnd)
+			return ANSWER_LATE;
+		if (!SpellingGameEngine.isCorrect(input, current.word))
+			return ANSWER_WRONG;
+		int last = player.lastSpelledRound.get();
+		if (last >= roundNumber || !player.lastSpelledRound.compareAndSet(last, roundNumber))
+			return ANSWER_REPEATED;
+		int points = SpellingGameEngine.points(current.word, (int) ((now - current.startTime) / 1000), 0,
+				difficultyWeights.weight(current.word));
+		player.score.addAndGet(points);
+		player.spelled.incrementAndGet();
+		return points;
+	}
+
+	public int playerCount() {
+		return players.size();
+	}
+
+	/* 
+	 * Players from highest to lowest score.
+	*/
+	public List<Player> standings() {
+		List<Player> standings = new ArrayList<Player>(players.values());
+		Collections.sort(standings, new Comparator<Player>() {
+			@Override
+			public int compare(Player a, Player b) {
+				long difference = b.score.get() - a.score.get();
+				return difference > 0 ? 1 : difference < 0 ? -1 : 0;
+			}
+		});
+		return standings;
+	}
+}
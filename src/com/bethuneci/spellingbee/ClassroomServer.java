@@ -0,0 +1,349 @@
+package com.bethuneci.spellingbee;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/* 
+ * Description: Non-blocking socket front end that lets a whole class play one ClassroomRoom.
+ * A single selector thread accepts clients, reads their answers and writes the replies, so
+ * hundreds of clients cost no threads of their own. The host thread only queues broadcasts.
+ * 
+ * Line based UTF-8 protocol, client to server:
+ *     JOIN <name>               WELCOME <player id>, then the current WORD if any
+ *     ANSWER <round> <spelling> RIGHT <round> <points> <score> | WRONG <round> | LATE <round> | REPEATED <round>
+ *     SCORE                     SCORE <score> <words spelled>
+ * Server to every client:
+ *     WORD <round> <length>     a new word has been spoken by the host
+ *     CHALLENGE <minutes>       a timed challenge has started
+ *     RANK <place> <score> <name>, ..., END    challenge standings
+*/
+
+public class ClassroomServer implements Runnable {
+
+	public static final int DEFAULT_PORT = 4444;
+	private static final int MAX_LINE = 512;
+	//Unsent bytes a client may fall behind by, a few rounds of full length lines, before it is dropped
+	private static final int MAX_BACKLOG = 32 * MAX_LINE;
+
+	private final ClassroomRoom room;
+	private final int port;
+	private final ConcurrentLinkedQueue<String> broadcasts = new ConcurrentLinkedQueue<String>();
+	private final CountDownLatch bound = new CountDownLatch(1);
+	private volatile Selector selector;
+	private volatile boolean running;
+	private volatile int localPort = -1;
+	private volatile IOException failure;
+
+	/* 
+	 * Port 0 picks any free port, see awaitPort().
+	*/
+	public ClassroomServer(ClassroomRoom room, int port) {
+		this.room = room;
+		this.port = port;
+	}
+
+	public ClassroomRoom getRoom() {
+		return room;
+	}
+
+	/* 
+	 * Starts the selector thread. Binding happens on that thread.
+	*/
+	public void start() {
+		running = true;
+		Thread thread = new Thread(this, "ClassroomServer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void stop() {
+		running = false;
+		Selector current = selector;
+		if (current != null)
+			current.wakeup();
+	}
+
+	/* 
+	 * Waits until the server is listening and returns its port, or -1 if it failed to bind.
+	*/
+	public int awaitPort() throws InterruptedException {
+		bound.await(5, TimeUnit.SECONDS);
+		return localPort;
+	}
+
+	/* 
+	 * Returns what stopped the server, or null if it is running or was stopped normally.
+	*/
+	public IOException getFailure() {
+		return failure;
+	}
+
+	/* 
+	 * Puts a new word to the room and tells every client.
+	*/
+	public void startRound(String word) {
+		ClassroomRoom.Round round = room.startRound(word);
+		broadcast("WORD " + round.number + " " + word.length());
+	}
+
+	public void startChallenge(long startTime, int minutes) {
+		room.startChallenge(startTime, minutes);
+		broadcast("CHALLENGE " + minutes);
+	}
+
+	/* 
+	 * Ends the challenge and sends everyone the standings.
+	*/
+	public void endChallenge() {
+		room.endChallenge();
+		List<ClassroomRoom.Player> standings = room.standings();
+		StringBuilder message = new StringBuilder();
+		for (int i = 0; i < standings.size(); i++) {
+			ClassroomRoom.Player player = standings.get(i);
+			message.append("RANK ").append(i + 1).append(' ').append(player.getScore()).append(' ').append(player.name).append('\n');
+		}
+		message.append("END");
+		broadcast(message.toString());
+	}
+
+	private void broadcast(String message) {
+		broadcasts.add(message);
+		Selector current = selector;
+		if (current != null)
+			current.wakeup();
+	}
+
+	@Override
+	public void run() {
+		ServerSocketChannel server = null;
+		try {
+			selector = Selector.open();
+			server = ServerSocketChannel.open();
+			server.configureBlocking(false);
+			server.socket().setReuseAddress(true);
+			server.socket().bind(new InetSocketAddress(port), 128);
+			localPort = server.socket().getLocalPort();
+			server.register(selector, SelectionKey.OP_ACCEPT);
+			bound.countDown();
+			while (running) {
+				selector.select();
+				sendBroadcasts();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						if (!key.isValid())
+							continue;
+						if (key.isAcceptable())
+							accept(server);
+						else {
+							if (key.isReadable())
+								read(key);
+							if (key.isValid() && key.isWritable())
+								write(key);
+						}
+					}
+					catch (IOException e) {
+						close(key);
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+		finally {
+			bound.countDown();
+			if (selector != null) {
+				for (SelectionKey key : selector.keys())
+					close(key);
+				try {
+					selector.close();
+				}
+				catch (IOException ignored) {
+				}
+			}
+		}
+	}
+
+	private void accept(ServerSocketChannel server) throws IOException {
+		SocketChannel channel;
+		while ((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.register(selector, SelectionKey.OP_READ, new Connection());
+		}
+	}
+
+	/* 
+	 * Reads what has arrived and handles each complete line.
+	*/
+	private void read(SelectionKey key) throws IOException {
+		Connection connection = (Connection) key.attachment();
+		SocketChannel channel = (SocketChannel) key.channel();
+		if (channel.read(connection.input) < 0)
+			throw new IOException("Client closed");
+		ByteBuffer input = connection.input;
+		int lineStart = 0;
+		for (int i = 0; i < input.position(); i++) {
+			if (input.get(i) == '\n') {
+				handle(key, connection, decode(input, lineStart, i));
+				lineStart = i + 1;
+				//Dropped for not reading its replies
+				if (!key.isValid())
+					return;
+			}
+		}
+		if (lineStart == 0 && !input.hasRemaining())
+			throw new IOException("Line too long");
+		//Keep the unfinished line at the start of the buffer
+		input.flip();
+		input.position(lineStart);
+		input.compact();
+	}
+
+	private void handle(SelectionKey key, Connection connection, String line) {
+		if (line.startsWith("JOIN ")) {
+			if (connection.player == null)
+				connection.player = room.join(line.substring(5).trim());
+			send(key, "WELCOME " + connection.player.id);
+			ClassroomRoom.Round round = room.currentRound();
+			if (round != null)
+				send(key, "WORD " + round.number + " " + round.word.length());
+		}
+		else if (connection.player == null) {
+			send(key, "ERROR join first");
+		}
+		else if (line.startsWith("ANSWER ")) {
+			int space = line.indexOf(' ', 7);
+			int roundNumber;
+			try {
+				roundNumber = Integer.parseInt(line.substring(7, space < 0 ? line.length() : space));
+			}
+			catch (NumberFormatException e) {
+				send(key, "ERROR bad round");
+				return;
+			}
+			int result = room.answer(connection.player, roundNumber, space < 0 ? "" : line.substring(space + 1));
+			if (result >= 0)
+				send(key, "RIGHT " + roundNumber + " " + result + " " + connection.player.getScore());
+			else if (result == ClassroomRoom.ANSWER_WRONG)
+				send(key, "WRONG " + roundNumber);
+			else if (result == ClassroomRoom.ANSWER_LATE)
+				send(key, "LATE " + roundNumber);
+			else
+				send(key, "REPEATED " + roundNumber);
+		}
+		else if (line.equals("SCORE")) {
+			send(key, "SCORE " + connection.player.getScore() + " " + connection.player.getSpelled());
+		}
+		else {
+			send(key, "ERROR unknown command");
+		}
+	}
+
+	private void sendBroadcasts() {
+		String message;
+		while ((message = broadcasts.poll()) != null) {
+			for (SelectionKey key : selector.keys()) {
+				Connection connection = key.attachment() instanceof Connection ? (Connection) key.attachment() : null;
+				if (connection != null && connection.player != null && key.isValid())
+					send(key, message);
+			}
+		}
+	}
+
+	/* 
+	 * Queues a line and writes as much as the socket takes now, the rest when it is writable.
+	 * A client that has left more than MAX_BACKLOG bytes unread is closed instead, so one
+	 * stalled device cannot hold on to an ever growing buffer while the class plays on.
+	*/
+	private void send(SelectionKey key, String line) {
+		Connection connection = (Connection) key.attachment();
+		if (!key.isValid())
+			return;
+		if (connection.output.position() > MAX_BACKLOG) {
+			close(key);
+			return;
+		}
+		byte[] bytes = encode(line + "\n");
+		if (connection.output.remaining() < bytes.length) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(connection.output.capacity() * 2, connection.output.position() + bytes.length));
+			connection.output.flip();
+			larger.put(connection.output);
+			connection.output = larger;
+		}
+		connection.output.put(bytes);
+		try {
+			write(key);
+		}
+		catch (IOException e) {
+			close(key);
+		}
+	}
+
+	private void write(SelectionKey key) throws IOException {
+		Connection connection = (Connection) key.attachment();
+		connection.output.flip();
+		((SocketChannel) key.channel()).write(connection.output);
+		connection.output.compact();
+		if (connection.output.position() > 0)
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		else
+			key.interestOps(SelectionKey.OP_READ);
+	}
+
+	private void close(SelectionKey key) {
+		Object attachment = key.attachment();
+		if (attachment instanceof Connection && ((Connection) attachment).player != null)
+			room.leave(((Connection) attachment).player);
+		key.cancel();
+		try {
+			key.channel().close();
+		}
+		catch (IOException ignored) {
+		}
+	}
+
+	private static String decode(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+		try {
+			return new String(bytes, "UTF-8").trim();
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] encode(String text) {
+		try {
+			return text.getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/* 
+	 * Per client buffers, only used on the selector thread.
+	*/
+	private static class Connection {
+		final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+		ByteBuffer output = ByteBuffer.allocate(256);
+		ClassroomRoom.Player player;
+	}
+}
@@ -0,0 +1,21 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Source of the current time in milliseconds. Injected wherever game logic
+ * depends on time, so that logic can be driven by a fake clock on a desktop JVM.
+*/
+
+public interface Clock {
+
+	/* 
+	 * Wall clock time, for state that has to survive restarts.
+	*/
+	Clock SYSTEM = new Clock() {
+		@Override
+		public long now() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	long now();
+}
@@ -0,0 +1,104 @@
+package com.bethuneci.spellingbee;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/* 
+ * Description: Every word of every list as a minimised trie (a DAWG), compiled at build time
+ * by DawgWriter into the words.dawg asset and held as one flat int array. Each int is an
+ * edge: its letter in the low 8 bits, then a flag for a word ending after the letter, a flag
+ * for the last edge of its node and the index of the child node's first edge. The root's
+ * edges start at index 0, so a child index of 0 means the edge has no children. Lookups
+ * ignore case, walk the array and allocate nothing.
+*/
+
+public class Dawg {
+
+	public static final String ASSET = "words.dawg";
+
+	static final int MAGIC = 0x53424447; //'SBDG'
+	static final int VERSION = 1;
+	static final int LETTER_MASK = 0xFF;
+	static final int TERMINAL = 1 << 8;
+	static final int LAST = 1 << 9;
+	static final int CHILD_SHIFT = 10;
+
+	private final int[] edges;
+
+	public Dawg(int[] edges) {
+		this.edges = edges;
+	}
+
+	/* 
+	 * Reads a DAWG as written by DawgWriter. The stream is read to its end but not closed.
+	*/
+	public static Dawg read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+			bytes.write(buffer, 0, read);
+		ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+		if (data.remaining() < 12 || data.getInt() != MAGIC)
+			throw new IOException("Not a word DAWG");
+		int version = data.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported word DAWG version " + version);
+		int count = data.getInt();
+		if (count < 0 || count > data.remaining() / 4)
+			throw new IOException("Truncated word DAWG");
+		int[] edges = new int[count];
+		data.asIntBuffer().get(edges);
+		return new Dawg(edges);
+	}
+
+	/* 
+	 * Whether some word starts with the given characters of the text. An empty range is a
+	 * prefix of every word.
+	*/
+	public boolean isPrefix(CharSequence text, int start, int end) {
+		return start >= end || walk(text, start, end) >= 0;
+	}
+
+	/* 
+	 * Whether the given characters of the text are a whole word.
+	*/
+	public boolean contains(CharSequence text, int start, int end) {
+		if (start >= end)
+			return false;
+		int edge = walk(text, start, end);
+		return edge >= 0 && (edges[edge] & TERMINAL) != 0;
+	}
+
+	public int edgeCount() {
+		return edges.length;
+	}
+
+	/* 
+	 * Follows the characters from the root and returns the index of the edge taken for the
+	 * last one, or -1 if there is no such path.
+	*/
+	private int walk(CharSequence text, int start, int end) {
+		if (edges.length == 0)
+			return -1;
+		int node = 0;
+		int edge = -1;
+		for (int i = start; i < end; i++) {
+			if (i > start) {
+				node = edges[edge] >>> CHILD_SHIFT;
+				if (node == 0)
+					return -1;
+			}
+			char c = AnswerChecker.lower(text.charAt(i));
+			edge = node;
+			while ((edges[edge] & LETTER_MASK) != c || c > LETTER_MASK) {
+				if ((edges[edge] & LAST) != 0)
+					return -1;
+				edge++;
+			}
+		}
+		return edge;
+	}
+}
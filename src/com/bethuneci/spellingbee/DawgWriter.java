@@ -0,0 +1,159 @@
+package com.bethuneci.spellingbee;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/* 
+ * Description: Builds the words.dawg asset read by Dawg. Words are added to a plain trie,
+ * which is minimised when written by merging every pair of nodes with the same ending flag
+ * and the same edges to the same children, so all words sharing a suffix share its nodes.
+ * Words are stored in lower case and may only use characters up to U+00FF.
+*/
+
+public class DawgWriter {
+
+	private static class Node {
+		final TreeMap<Character, Node> children = new TreeMap<Character, Node>();
+		boolean terminal;
+		int firstEdge;
+
+		/* 
+		 * Nodes are equal once their children have been merged, so children compare by
+		 * identity.
+		*/
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Node))
+				return false;
+			Node node = (Node) other;
+			if (node.terminal != terminal || node.children.size() != children.size())
+				return false;
+			Iterator<Map.Entry<Character, Node>> theirs = node.children.entrySet().iterator();
+			for (Map.Entry<Character, Node> mine : children.entrySet()) {
+				Map.Entry<Character, Node> their = theirs.next();
+				if (!mine.getKey().equals(their.getKey()) || mine.getValue() != their.getValue())
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = terminal ? 1 : 0;
+			for (Map.Entry<Character, Node> entry : children.entrySet())
+				hash = hash * 31 + entry.getKey().charValue() * 17 + System.identityHashCode(entry.getValue());
+			return hash;
+		}
+	}
+
+	private final Node root = new Node();
+	private int words;
+
+	/* 
+	 * Adds a word. Returns false, leaving the DAWG unchanged, if the word is empty or uses a
+	 * character that cannot be stored.
+	*/
+	public boolean addWord(String word) {
+		if (word.length() == 0)
+			return false;
+		for (int i = 0; i < word.length(); i++) {
+			if (AnswerChecker.lower(word.charAt(i)) > Dawg.LETTER_MASK)
+				return false;
+		}
+		Node node = root;
+		for (int i = 0; i < word.length(); i++) {
+			Character c = Character.valueOf(AnswerChecker.lower(word.charAt(i)));
+			Node child = node.children.get(c);
+			if (child == null) {
+				child = new Node();
+				node.children.put(c, child);
+			}
+			node = child;
+		}
+		if (!node.terminal)
+			words++;
+		node.terminal = true;
+		return true;
+	}
+
+	/* 
+	 * Number of distinct words added.
+	*/
+	public int wordCount() {
+		return words;
+	}
+
+	/* 
+	 * Minimises the trie and lays it out as the edge array described in Dawg.
+	*/
+	public int[] toEdges() {
+		Node minimised = merge(root, new HashMap<Node, Node>());
+		//Give every node with edges a run of the array, the root first
+		ArrayList<Node> order = new ArrayList<Node>();
+		HashMap<Node, Boolean> placed = new HashMap<Node, Boolean>();
+		order.add(minimised);
+		placed.put(minimised, Boolean.TRUE);
+		int edgeCount = 0;
+		for (int i = 0; i < order.size(); i++) {
+			Node node = order.get(i);
+			node.firstEdge = edgeCount;
+			edgeCount += node.children.size();
+			for (Node child : node.children.values()) {
+				if (!child.children.isEmpty() && placed.put(child, Boolean.TRUE) == null)
+					order.add(child);
+			}
+		}
+		if (edgeCount >= 1 << (32 - Dawg.CHILD_SHIFT))
+			throw new IllegalStateException("Too many edges for a word DAWG: " + edgeCount);
+		int[] edges = new int[edgeCount];
+		for (Node node : order) {
+			int edge = node.firstEdge;
+			for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+				Node child = entry.getValue();
+				int value = entry.getKey().charValue();
+				if (child.terminal)
+					value |= Dawg.TERMINAL;
+				if (!child.children.isEmpty())
+					value |= child.firstEdge << Dawg.CHILD_SHIFT;
+				edges[edge++] = value;
+			}
+			if (edge > node.firstEdge)
+				edges[edge - 1] |= Dawg.LAST;
+		}
+		return edges;
+	}
+
+	/* 
+	 * Writes the DAWG. The stream is not closed.
+	*/
+	public void writeTo(OutputStream out) throws IOException {
+		int[] edges = toEdges();
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(Dawg.MAGIC);
+		data.writeInt(Dawg.VERSION);
+		data.writeInt(edges.length);
+		for (int edge : edges)
+			data.writeInt(edge);
+		data.flush();
+	}
+
+	/* 
+	 * Replaces a node's children by their merged copies, then the node by the first equal
+	 * node seen.
+	*/
+	private static Node merge(Node node, HashMap<Node, Node> register) {
+		for (Map.Entry<Character, Node> entry : node.children.entrySet())
+			entry.setValue(merge(entry.getValue(), register));
+		Node existing = register.get(node);
+		if (existing != null)
+			return existing;
+		register.put(node, node);
+		return node;
+	}
+}
@@ -0,0 +1,209 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Rates how hard a word is to spell, in letters: a plain word rates about its
+ * length, and rare letter pairs, silent letters, doubled consonants and a record of wrong
+ * answers add to that. Letter pairs are rated against the pairs of a whole dictionary,
+ * counted with BigramCounts. A scorer is immutable, so one can rate words on many threads.
+ * DifficultyPipeline runs it over the word lists at build time and writes the weights read
+ * by DifficultyWeights.
+*/
+
+public class DifficultyScorer {
+
+	//Symbol 0 stands for the start or end of a word, 1 to 26 for the letters
+	private static final int SYMBOLS = 27;
+
+	//How much each feature is worth in letters, tuned by eye on the shipped lists
+	private static final double RARITY_PER_BIT = 0.25;
+	private static final double SILENT_LETTER = 1.5;
+	private static final double DOUBLE_CONSONANT = 1.0;
+	private static final double ERROR_RATE = 8.0;
+	//Error rate assumed for a word nobody has answered, and how many answers it counts for
+	private static final double PRIOR_ERROR_RATE = 0.3;
+	private static final double PRIOR_ANSWERS = 4;
+	//A letter pair this many bits rarer than average is tricky enough to hint at
+	private static final double TRICKY_RARITY = 2.0;
+
+	private static final String[] SILENT_STARTS = {"kn", "wr", "gn", "ps", "pn", "rh"};
+	private static final String[] SILENT_ENDS = {"mb", "mn"};
+	private static final String[] SILENT_ANYWHERE = {"gh", "dge", "bt", "lk", "lm", "stle", "sten"};
+
+	/* 
+	 * Letter pair counts of a dictionary. Counts from parts of a dictionary can be counted
+	 * on separate threads and merged.
+	*/
+	public static class BigramCounts {
+		final long[] counts = new long[SYMBOLS * SYMBOLS];
+
+		public void add(String word) {
+			int previous = 0;
+			for (int i = 0; i < word.length(); i++) {
+				int symbol = symbol(word.charAt(i));
+				counts[previous * SYMBOLS + symbol]++;
+				previous = symbol;
+			}
+			counts[previous * SYMBOLS]++;
+		}
+
+		public void merge(BigramCounts other) {
+			for (int i = 0; i < counts.length; i++)
+				counts[i] += other.counts[i];
+		}
+
+		public long total() {
+			long total = 0;
+			for (long count : counts)
+				total += count;
+			return total;
+		}
+	}
+
+	//Surprise of each letter pair in bits, less the average surprise of the dictionary
+	private final double[] pairRarity = new double[SYMBOLS * SYMBOLS];
+
+	public DifficultyScorer(BigramCounts bigrams) {
+		double[] cost = new double[SYMBOLS * SYMBOLS];
+		double weightedCost = 0;
+		long total = 0;
+		for (int first = 0; first < SYMBOLS; first++) {
+			long row = 0;
+			for (int second = 0; second < SYMBOLS; second++)
+				row += bigrams.counts[first * SYMBOLS + second];
+			for (int second = 0; second < SYMBOLS; second++) {
+				long count = bigrams.counts[first * SYMBOLS + second];
+				//Add one smoothing, so a pair never seen is rare rather than impossible
+				double probability = (count + 1.0) / (row + SYMBOLS);
+				cost[first * SYMBOLS + second] = -Math.log(probability) / Math.log(2);
+				weightedCost += count * cost[first * SYMBOLS + second];
+				total += count;
+			}
+		}
+		double average = total == 0 ? 0 : weightedCost / total;
+		for (int i = 0; i < cost.length; i++)
+			pairRarity[i] = cost[i] - average;
+	}
+
+	/* 
+	 * Rates a word from its spelling alone.
+	*/
+	public double score(String word) {
+		return score(word, null);
+	}
+
+	/* 
+	 * Rates a word from its spelling and, if not null, how it has been answered.
+	*/
+	public double score(String word, WordHistory history) {
+		double score = word.length();
+		double rarity = 0;
+		int previous = 0;
+		for (int i = 0; i < word.length(); i++) {
+			int symbol = symbol(word.charAt(i));
+			rarity += pairRarity[previous * SYMBOLS + symbol];
+			previous = symbol;
+		}
+		rarity += pairRarity[previous * SYMBOLS];
+		score += RARITY_PER_BIT * rarity;
+		score += SILENT_LETTER * silentLetters(word);
+		score += DOUBLE_CONSONANT * doubleConsonants(word);
+		if (history != null && history.attempts > 0) {
+			double errorRate = (history.attempts - history.correct + PRIOR_ERROR_RATE * PRIOR_ANSWERS)
+					/ (history.attempts + PRIOR_ANSWERS);
+			score += ERROR_RATE * (errorRate - PRIOR_ERROR_RATE);
+		}
+		return Math.max(1, score);
+	}
+
+	/* 
+	 * Finds the few letters of a word most likely to be misspelled: a silent letter pattern,
+	 * else a doubled consonant, else its rarest letter pair if that is rare enough. Returns
+	 * the start of the letters shifted left 8 bits plus their count, or -1 if nothing stands
+	 * out.
+	*/
+	public int trickySegment(String word) {
+		for (String start : SILENT_STARTS) {
+			if (word.regionMatches(true, 0, start, 0, start.length()))
+				return start.length();
+		}
+		for (String end : SILENT_ENDS) {
+			if (word.regionMatches(true, word.length() - end.length(), end, 0, end.length()))
+				return (word.length() - end.length()) << 8 | end.length();
+		}
+		for (String pattern : SILENT_ANYWHERE) {
+			for (int i = 0; i + pattern.length() <= word.length(); i++) {
+				if (word.regionMatches(true, i, pattern, 0, pattern.length()))
+					return i << 8 | pattern.length();
+			}
+		}
+		for (int i = 1; i < word.length(); i++) {
+			if (isDoubleConsonant(word, i))
+				return (i - 1) << 8 | 2;
+		}
+		int rarest = -1;
+		double rarity = TRICKY_RARITY;
+		for (int i = 1; i < word.length(); i++) {
+			double pair = pairRarity[symbol(word.charAt(i - 1)) * SYMBOLS + symbol(word.charAt(i))];
+			if (pair >= rarity) {
+				rarity = pair;
+				rarest = i - 1;
+			}
+		}
+		return rarest < 0 ? -1 : rarest << 8 | 2;
+	}
+
+	/* 
+	 * Turns a rating into a scoring weight in percent of what the word's length alone
+	 * would earn, between 50 and 300.
+	*/
+	public static int weight(String word, double score) {
+		if (word.length() == 0)
+			return DifficultyWeights.DEFAULT_WEIGHT;
+		int weight = (int) Math.round(100 * score / word.length());
+		return Math.max(50, Math.min(300, weight));
+	}
+
+	/* 
+	 * Counts spelling patterns with a letter that is not pronounced, e.g. knee, lamb, night.
+	*/
+	static int silentLetters(String word) {
+		int silent = 0;
+		for (String start : SILENT_STARTS) {
+			if (word.regionMatches(true, 0, start, 0, start.length()))
+				silent++;
+		}
+		for (String end : SILENT_ENDS) {
+			if (word.regionMatches(true, word.length() - end.length(), end, 0, end.length()))
+				silent++;
+		}
+		for (String pattern : SILENT_ANYWHERE) {
+			for (int i = 0; i + pattern.length() <= word.length(); i++) {
+				if (word.regionMatches(true, i, pattern, 0, pattern.length()))
+					silent++;
+			}
+		}
+		return silent;
+	}
+
+	/* 
+	 * Counts doubled consonants, e.g. the cc and mm of accommodate.
+	*/
+	static int doubleConsonants(String word) {
+		int doubles = 0;
+		for (int i = 1; i < word.length(); i++) {
+			if (isDoubleConsonant(word, i))
+				doubles++;
+		}
+		return doubles;
+	}
+
+	private static boolean isDoubleConsonant(String word, int i) {
+		char c = AnswerChecker.lower(word.charAt(i));
+		return c == AnswerChecker.lower(word.charAt(i - 1)) && symbol(c) != 0 && "aeiou".indexOf(c) < 0;
+	}
+
+	private static int symbol(char c) {
+		c = AnswerChecker.lower(c);
+		return c >= 'a' && c <= 'z' ? c - 'a' + 1 : 0;
+	}
+}
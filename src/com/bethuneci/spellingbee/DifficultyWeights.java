@@ -0,0 +1,86 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+
+/* 
+ * Description: Scoring weight of every word, read from the difficulty.idx asset written by
+ * DifficultyPipeline. A weight is in percent of the points the word's length alone earns, so
+ * words harder than their length suggests are worth more.
+*/
+
+public class DifficultyWeights {
+
+	public static final String MANIFEST = "difficulty.idx";
+	public static final int DEFAULT_WEIGHT = 100;
+
+	private final HashMap<String, Integer> weights;
+
+	private DifficultyWeights(HashMap<String, Integer> weights) {
+		this.weights = weights;
+	}
+
+	/* 
+	 * Reads tab separated lines of word and weight. Closes the stream.
+	*/
+	public static DifficultyWeights read(InputStream inputStream) throws IOException {
+		HashMap<String, Integer> weights = new HashMap<String, Integer>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (tab < 0)
+					continue;
+				try {
+					weights.put(lower(line.substring(0, tab)), Integer.valueOf(line.substring(tab + 1).trim()));
+				}
+				catch (NumberFormatException e) {
+					throw new IOException("Bad difficulty line: " + line);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return new DifficultyWeights(weights);
+	}
+
+	/* 
+	 * Returns weights that leave every word at its length.
+	*/
+	public static DifficultyWeights empty() {
+		return new DifficultyWeights(new HashMap<String, Integer>());
+	}
+
+	/* 
+	 * Weight of a word in percent, DEFAULT_WEIGHT for a word not in the file.
+	*/
+	public int weight(String word) {
+		Integer weight = weights.get(lower(word));
+		return weight == null ? DEFAULT_WEIGHT : weight.intValue();
+	}
+
+	/* 
+	 * Lower case of a word, the same in every locale. Returns the word itself when it is
+	 * already lower case, so looking up a word from the lists allocates nothing.
+	*/
+	static String lower(String word) {
+		int i = 0;
+		while (i < word.length() && AnswerChecker.lower(word.charAt(i)) == word.charAt(i))
+			i++;
+		if (i == word.length())
+			return word;
+		char[] lowered = word.toCharArray();
+		for (; i < lowered.length; i++)
+			lowered[i] = AnswerChecker.lower(lowered[i]);
+		return new String(lowered);
+	}
+
+	public int size() {
+		return weights.size();
+	}
+}
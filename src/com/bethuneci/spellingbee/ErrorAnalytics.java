@@ -0,0 +1,387 @@
+package com.bethuneci.spellingbee;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/* 
+ * Description: Running statistics of spelling mistakes, updated in place as each answer
+ * comes in: how often each word is answered and answered wrong, which letter was typed for
+ * which, and at which letter positions mistakes happen. Per word counts are kept in count-min
+ * sketches and only the most missed words are remembered by name, so memory stays the same
+ * however many answers and words there are. The report is built from these counts alone and
+ * never reads the answer history. Counts only grow, so analytics saved from earlier sessions
+ * are simply added in. Not thread safe, MainActivity uses it on the main thread.
+*/
+
+public class ErrorAnalytics implements SpellingGameEngine.Listener {
+
+	public static final String FILE = "analytics.bin";
+	public static final int LETTERS = 26;
+	//Mistakes at letter POSITIONS or later are counted together
+	public static final int POSITIONS = 16;
+
+	private static final int MAGIC = 0x53424541;
+	private static final int VERSION = 1;
+	//Count-min sketch rows and columns. Columns must be a power of two
+	private static final int DEPTH = 4;
+	private static final int WIDTH = 1024;
+	private static final int TOP_WORDS = 16;
+	//Longest words aligned letter by letter; longer words only count towards error rates
+	private static final int MAX_ALIGNED = 48;
+
+	private final int[] attempts = new int[DEPTH * WIDTH];
+	private final int[] errors = new int[DEPTH * WIDTH];
+	//Times letter expected was typed as letter typed, at expected * LETTERS + typed
+	private final int[] confusion = new int[LETTERS * LETTERS];
+	private final int[] positions = new int[POSITIONS];
+	private final String[] topWords = new String[TOP_WORDS];
+	private int topCount;
+	private long answers;
+	private long wrongAnswers;
+	//Edit distance table reused for every alignment
+	private final int[] distances = new int[(MAX_ALIGNED + 1) * (MAX_ALIGNED + 1)];
+
+	/* 
+	 * Counts a submitted answer. Skipped words carry no answer and are not counted, the wrong
+	 * answers before the skip already were.
+	*/
+	@Override
+	public void onAnswer(AnswerEvent event) {
+		if ((!event.correct && event.answer == null) || event.mode == AnswerEvent.MODE_SKIPPED)
+			return;
+		answers++;
+		int hash = event.word.hashCode();
+		increment(attempts, hash, 1);
+		if (event.correct)
+			return;
+		wrongAnswers++;
+		increment(errors, hash, 1);
+		rankWord(event.word);
+		align(event.word, event.answer);
+	}
+
+	/* 
+	 * Adds the counts of other analytics, e.g. those saved by an earlier session, to these.
+	*/
+	public void add(ErrorAnalytics other) {
+		for (int i = 0; i < attempts.length; i++) {
+			attempts[i] += other.attempts[i];
+			errors[i] += other.errors[i];
+		}
+		for (int i = 0; i < confusion.length; i++)
+			confusion[i] += other.confusion[i];
+		for (int i = 0; i < positions.length; i++)
+			positions[i] += other.positions[i];
+		answers += other.answers;
+		wrongAnswers += other.wrongAnswers;
+		for (int i = 0; i < other.topCount; i++)
+			rankWord(other.topWords[i]);
+	}
+
+	public long answerCount() {
+		return answers;
+	}
+
+	public long wrongAnswerCount() {
+		return wrongAnswers;
+	}
+
+	/* 
+	 * Estimated answers to a word. Never less than the real count, and only more if the
+	 * word shares every sketch column with other words.
+	*/
+	public int attempts(String word) {
+		return estimate(attempts, word.hashCode());
+	}
+
+	/* 
+	 * Estimated wrong answers to a word, see attempts().
+	*/
+	public int errors(String word) {
+		return estimate(errors, word.hashCode());
+	}
+
+	/* 
+	 * Returns the most missed words, most missed first.
+	*/
+	public String[] topWords() {
+		String[] words = new String[topCount];
+		System.arraycopy(topWords, 0, words, 0, topCount);
+		//Insertion sort, there are only a few
+		for (int i = 1; i < words.length; i++) {
+			String word = words[i];
+			int count = errors(word);
+			int j = i - 1;
+			while (j >= 0 && errors(words[j]) < count) {
+				words[j + 1] = words[j];
+				j--;
+			}
+			words[j + 1] = word;
+		}
+		return words;
+	}
+
+	/* 
+	 * Times the expected letter was typed as the other, both given as 'a' to 'z'.
+	*/
+	public int confusions(char expected, char typed) {
+		return confusion[(expected - 'a') * LETTERS + typed - 'a'];
+	}
+
+	/* 
+	 * Mistakes at a letter position of the word, counting from 0. The last position also
+	 * counts every position after it.
+	*/
+	public int mistakesAt(int position) {
+		return positions[Math.min(position, POSITIONS - 1)];
+	}
+
+	/* 
+	 * Builds a plain text report for a teacher: overall error rate, the most missed words,
+	 * the letters most often typed for others and their confusion matrix, and where in words
+	 * mistakes happen.
+	*/
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		report.append("Answers: ").append(answers).append(", wrong: ").append(wrongAnswers);
+		if (answers > 0)
+			report.append(" (").append(wrongAnswers * 100 / answers).append("%)");
+		report.append("\n\nMost missed words:\n");
+		String[] words = topWords();
+		if (words.length == 0)
+			report.append("  none yet\n");
+		for (String word : words) {
+			report.append("  ").append(pad(word, 16)).append(' ').append(errors(word)).append(" of ")
+					.append(attempts(word)).append(" wrong\n");
+		}
+
+		report.append("\nLetters most often mixed up (expected > typed):\n");
+		int[] order = new int[confusion.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		int listed = 0;
+		boolean[] involved = new boolean[LETTERS];
+		for (int rank = 0; rank < 10; rank++) {
+			int best = rank;
+			for (int i = rank + 1; i < order.length; i++) {
+				if (confusion[order[i]] > confusion[order[best]])
+					best = i;
+			}
+			int cell = order[best];
+			order[best] = order[rank];
+			order[rank] = cell;
+			if (confusion[cell] == 0)
+				break;
+			report.append("  ").append((char) ('a' + cell / LETTERS)).append(" > ").append((char) ('a' + cell % LETTERS))
+					.append("  ").append(confusion[cell]).append('\n');
+			listed++;
+		}
+		if (listed == 0)
+			report.append("  none yet\n");
+		for (int i = 0; i < confusion.length; i++) {
+			if (confusion[i] > 0) {
+				involved[i / LETTERS] = true;
+				involved[i % LETTERS] = true;
+			}
+		}
+		if (listed > 0)
+			appendMatrix(report, involved);
+
+		report.append("\nMistakes by letter position:\n");
+		int most = 1;
+		for (int count : positions)
+			most = Math.max(most, count);
+		for (int i = 0; i < POSITIONS; i++) {
+			report.append(pad(i == POSITIONS - 1 ? (i + 1) + "+" : String.valueOf(i + 1), 4)).append(pad(String.valueOf(positions[i]), 6));
+			for (int bar = positions[i] * 20 / most; bar > 0; bar--)
+				report.append('#');
+			report.append('\n');
+		}
+		return report.toString();
+	}
+
+	/* 
+	 * Writes every count. The file is the same size however many answers it holds.
+	*/
+	public void save(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(answers);
+		out.writeLong(wrongAnswers);
+		for (int i = 0; i < attempts.length; i++) {
+			out.writeInt(attempts[i]);
+			out.writeInt(errors[i]);
+		}
+		for (int count : confusion)
+			out.writeInt(count);
+		for (int count : positions)
+			out.writeInt(count);
+		out.writeInt(topCount);
+		for (int i = 0; i < topCount; i++)
+			out.writeUTF(topWords[i]);
+	}
+
+	/* 
+	 * Reads analytics written by save().
+	*/
+	public static ErrorAnalytics load(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != VERSION)
+			throw new IOException("Not an analytics file");
+		ErrorAnalytics analytics = new ErrorAnalytics();
+		analytics.answers = in.readLong();
+		analytics.wrongAnswers = in.readLong();
+		for (int i = 0; i < analytics.attempts.length; i++) {
+			analytics.attempts[i] = in.readInt();
+			analytics.errors[i] = in.readInt();
+		}
+		for (int i = 0; i < analytics.confusion.length; i++)
+			analytics.confusion[i] = in.readInt();
+		for (int i = 0; i < analytics.positions.length; i++)
+			analytics.positions[i] = in.readInt();
+		int topCount = in.readInt();
+		if (topCount < 0 || topCount > TOP_WORDS)
+			throw new IOException("Bad analytics file");
+		for (int i = 0; i < topCount; i++)
+			analytics.topWords[i] = in.readUTF();
+		analytics.topCount = topCount;
+		return analytics;
+	}
+
+	/* 
+	 * Keeps the word among the most missed if its estimated errors beat the least missed
+	 * word there.
+	*/
+	private void rankWord(String word) {
+		int least = -1;
+		int leastErrors = Integer.MAX_VALUE;
+		for (int i = 0; i < topCount; i++) {
+			if (topWords[i].equals(word))
+				return;
+			int count = errors(topWords[i]);
+			if (count < leastErrors) {
+				leastErrors = count;
+				least = i;
+			}
+		}
+		if (topCount < TOP_WORDS)
+			topWords[topCount++] = word;
+		else if (errors(word) > leastErrors)
+			topWords[least] = word;
+	}
+
+	/* 
+	 * Lines the answer up against the word with the fewest edits and counts every changed,
+	 * missing or extra letter: a changed letter in the confusion matrix, and all of them at
+	 * their position in the word.
+	*/
+	private void align(String word, String answer) {
+		int rows = word.length();
+		int columns = answer.length();
+		if (rows > MAX_ALIGNED || columns > MAX_ALIGNED)
+			return;
+		int stride = columns + 1;
+		for (int i = 0; i <= rows; i++)
+			distances[i * stride] = i;
+		for (int j = 0; j <= columns; j++)
+			distances[j] = j;
+		for (int i = 1; i <= rows; i++) {
+			char expected = AnswerChecker.lower(word.charAt(i - 1));
+			for (int j = 1; j <= columns; j++) {
+				int cost = expected == AnswerChecker.lower(answer.charAt(j - 1)) ? 0 : 1;
+				int best = distances[(i - 1) * stride + j - 1] + cost;
+				best = Math.min(best, distances[(i - 1) * stride + j] + 1);
+				best = Math.min(best, distances[i * stride + j - 1] + 1);
+				distances[i * stride + j] = best;
+			}
+		}
+
+		//Walk back from the end, preferring a changed letter over a missing and an extra one
+		int i = rows;
+		int j = columns;
+		while (i > 0 || j > 0) {
+			int here = distances[i * stride + j];
+			if (i > 0 && j > 0) {
+				char expected = AnswerChecker.lower(word.charAt(i - 1));
+				char typed = AnswerChecker.lower(answer.charAt(j - 1));
+				int cost = expected == typed ? 0 : 1;
+				if (here == distances[(i - 1) * stride + j - 1] + cost) {
+					if (cost == 1) {
+						if (expected >= 'a' && expected <= 'z' && typed >= 'a' && typed <= 'z')
+							confusion[(expected - 'a') * LETTERS + typed - 'a']++;
+						positions[Math.min(i - 1, POSITIONS - 1)]++;
+					}
+					i--;
+					j--;
+					continue;
+				}
+			}
+			if (i > 0 && here == distances[(i - 1) * stride + j] + 1) {
+				//Letter of the word missing from the answer
+				positions[Math.min(i - 1, POSITIONS - 1)]++;
+				i--;
+			}
+			else {
+				//Extra letter in the answer, counted where it was put in
+				positions[Math.min(i, POSITIONS - 1)]++;
+				j--;
+			}
+		}
+	}
+
+	private void appendMatrix(StringBuilder report, boolean[] involved) {
+		report.append("\n   ");
+		for (int typed = 0; typed < LETTERS; typed++) {
+			if (involved[typed])
+				report.append(pad(String.valueOf((char) ('a' + typed)), 3));
+		}
+		report.append('\n');
+		for (int expected = 0; expected < LETTERS; expected++) {
+			if (!involved[expected])
+				continue;
+			report.append(' ').append((char) ('a' + expected)).append(' ');
+			for (int typed = 0; typed < LETTERS; typed++) {
+				if (!involved[typed])
+					continue;
+				int count = confusion[expected * LETTERS + typed];
+				report.append(pad(count == 0 ? "." : count > 99 ? "++" : String.valueOf(count), 3));
+			}
+			report.append('\n');
+		}
+	}
+
+	/* 
+	 * Adds to a word's count in every sketch row, row i at column first + i * second of two
+	 * hashes of the word.
+	*/
+	private static void increment(int[] sketch, int hash, int amount) {
+		int first = hash ^ (hash >>> 16);
+		int second = spread(hash);
+		for (int row = 0; row < DEPTH; row++)
+			sketch[row * WIDTH + ((first + row * second) & (WIDTH - 1))] += amount;
+	}
+
+	private static int estimate(int[] sketch, int hash) {
+		int first = hash ^ (hash >>> 16);
+		int second = spread(hash);
+		int estimate = Integer.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++)
+			estimate = Math.min(estimate, sketch[row * WIDTH + ((first + row * second) & (WIDTH - 1))]);
+		return estimate;
+	}
+
+	//Second, odd hash from the first, so the rows land in different columns
+	private static int spread(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		return hash | 1;
+	}
+
+	private static String pad(String text, int width) {
+		StringBuilder padded = new StringBuilder(text);
+		while (padded.length() < width)
+			padded.append(' ');
+		return padded.toString();
+	}
+}
@@ -0,0 +1,98 @@
+package com.bethuneci.spellingbee;
+
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.SoundPool;
+
+/* 
+ * Description: Plays the right and wrong answer sounds. SoundPool decodes each clip to PCM
+ * once, as it loads, and mixes up to a few streams, so feedback for answers given in quick
+ * succession overlaps instead of cutting the previous sound off. A cue played before its
+ * clip has finished loading is held and played once it has, unless it is stale by then.
+ * Records the time from an answer to its cue being started as the feedback cue stage. One
+ * instance is shared by the process through WarmUp. All methods must be called on the main
+ * thread.
+*/
+
+public class FeedbackSounds implements SoundPool.OnLoadCompleteListener {
+
+	public static final int RIGHT = 0;
+	public static final int WRONG = 1;
+
+	//Enough for a burst of fast answers, the oldest sound is stopped beyond that
+	private static final int MAX_STREAMS = 4;
+	//A cue still waiting for its clip after this long no longer matches the answer and is dropped
+	private static final long STALE_CUE_NANOS = 500 * 1000 * 1000L;
+
+	private final SoundPool soundPool;
+	private final int[] sampleIds = new int[2];
+	private final boolean[] loaded = new boolean[2];
+	//When a cue waiting for its clip was asked for, and its latency start, 0 if none is waiting
+	private final long[] waitingSince = new long[2];
+	private final long[] waitingLatencyStart = new long[2];
+	private int played;
+	private int dropped;
+
+	public FeedbackSounds(Context context) {
+		soundPool = new SoundPool(MAX_STREAMS, AudioManager.STREAM_MUSIC, 0);
+		soundPool.setOnLoadCompleteListener(this);
+		sampleIds[RIGHT] = soundPool.load(context, R.raw.right, 1);
+		sampleIds[WRONG] = soundPool.load(context, R.raw.wrong, 1);
+	}
+
+	@Override
+	public void onLoadComplete(SoundPool pool, int sampleId, int status) {
+		for (int cue = 0; cue < sampleIds.length; cue++) {
+			if (sampleIds[cue] != sampleId || status != 0)
+				continue;
+			loaded[cue] = true;
+			if (waitingSince[cue] == 0)
+				continue;
+			if (System.nanoTime() - waitingSince[cue] <= STALE_CUE_NANOS)
+				start(cue, waitingLatencyStart[cue]);
+			else
+				dropped++;
+			waitingSince[cue] = 0;
+		}
+	}
+
+	/* 
+	 * Plays a cue, RIGHT or WRONG. The latency start is from LatencyRecorder.start(), taken
+	 * when the answer was submitted.
+	*/
+	public void play(int cue, long latencyStart) {
+		if (loaded[cue]) {
+			start(cue, latencyStart);
+			return;
+		}
+		//Only the latest cue of each kind is kept while waiting
+		if (waitingSince[cue] != 0)
+			dropped++;
+		waitingSince[cue] = System.nanoTime();
+		waitingLatencyStart[cue] = latencyStart;
+	}
+
+	/* 
+	 * Whether both clips have finished loading.
+	*/
+	public boolean isReady() {
+		return loaded[RIGHT] && loaded[WRONG];
+	}
+
+	public int playedCount() {
+		return played;
+	}
+
+	/* 
+	 * Number of cues never played because their clip was not loaded in time.
+	*/
+	public int droppedCount() {
+		return dropped;
+	}
+
+	private void start(int cue, long latencyStart) {
+		soundPool.play(sampleIds[cue], 1.0f, 1.0f, 1, 0, 1.0f);
+		played++;
+		LatencyRecorder.APP.record(LatencyRecorder.STAGE_FEEDBACK_CUE, latencyStart);
+	}
+}
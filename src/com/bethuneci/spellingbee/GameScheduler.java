@@ -0,0 +1,133 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Runs the game's delayed commands, such as moving on after a correct answer
+ * or ending a timed challenge, at absolute deadlines on an injected clock. Each command has
+ * a small integer key. Scheduling a key that is already pending replaces it, so a command
+ * can never be queued twice, and a key can be cancelled. Only one wake-up is ever requested
+ * from the Waker, for the earliest deadline, and it is requested again if it comes early, so
+ * late or early timer ticks never shift a deadline. Commands run in deadline order. Nothing
+ * is allocated after construction. Not thread safe, use it from one thread, e.g. the main
+ * thread behind a Handler.
+*/
+
+public class GameScheduler {
+
+	/* 
+	 * Wakes the scheduler by calling runDue() once the clock reaches a deadline. Only the
+	 * latest request counts.
+	*/
+	public interface Waker {
+		void wakeAt(long deadline);
+		void sleep();
+	}
+
+	private static final long NOT_PENDING = Long.MAX_VALUE;
+
+	private final Clock clock;
+	private final Waker waker;
+	private final Runnable[] commands;
+	private final long[] deadlines;
+	private long requestedWake = NOT_PENDING;
+
+	/* 
+	 * A scheduler for the keys 0 to keys - 1.
+	*/
+	public GameScheduler(Clock clock, Waker waker, int keys) {
+		this.clock = clock;
+		this.waker = waker;
+		commands = new Runnable[keys];
+		deadlines = new long[keys];
+		for (int key = 0; key < keys; key++)
+			deadlines[key] = NOT_PENDING;
+	}
+
+	/* 
+	 * Runs the command after the given number of milliseconds, replacing any command
+	 * pending for the key.
+	*/
+	public void schedule(int key, Runnable command, long delay) {
+		scheduleAt(key, command, clock.now() + delay);
+	}
+
+	/* 
+	 * Runs the command once the clock reaches the deadline, replacing any command pending
+	 * for the key.
+	*/
+	public void scheduleAt(int key, Runnable command, long deadline) {
+		commands[key] = command;
+		deadlines[key] = deadline == NOT_PENDING ? NOT_PENDING - 1 : deadline;
+		rearm();
+	}
+
+	public void cancel(int key) {
+		commands[key] = null;
+		deadlines[key] = NOT_PENDING;
+		rearm();
+	}
+
+	public void cancelAll() {
+		for (int key = 0; key < commands.length; key++) {
+			commands[key] = null;
+			deadlines[key] = NOT_PENDING;
+		}
+		rearm();
+	}
+
+	public boolean isPending(int key) {
+		return deadlines[key] != NOT_PENDING;
+	}
+
+	/* 
+	 * Milliseconds until the key's command runs, 0 if it is due, or -1 if none is pending.
+	*/
+	public long remaining(int key) {
+		if (deadlines[key] == NOT_PENDING)
+			return -1;
+		long remaining = deadlines[key] - clock.now();
+		return remaining < 0 ? 0 : remaining;
+	}
+
+	/* 
+	 * Runs every command whose deadline has passed, earliest first, then asks to be woken
+	 * for the next one. Commands may schedule or cancel others while they run.
+	*/
+	public void runDue() {
+		requestedWake = NOT_PENDING;
+		while (true) {
+			long now = clock.now();
+			int due = earliest();
+			if (due < 0 || deadlines[due] > now)
+				break;
+			Runnable command = commands[due];
+			commands[due] = null;
+			deadlines[due] = NOT_PENDING;
+			command.run();
+		}
+		rearm();
+	}
+
+	private int earliest() {
+		int earliest = -1;
+		for (int key = 0; key < deadlines.length; key++) {
+			if (deadlines[key] != NOT_PENDING && (earliest < 0 || deadlines[key] < deadlines[earliest]))
+				earliest = key;
+		}
+		return earliest;
+	}
+
+	/* 
+	 * Moves the single wake-up to the earliest deadline, if it is not there already.
+	*/
+	private void rearm() {
+		int earliest = earliest();
+		long wake = earliest < 0 ? NOT_PENDING : deadlines[earliest];
+		if (wake == requestedWake)
+			return;
+		requestedWake = wake;
+		if (wake == NOT_PENDING)
+			waker.sleep();
+		else
+			waker.wakeAt(wake);
+	}
+}
@@ -0,0 +1,283 @@
+package com.bethuneci.spellingbee;
+
+import java.util.HashMap;
+
+/* 
+ * Description: Works out the hints of words ahead of time, see WordHints. Syllables are split
+ * by the usual vowel and consonant rules, the tricky letters come from DifficultyScorer, and
+ * the similar word is the closest other word by shared letter triples, found through an index
+ * of the triples of every word added. WordPackCompiler runs it over all lists when compiling
+ * the pack; WordListLoader runs it over a single list read from a text file.
+*/
+
+public class HintGenerator {
+
+	//Triples shared by more words than this say nothing about similarity and are not counted
+	private static final int MAX_POSTINGS = 2000;
+	//Least similarity, by the Dice coefficient of their triples, for a word to be suggested
+	private static final double MIN_SIMILARITY = 0.3;
+	//Extra similarity per shared letter at the end, up to four, so rhymes win ties
+	private static final double RHYME_BONUS = 0.05;
+	//Marks around a word, so its first and last letters make triples of their own
+	private static final char START = '^';
+	private static final char END = '$';
+
+	private static final String[] BLENDS = {"bl", "br", "ch", "cl", "cr", "dr", "fl", "fr", "gh", "gl", "gr", "ph", "pl",
+			"pr", "qu", "sc", "sh", "sk", "sl", "sm", "sn", "sp", "st", "sw", "th", "tr", "tw", "wh", "wr"};
+	private static final String[] TRIPLE_BLENDS = {"chr", "sch", "scr", "shr", "spl", "spr", "squ", "str", "thr"};
+
+	/* 
+	 * Words sharing one letter triple, by id.
+	*/
+	private static class Postings {
+		int[] ids = new int[4];
+		int size;
+
+		void add(int id) {
+			if (size == ids.length) {
+				int[] grown = new int[size * 2];
+				System.arraycopy(ids, 0, grown, 0, size);
+				ids = grown;
+			}
+			ids[size++] = id;
+		}
+	}
+
+	private final DifficultyScorer scorer;
+	private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	private final HashMap<Integer, Postings> postings = new HashMap<Integer, Postings>();
+	private String[] words = new String[64];
+	private int[] tripleCounts = new int[64];
+	//Scratch space of similar(), one count per word
+	private int[] shared = new int[64];
+	private int[] touched = new int[64];
+
+	public HintGenerator(DifficultyScorer scorer) {
+		this.scorer = scorer;
+	}
+
+	/* 
+	 * Returns a generator over a single list, with letter pairs rated against that list.
+	*/
+	public static HintGenerator forWords(String[] words) {
+		DifficultyScorer.BigramCounts bigrams = new DifficultyScorer.BigramCounts();
+		for (String word : words)
+			bigrams.add(word);
+		HintGenerator generator = new HintGenerator(new DifficultyScorer(bigrams));
+		generator.addWords(words);
+		return generator;
+	}
+
+	/* 
+	 * Adds words that may be suggested as similar. A word added twice, in any case, counts
+	 * once, as first added.
+	*/
+	public void addWords(String[] list) {
+		for (String word : list) {
+			String key = word.toLowerCase();
+			if (ids.containsKey(key))
+				continue;
+			int id = ids.size();
+			ids.put(key, Integer.valueOf(id));
+			if (id == words.length) {
+				words = grow(words);
+				tripleCounts = grow(tripleCounts);
+			}
+			words[id] = word;
+			int[] triples = triples(key);
+			tripleCounts[id] = triples.length;
+			for (int triple : triples) {
+				Postings posting = postings.get(Integer.valueOf(triple));
+				if (posting == null) {
+					posting = new Postings();
+					postings.put(Integer.valueOf(triple), posting);
+				}
+				posting.add(id);
+			}
+		}
+	}
+
+	/* 
+	 * Returns the hints of every word of a list, in order.
+	*/
+	public WordHints[] hints(String[] list) {
+		WordHints[] hints = new WordHints[list.length];
+		for (int i = 0; i < list.length; i++)
+			hints[i] = hints(list[i]);
+		return hints;
+	}
+
+	public WordHints hints(String word) {
+		int tricky = scorer.trickySegment(word);
+		return new WordHints(word, syllableBreaks(word), tricky < 0 ? 0 : tricky >> 8, tricky < 0 ? 0 : tricky & 0xFF,
+				similar(word));
+	}
+
+	/* 
+	 * Returns the added word spelled most like the given one, or null if none is close enough.
+	 * Forms of the same word, e.g. accommodate and accommodation, are never suggested for each
+	 * other, they would give the answer away.
+	*/
+	public String similar(String word) {
+		String key = word.toLowerCase();
+		int[] triples = triples(key);
+		if (shared.length < ids.size()) {
+			shared = new int[words.length];
+			touched = new int[words.length];
+		}
+		int touchedCount = 0;
+		for (int triple : triples) {
+			Postings posting = postings.get(Integer.valueOf(triple));
+			if (posting == null || posting.size > MAX_POSTINGS)
+				continue;
+			for (int i = 0; i < posting.size; i++) {
+				int id = posting.ids[i];
+				if (shared[id]++ == 0)
+					touched[touchedCount++] = id;
+			}
+		}
+		String best = null;
+		double bestSimilarity = MIN_SIMILARITY;
+		for (int i = 0; i < touchedCount; i++) {
+			int id = touched[i];
+			String candidate = words[id];
+			double similarity = 2.0 * shared[id] / (triples.length + tripleCounts[id])
+					+ RHYME_BONUS * Math.min(4, sharedEnding(key, candidate));
+			shared[id] = 0;
+			if (similarity > bestSimilarity && !sameStem(key, candidate)) {
+				bestSimilarity = similarity;
+				best = candidate;
+			}
+		}
+		return best;
+	}
+
+	/* 
+	 * Splits a word into syllables, returning a bit set with bit i set if a syllable starts at
+	 * letter i. Each run of vowels is a syllable, not counting a silent final e. One consonant
+	 * between two syllables starts the second, two are split unless they make one sound or a
+	 * blend like "st", and of more only a final blend stays with the second syllable. Good
+	 * enough for a hint; words longer than 64 letters are not split.
+	*/
+	public static long syllableBreaks(String word) {
+		int length = word.length();
+		if (length > 64)
+			return 0;
+		String lower = word.toLowerCase();
+		long breaks = 1;
+		int end = length;
+		//A final e after a consonant is silent, except in endings like "ble"
+		if (length > 2 && lower.charAt(length - 1) == 'e' && !isVowel(lower, length - 2)
+				&& !(lower.charAt(length - 2) == 'l' && length > 3 && !isVowel(lower, length - 3)))
+			end = length - 1;
+		int previousVowelEnd = -1;
+		int i = 0;
+		while (i < end) {
+			if (!isVowel(lower, i)) {
+				i++;
+				continue;
+			}
+			int vowelStart = i;
+			while (i < end && isVowel(lower, i))
+				i++;
+			if (previousVowelEnd >= 0)
+				breaks |= 1L << splitBetween(lower, previousVowelEnd, vowelStart);
+			previousVowelEnd = i;
+		}
+		return breaks;
+	}
+
+	/* 
+	 * Where the syllable starts in the consonants from start up to the next vowel at end.
+	*/
+	private static int splitBetween(String lower, int start, int end) {
+		int consonants = end - start;
+		if (consonants <= 1)
+			return start;
+		if (consonants == 2) {
+			if (lower.startsWith("ck", start))
+				return end;
+			return isBlend(lower, start) ? start : start + 1;
+		}
+		if (isTripleBlend(lower, end - 3))
+			return end - 3;
+		return isBlend(lower, end - 2) ? end - 2 : end - 1;
+	}
+
+	private static boolean isVowel(String lower, int i) {
+		char c = lower.charAt(i);
+		if ("aeiou".indexOf(c) >= 0)
+			return true;
+		//y is a vowel unless it starts a word or follows a vowel, as in yes or play
+		return c == 'y' && i > 0 && "aeiou".indexOf(lower.charAt(i - 1)) < 0;
+	}
+
+	private static boolean isBlend(String lower, int i) {
+		for (String blend : BLENDS) {
+			if (lower.startsWith(blend, i))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isTripleBlend(String lower, int i) {
+		for (String blend : TRIPLE_BLENDS) {
+			if (lower.startsWith(blend, i))
+				return true;
+		}
+		return false;
+	}
+
+	/* 
+	 * Whether one word is the other with a different ending, sharing all but at most two
+	 * letters of the shorter.
+	*/
+	private static boolean sameStem(String key, String candidate) {
+		int shorter = Math.min(key.length(), candidate.length());
+		int prefix = 0;
+		while (prefix < shorter && key.charAt(prefix) == AnswerChecker.lower(candidate.charAt(prefix)))
+			prefix++;
+		return prefix >= shorter - 2;
+	}
+
+	private static int sharedEnding(String key, String candidate) {
+		int shared = 0;
+		while (shared < key.length() && shared < candidate.length() && key.charAt(key.length() - 1 - shared)
+				== AnswerChecker.lower(candidate.charAt(candidate.length() - 1 - shared)))
+			shared++;
+		return shared;
+	}
+
+	/* 
+	 * Distinct letter triples of a lower case word padded with a start and an end mark, each
+	 * packed into an int.
+	*/
+	private static int[] triples(String key) {
+		String padded = START + key + END;
+		int[] triples = new int[Math.max(0, padded.length() - 2)];
+		int distinct = 0;
+		for (int i = 0; i < triples.length; i++) {
+			int triple = (padded.charAt(i) * 65599 + padded.charAt(i + 1)) * 65599 + padded.charAt(i + 2);
+			boolean seen = false;
+			for (int j = 0; j < distinct && !seen; j++)
+				seen = triples[j] == triple;
+			if (!seen)
+				triples[distinct++] = triple;
+		}
+		int[] result = new int[distinct];
+		System.arraycopy(triples, 0, result, 0, distinct);
+		return result;
+	}
+
+	private static String[] grow(String[] array) {
+		String[] grown = new String[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
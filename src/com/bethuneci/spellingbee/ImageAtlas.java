@@ -0,0 +1,147 @@
+package com.bethuneci.spellingbee;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/* 
+ * Description: Reader for the packed word images written by ImageAtlasBuilder. Every image is
+ * stored as a JPEG at a few sizes, and the directory at the front of the atlas gives the offset
+ * and dimensions of each, so an image is read straight out of one buffer mapped for the life of
+ * the process instead of opening an asset per word. The atlas keeps a .jpg extension so aapt
+ * stores it uncompressed and it can be mapped in place from the APK.
+ * 
+ * Layout (big-endian):
+ *     int magic 'SBIA', int version, int size count, int image count
+ *     int[size count] longest side of each size in pixels, smallest first
+ *     per image: short word length, UTF-8 word, then per size: int offset, int length,
+ *         short width, short height
+ *     JPEG bytes
+*/
+
+public class ImageAtlas {
+
+	public static final String ASSET = "images.atlas.jpg";
+	public static final int MAGIC = 0x53424941;
+	public static final int VERSION = 1;
+
+	/* 
+	 * Supplies the bytes of an atlas, typically by memory mapping the asset.
+	*/
+	public interface Opener {
+		ByteBuffer open() throws IOException;
+	}
+
+	private final ByteBuffer buffer;
+	private final int[] sizes;
+	private final HashMap<String, Integer> images;
+	//Per image and size, at image * sizes.length + size
+	private final int[] offsets;
+	private final int[] lengths;
+	private final int[] widths;
+	private final int[] heights;
+
+	public ImageAtlas(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException("Not an image atlas");
+		if (buffer.getInt(4) != VERSION)
+			throw new IOException("Unsupported image atlas version " + buffer.getInt(4));
+		sizes = new int[buffer.getInt(8)];
+		int imageCount = buffer.getInt(12);
+		int position = 16;
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = buffer.getInt(position);
+			position += 4;
+		}
+		images = new HashMap<String, Integer>(imageCount * 2);
+		offsets = new int[imageCount * sizes.length];
+		lengths = new int[offsets.length];
+		widths = new int[offsets.length];
+		heights = new int[offsets.length];
+		byte[] name = new byte[64];
+		for (int i = 0; i < imageCount; i++) {
+			int length = buffer.getShort(position) & 0xFFFF;
+			if (length > name.length)
+				name = new byte[length];
+			for (int j = 0; j < length; j++)
+				name[j] = buffer.get(position + 2 + j);
+			images.put(decode(name, length), Integer.valueOf(i));
+			position += 2 + length;
+			for (int size = 0; size < sizes.length; size++) {
+				int slot = i * sizes.length + size;
+				offsets[slot] = buffer.getInt(position);
+				lengths[slot] = buffer.getInt(position + 4);
+				widths[slot] = buffer.getShort(position + 8) & 0xFFFF;
+				heights[slot] = buffer.getShort(position + 10) & 0xFFFF;
+				position += 12;
+			}
+		}
+	}
+
+	/* 
+	 * Returns the number of a word's image, or -1 if the word has none.
+	*/
+	public int find(String word) {
+		Integer image = images.get(word);
+		return image == null ? -1 : image.intValue();
+	}
+
+	/* 
+	 * Picks the smallest size of an image that fills a view of the given size when scaled to
+	 * fit, or the largest if none does.
+	*/
+	public int pickSize(int image, int viewWidth, int viewHeight) {
+		for (int size = 0; size < sizes.length - 1; size++) {
+			int slot = image * sizes.length + size;
+			if (widths[slot] >= viewWidth || heights[slot] >= viewHeight)
+				return size;
+		}
+		return sizes.length - 1;
+	}
+
+	public int width(int image, int size) {
+		return widths[image * sizes.length + size];
+	}
+
+	public int height(int image, int size) {
+		return heights[image * sizes.length + size];
+	}
+
+	public int length(int image, int size) {
+		return lengths[image * sizes.length + size];
+	}
+
+	/* 
+	 * Copies the JPEG bytes of an image at a size into the start of the given array, which
+	 * must hold at least length(image, size) bytes. The shared buffer is left untouched, so
+	 * images can be read from any thread.
+	*/
+	public void read(int image, int size, byte[] into) {
+		int slot = image * sizes.length + size;
+		ByteBuffer view = buffer.duplicate();
+		view.position(offsets[slot]);
+		view.get(into, 0, lengths[slot]);
+	}
+
+	public int imageCount() {
+		return images.size();
+	}
+
+	/* 
+	 * Returns the longest side of each size in pixels, smallest first.
+	*/
+	public int[] sizes() {
+		return sizes.clone();
+	}
+
+	private static String decode(byte[] bytes, int length) {
+		try {
+			return new String(bytes, 0, length, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Histogram of latencies in the style of HdrHistogram. Buckets are linear up
+ * to 32 ns, then every power of two is split into 16 equal buckets, so any value is kept to
+ * within about 6% over the whole range of a long with under a thousand counters. Percentiles
+ * report the upper end of the bucket they fall in.
+*/
+
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+	private final long[] counts = new long[bucket(Long.MAX_VALUE) + 1];
+	private long total;
+	private long max;
+	private long sum;
+
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+		counts[bucket(value)]++;
+		total++;
+		sum += value;
+		if (value > max)
+			max = value;
+	}
+
+	public long count() {
+		return total;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	public long mean() {
+		return total == 0 ? 0 : sum / total;
+	}
+
+	/* 
+	 * Smallest bucket bound that at least the given percentage of values fall under, 0 if
+	 * nothing has been recorded.
+	*/
+	public long valueAtPercentile(double percentile) {
+		if (total == 0)
+			return 0;
+		long wanted = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+			if (seen >= wanted)
+				return Math.min(max, upperBound(bucket));
+		}
+		return max;
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+		return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = (bucket - HALF_SUB_BUCKETS) >> (SUB_BUCKET_BITS - 1);
+		long sub = bucket - ((long) shift << (SUB_BUCKET_BITS - 1));
+		return ((sub + 1) << shift) - 1;
+	}
+}
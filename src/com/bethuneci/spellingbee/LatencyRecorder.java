@@ -0,0 +1,178 @@
+package com.bethuneci.spellingbee;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* 
+ * Description: Records how long the stages users wait on take, from any thread, into a
+ * fixed ring of the most recent samples. Each sample is one long, its stage in the top byte
+ * and its duration in nanoseconds below, claimed with a single atomic increment, so
+ * recording never locks or allocates. While disabled, start() returns 0 and record()
+ * ignores it, so instrumented code costs a volatile read. Summaries build a LatencyHistogram
+ * per stage from the ring when asked for.
+*/
+
+public class LatencyRecorder {
+
+	public static final int STAGE_COLD_START = 0;
+	public static final int STAGE_WORD_LIST = 1;
+	public static final int STAGE_IMAGE_DECODE = 2;
+	public static final int STAGE_SPEECH_START = 3;
+	public static final int STAGE_LIVE_SPEECH = 4;
+	public static final int STAGE_NEXT_WORD = 5;
+	public static final int STAGE_FIRST_WORD_SPOKEN = 6;
+	public static final int STAGE_RECREATE = 7;
+	public static final int STAGE_FEEDBACK_CUE = 8;
+	private static final String[] STAGE_NAMES = {"cold start", "word list", "image decode", "speech start",
+		"live speech", "answer to next word", "first word spoken", "recreate", "feedback cue"};
+
+	//Shared by everything in the app
+	public static final LatencyRecorder APP = new LatencyRecorder(4096);
+
+	private static final int STAGE_SHIFT = 56;
+	private static final long DURATION_MASK = (1L << STAGE_SHIFT) - 1;
+
+	private final AtomicLongArray samples;
+	private final int mask;
+	private final AtomicLong written = new AtomicLong();
+	//One-off startup stages measured before recording was switched on
+	private final AtomicLongArray startup = new AtomicLongArray(STAGE_NAMES.length);
+	private volatile boolean enabled;
+
+	/* 
+	 * A recorder keeping the given number of most recent samples, rounded up to a power of
+	 * two.
+	*/
+	public LatencyRecorder(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		samples = new AtomicLongArray(size);
+		mask = size - 1;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/* 
+	 * Switches recording on or off. Startup stages kept while it was off are recorded as it
+	 * is switched on.
+	*/
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled)
+			return;
+		for (int stage = 0; stage < startup.length(); stage++) {
+			long nanos = startup.getAndSet(stage, 0);
+			if (nanos != 0)
+				recordDuration(stage, nanos);
+		}
+	}
+
+	/* 
+	 * Start time of a stage to pass to record(), or 0 while disabled.
+	*/
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/* 
+	 * Records a stage that started at the time returned by start().
+	*/
+	public void record(int stage, long startNanos) {
+		if (startNanos == 0 || !enabled)
+			return;
+		recordDuration(stage, System.nanoTime() - startNanos);
+	}
+
+	/* 
+	 * Records a stage measured elsewhere, in nanoseconds.
+	*/
+	public void recordDuration(int stage, long nanos) {
+		if (!enabled)
+			return;
+		long duration = nanos < 0 ? 0 : Math.min(nanos, DURATION_MASK);
+		samples.lazySet((int) (written.getAndIncrement() & mask), ((long) (stage + 1) << STAGE_SHIFT) | duration);
+	}
+
+	/* 
+	 * Records a stage that happens once per launch, such as the cold start. While disabled
+	 * the latest one is kept, so it is not lost by switching recording on too late.
+	*/
+	public void recordStartup(int stage, long nanos) {
+		if (enabled)
+			recordDuration(stage, nanos);
+		else
+			startup.set(stage, Math.max(1, nanos));
+	}
+
+	/* 
+	 * Forgets every sample.
+	*/
+	public void clear() {
+		for (int i = 0; i < samples.length(); i++)
+			samples.set(i, 0);
+		written.set(0);
+	}
+
+	/* 
+	 * Histogram of the samples of one stage still in the ring.
+	*/
+	public LatencyHistogram histogram(int stage) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < samples.length(); i++) {
+			long sample = samples.get(i);
+			if ((sample >>> STAGE_SHIFT) == stage + 1)
+				histogram.record(sample & DURATION_MASK);
+		}
+		return histogram;
+	}
+
+	/* 
+	 * One line per stage that has samples: count, then 50th, 90th, 99th percentile and
+	 * maximum in milliseconds.
+	*/
+	public String summary() {
+		StringBuilder summary = new StringBuilder();
+		for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+			LatencyHistogram histogram = histogram(stage);
+			if (histogram.count() == 0)
+				continue;
+			if (summary.length() > 0)
+				summary.append('\n');
+			summary.append(STAGE_NAMES[stage]).append(": n=").append(histogram.count())
+					.append(" p50=").append(millis(histogram.valueAtPercentile(50)))
+					.append(" p90=").append(millis(histogram.valueAtPercentile(90)))
+					.append(" p99=").append(millis(histogram.valueAtPercentile(99)))
+					.append(" max=").append(millis(histogram.max()));
+		}
+		return summary.length() == 0 ? "No samples yet" : summary.toString();
+	}
+
+	/* 
+	 * Writes a tab separated table of every stage's percentiles in milliseconds, then every
+	 * sample in the ring, for offline analysis.
+	*/
+	public void export(Writer out) throws IOException {
+		out.write("stage\tcount\tmean\tp50\tp90\tp99\tp99.9\tmax\n");
+		for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+			LatencyHistogram histogram = histogram(stage);
+			out.write(STAGE_NAMES[stage] + "\t" + histogram.count() + "\t" + millis(histogram.mean()) + "\t"
+					+ millis(histogram.valueAtPercentile(50)) + "\t" + millis(histogram.valueAtPercentile(90)) + "\t"
+					+ millis(histogram.valueAtPercentile(99)) + "\t" + millis(histogram.valueAtPercentile(99.9)) + "\t"
+					+ millis(histogram.max()) + "\n");
+		}
+		out.write("\nstage\tnanos\n");
+		long end = written.get();
+		for (long i = Math.max(0, end - samples.length()); i < end; i++) {
+			long sample = samples.get((int) (i & mask));
+			if (sample != 0)
+				out.write(STAGE_NAMES[(int) (sample >>> STAGE_SHIFT) - 1] + "\t" + (sample & DURATION_MASK) + "\n");
+		}
+	}
+
+	private static String millis(long nanos) {
+		return String.valueOf(Math.round(nanos / 100000.0) / 10.0);
+	}
+}
@@ -6,17 +6,25 @@ import android.view.View;
 import android.view.View.OnClickListener;
 
 //For accessing, reading, and drawing images and reading files
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
 import android.view.KeyEvent;
 import android.view.inputmethod.EditorInfo;
-import android.graphics.drawable.Drawable;
-import android.content.res.AssetManager;
-
-//For randomizing words
-import java.util.Random;
+import android.graphics.Bitmap;
 
 //Exceptions
 import java.io.IOException;
@@ -29,31 +37,29 @@ import android.widget.Button;
 import android.widget.Chronometer;
 import android.widget.ImageView;
 import android.widget.TableLayout;
-import android.widget.Chronometer.OnChronometerTickListener;
 import android.widget.TextView.OnEditorActionListener;
 
 //For time keeping
 import android.os.SystemClock;
 
-//Text to speech
-import android.speech.tts.TextToSpeech;
-import android.speech.tts.TextToSpeech.OnInitListener;
-
 //To implement 1 delays
 import android.os.Handler;
 
 //Used to build an alert dialog (when the game is over)
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.content.Intent;
 
-//Used to load and play sounds effects, and control volume
-import android.media.SoundPool;
+//Used to control volume
 import android.media.AudioManager;
 
 //Used to provide Settings menu at top-right of app
 import android.view.Menu;
 import android.view.MenuItem;
 
+//Used to tell the host which port the classroom server listens on
+import android.widget.Toast;
+
 /* 
  * Author: Kent Chow
  * 
@@ -69,17 +75,8 @@ import android.view.MenuItem;
 
 public class MainActivity extends Activity{
 	
-    private String[] wordList;
-    private String currentWord;
-    private int numberOfWords;
-    private int currentIndex;
-    private int wordsSpelled = 0;
-    private int hintsUsed;
-    private int timeLimit;
-    private long score = 0;
-    private long timedModeStartTime;
-    private boolean ttsInitialized = false;
-    private boolean timedMode = false;
+    //Game rules and state, the activity only displays them
+    private SpellingGameEngine engine;
     private TableLayout backgroundTableLayout;
     
     // App widgets
@@ -91,36 +88,166 @@ public class MainActivity extends Activity{
     private Button pronounceButton;
     private Button nextButton;
     private Button hintButton;
+    //Built on the first hint and shown again for every hint after
+    private AlertDialog hintDialog;
     private ImageView wordImageView;
     private Chronometer scoreChronometer;
     
-    private TextToSpeech textToSpeech;
+    //Shared with the rest of the process, loaded in the background since the menu was shown
+    private WarmUp warmUp;
+    
+    //Speaks words, from pre-synthesized clips where possible
+    private SpeechPipeline speech;
     
     // Used to play sound effects
-    private SoundPool soundPool;
-    private int right_sound_id;
-    private int wrong_sound_id;
+    private FeedbackSounds feedbackSounds;
  
-    private Random randomGenerator = new Random();
-    private AssetManager assets;
+    private String wordListName;
+    private WordListLoader wordListLoader;
+    private AnswerLog answerLog;
+    
+    //Every word, kept once loaded so adaptive difficulty can start without reading a file
+    private WordList allWords;
+    //Created the first time adaptive difficulty is used, and the list and scheduler it replaced
+    private AdaptiveDifficultyController adaptiveController;
+    private WordList listWords;
+    private WordScheduler listScheduler;
+    
+    //Running while this device hosts a classroom spelling bee, otherwise null
+    private ClassroomServer classroomServer;
+    
+    //Decoded images, the next few words' images are prefetched
+    private WordImageCache imageCache;
+    
+    //Every word of every list, null until loaded. Typing is checked against it as it happens
+    private Dawg dictionary;
+    private int defaultInputColour;
+    private int prefixState = PREFIX_ON_TRACK;
+    private static final int PREFIX_ON_TRACK = 0;
+    private static final int PREFIX_OFF_TRACK = 1;
+    private static final int PREFIX_NOT_A_WORD = 2;
     
     //File and number constants
-    private final String ALL_WORDS = "list.txt";
-    private final String YEAR5_6 = "Year5-6.txt";
-    private final String YEAR7_8 = "Year7-8.txt";
-    private final String YEAR9_10 = "Year9-10.txt";
-    private final String YEAR11_12 = "Year11-12.txt";
+    private final String ALL_WORDS = WarmUp.DEFAULT_LIST;
     private final int TIME_MINUTE_1 = 1;
     private final int TIME_MINUTE_3 = 3;
     private final int TIME_MINUTE_5 = 5;
     private final int REGULAR_BACKGROUND_COLOUR = 0xFFF5F5F5;
     private final int TIMED_BACKGROUND_COLOUR = 0xFFE0FFFF;
+    private final int PREFETCH_WORDS = 3;
+    
+    //Latency instrumentation: when the activity was created until the first word is shown,
+    //and when the last correct answer was entered
+    private long createNanos;
+    private long nextWordStart;
+    private TextView metricsTextView;
+    private final String METRICS_FILE = "metrics.txt";
+    
+    //Delayed game commands by key, each runs at most once however often it is scheduled
+    private GameScheduler scheduler;
+    private static final int COMMAND_NEXT_WORD = 0;
+    private static final int COMMAND_CHALLENGE_END = 1;
+    private static final int COMMAND_RESET = 2;
+    private static final int COMMAND_METRICS = 3;
+    private static final int COMMANDS = 4;
+    private final long METRICS_REFRESH_DELAY = 1000;
+    private final long NEXT_WORD_DELAY = 1000;
+    private final long CHALLENGE_RESULTS_DELAY = 5000;
+    
+    //Everything handed to the next instance of this activity on a configuration change such as
+    //rotation, so the new one shows the same game at once without reloading or decoding anything
+    private static class RetainedGame {
+    	SpellingGameEngine engine;
+    	String wordListName;
+    	String loadingListName;
+    	WordList allWords;
+    	AdaptiveDifficultyController adaptiveController;
+    	WordList listWords;
+    	WordScheduler listScheduler;
+    	ClassroomServer classroomServer;
+    	//Time left on the pending next word and reset commands, -1 if not pending
+    	long nextWordDelay;
+    	long resetDelay;
+    }
+    //Set once the game has been handed on, this instance then leaves it alone
+    private boolean retainingGame;
+    //List being loaded, or null
+    private String loadingListName;
+    
+    //The game saved in the instance state in case the process is killed in the background, and
+    //the saved game waiting for its list to load after it was
+    private final String GAME_STATE = "gameState";
+    private byte[] pendingGameState;
+    
+    //Request code of the file chosen to import a word list from, and whether this instance is
+    //gone by the time the import finishes
+    private final int REQUEST_IMPORT = 1;
+    private boolean destroyed;
+    
+    //Scores a correct answer and moves on once the user has seen it was right
+    private final Runnable nextWordCommand = new Runnable() {
+    	@Override
+    	public void run() {
+    		updateScore();
+    		changeCurrentWord();
+    		LatencyRecorder.APP.record(LatencyRecorder.STAGE_NEXT_WORD, nextWordStart);
+    	}
+    };
+    
+    //Refreshes the developer metrics overlay while it is shown
+    private final Runnable metricsCommand = new Runnable() {
+    	@Override
+    	public void run() {
+    		metricsTextView.setText(LatencyRecorder.APP.summary() + "\nimages: " + imageCache.hitCount() + " hits "
+    				+ imageCache.missCount() + " misses, speech: " + speech.hitCount() + " hits " + speech.missCount()
+    				+ " misses, sounds: " + feedbackSounds.playedCount() + " played " + feedbackSounds.droppedCount()
+    				+ " dropped");
+    		scheduler.schedule(COMMAND_METRICS, metricsCommand, METRICS_REFRESH_DELAY);
+    	}
+    };
+    
+    //Ends a timed challenge, shows its statistics and goes back to normal mode a little later
+    private final Runnable challengeEndCommand = new Runnable() {
+    	@Override
+    	public void run() {
+    		if (!engine.isTimedMode() || elapsedClock.now() < engine.getChallengeDeadline())
+    			return;
+    		//A correct answer still on screen came in before the deadline, so it counts towards the challenge
+    		if (scheduler.isPending(COMMAND_NEXT_WORD)) {
+    			scheduler.cancel(COMMAND_NEXT_WORD);
+    			updateScore();
+    		}
+    		engine.checkChallengeOver();
+    		speech.announce("Timed challenge complete");
+    		scoreChronometer.stop();
+    		displayStats();
+    		if (classroomServer != null)
+    			classroomServer.endChallenge();
+    		scheduler.schedule(COMMAND_RESET, resetCommand, CHALLENGE_RESULTS_DELAY);
+    	}
+    };
+    
+    private final Runnable resetCommand = new Runnable() {
+    	@Override
+    	public void run() {
+    		resetStats();
+    	}
+    };
+    
+    //Monotonic time the engine measures answers and challenges with
+    private final Clock elapsedClock = new Clock() {
+    	@Override
+    	public long now() {
+    		return SystemClock.elapsedRealtime();
+    	}
+    };
     
     /* 
 	 * Method initiated once app is launched. Setups necessary widgets and handlers.
 	*/
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
+		createNanos = System.nanoTime();
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.activity_main);	
 		
@@ -129,41 +256,35 @@ public class MainActivity extends Activity{
 		scoreTextView = (TextView) findViewById(R.id.scoreTextView);
 		wordsSpelledTextView = (TextView) findViewById(R.id.questionTextView);
 		wordImageView = (ImageView) findViewById(R.id.wordImageView);
+		metricsTextView = (TextView) findViewById(R.id.metricsTextView);
 		
 		//Reference tableLayout to change background colour
 		backgroundTableLayout = (TableLayout)findViewById(R.id.tableLayout);
 		backgroundTableLayout.setBackgroundColor(REGULAR_BACKGROUND_COLOUR);
 		
-		//Reference Chronometer and create Listener
+		//Reference Chronometer, it only shows the time, the game scheduler ends challenges
 		scoreChronometer = (Chronometer) findViewById(R.id.scoreChronometer);
-		scoreChronometer.setOnChronometerTickListener(new OnChronometerTickListener() {
-			/* 
-			 * Handles the chronometer while it is running. Checks if timed mode is on.
-			*/
-            @Override
-            public void onChronometerTick(Chronometer chronometer) {
-            	//If time mode is on, change background colour, and reset app for timed mode
-            	if (timedMode) {
-            		int seconds = (int)((SystemClock.elapsedRealtime() - scoreChronometer.getBase())/1000);
-            		//Checks if timed mode is over, and resets app back to normal mode
-            		//Stops timer, reset stats, and display stats for timed mode
-            		if (seconds > timeLimit * 60) {
-            			timedMode = false;
-            			textToSpeech.speak("Timed challenge complete", TextToSpeech.QUEUE_FLUSH, null);
-            			scoreChronometer.stop();
-            			displayStats();
-                        Handler handler = new Handler();
-                        handler.postDelayed(new Runnable() {
-                            @Override
-                            public void run() {
-                    			resetStats();
-                    			backgroundTableLayout.setBackgroundColor(REGULAR_BACKGROUND_COLOUR);
-                            }
-                        }, 5000);
-            		}
-            	}
-            }
-        });
+		
+		//Wake the game scheduler through a single Handler and Runnable
+		final Handler handler = new Handler();
+		final Runnable wake = new Runnable() {
+			@Override
+			public void run() {
+				scheduler.runDue();
+			}
+		};
+		scheduler = new GameScheduler(elapsedClock, new GameScheduler.Waker() {
+			@Override
+			public void wakeAt(long deadline) {
+				handler.removeCallbacks(wake);
+				handler.postDelayed(wake, Math.max(0, deadline - elapsedClock.now()));
+			}
+			
+			@Override
+			public void sleep() {
+				handler.removeCallbacks(wake);
+			}
+		}, COMMANDS);
 		
 		//Reference Buttons and set Listeners
 		enterWordButton = (Button) findViewById(R.id.enterButton);		
@@ -194,24 +315,151 @@ public class MainActivity extends Activity{
 		        }
 		    }
 		});
+		defaultInputColour = enterWordEditText.getCurrentTextColor();
+		enterWordEditText.addTextChangedListener(new prefixWatcher());
 		
-		//Initiate sounds
+		//Attach to the resources warmed up since the menu, anything not ready yet keeps loading
 		setVolumeControlStream(AudioManager.STREAM_MUSIC);
-		soundPool = new SoundPool(1, AudioManager.STREAM_MUSIC, 0);
-		right_sound_id = soundPool.load(this, R.raw.right, 1);
-		wrong_sound_id = soundPool.load(this, R.raw.wrong, 1);
+		warmUp = WarmUp.start(this);
+		feedbackSounds = warmUp.feedbackSounds();
+		imageCache = warmUp.imageCache();
+		speech = warmUp.speech();
+		wordListLoader = warmUp.wordListLoader();
 		
-		//Set default word list
-		setWordList(ALL_WORDS);
+		//Carry on with the game from before a configuration change, or start a new one
+		RetainedGame retained = (RetainedGame) getLastNonConfigurationInstance();
+		if (retained != null)
+			engine = retained.engine;
+		else {
+			speech.timeFirstWord(createNanos);
+			engine = new SpellingGameEngine(elapsedClock, Clock.SYSTEM);
+		}
 		
-		//Get assets
-		assets = getAssets();
+		//Every answer is recorded to disk in the background
+		answerLog = warmUp.answerLog();
+		engine.setListener(new SpellingGameEngine.Listener() {
+			@Override
+			public void onAnswer(AnswerEvent event) {
+				answerLog.record(event);
+				warmUp.errorAnalytics().onAnswer(event);
+				if (isAdaptive())
+					adaptiveController.onAnswer(event);
+			}
+		});
+		
+		//Typing is only checked against the current word until the dictionary of all words is loaded,
+		//and harder words are worth more points once their weights are
+		warmUp.setListener(new WarmUp.Listener() {
+			@Override
+			public void onDictionaryLoaded(Dawg words, DifficultyWeights weights) {
+				dictionary = words;
+				if (weights != null)
+					engine.setDifficultyWeights(weights);
+			}
+		});
 		
-		//Initiate text to speech
-		textToSpeech = new TextToSpeech(this, new initiateTextToSpeech());
+		if (retained != null)
+			resumeRetainedGame(retained);
+		else if (savedInstanceState != null && savedInstanceState.getByteArray(GAME_STATE) != null) {
+			//The process was killed in the background, load the list the game was on to restore it
+			pendingGameState = savedInstanceState.getByteArray(GAME_STATE);
+			setWordList(savedListName(pendingGameState));
+		}
+		else {
+			//Load default word list, a random word is picked once it is ready
+			setWordList(ALL_WORDS);
+		}
 		
-		//Pick random word to spell
-        changeCurrentWord();
+		//Recording outlives the activity, keep showing it after a restart
+		if (LatencyRecorder.APP.isEnabled()) {
+			metricsTextView.setVisibility(View.VISIBLE);
+			scheduler.schedule(COMMAND_METRICS, metricsCommand, 0);
+		}
+	}
+	
+	/* 
+	 * Saves what the user has practised and the error analytics, and starts writing every
+	 * answer still queued, whenever the app leaves the foreground.
+	*/
+	@Override
+	protected void onPause() {
+		super.onPause();
+		saveScheduler();
+		answerLog.flush();
+		warmUp.saveErrorAnalytics();
+	}
+	
+	/* 
+	 * Lets go of word packs not in use and decoded images when the system is short of memory.
+	*/
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		warmUp.trimMemory();
+	}
+	
+	/* 
+	 * Hands the game, the loaded lists and any open classroom to the instance created after a
+	 * configuration change, along with how long the pending commands had left to run.
+	*/
+	@Override
+	public Object onRetainNonConfigurationInstance() {
+		RetainedGame retained = new RetainedGame();
+		retained.engine = engine;
+		retained.wordListName = wordListName;
+		retained.loadingListName = loadingListName;
+		retained.allWords = allWords;
+		retained.adaptiveController = adaptiveController;
+		retained.listWords = listWords;
+		retained.listScheduler = listScheduler;
+		retained.classroomServer = classroomServer;
+		retained.nextWordDelay = scheduler.remaining(COMMAND_NEXT_WORD);
+		retained.resetDelay = scheduler.remaining(COMMAND_RESET);
+		retainingGame = true;
+		return retained;
+	}
+	
+	/* 
+	 * Saves the game in a few dozen bytes in case the process is killed while in the background:
+	 * the list, whether words were adaptive, the pending commands and the engine state, see
+	 * SpellingGameEngine.saveState(). What has been practised is saved to its own file by onPause.
+	*/
+	@Override
+	protected void onSaveInstanceState(Bundle outState) {
+		super.onSaveInstanceState(outState);
+		if (engine.getCurrentWord() == null)
+			return;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try {
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeUTF(wordListName);
+			out.writeBoolean(isAdaptive());
+			out.writeLong(scheduler.remaining(COMMAND_NEXT_WORD));
+			out.writeLong(scheduler.remaining(COMMAND_RESET));
+			engine.saveState(out);
+			out.flush();
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Saving File", e);
+			return;
+		}
+		outState.putByteArray(GAME_STATE, bytes.toByteArray());
+	}
+	
+	/* 
+	 * Closes the classroom when the game is closed, unless it was handed to the next instance.
+	 * Speech and sounds are shared with the rest of the process and stay loaded.
+	*/
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		destroyed = true;
+		scheduler.cancelAll();
+		warmUp.setListener(null);
+		if (hintDialog != null && hintDialog.isShowing())
+			hintDialog.dismiss();
+		if (classroomServer != null && !retainingGame)
+			classroomServer.stop();
 	}
 	
 	/* 
@@ -223,6 +471,11 @@ public class MainActivity extends Activity{
 	    menu.add(Menu.NONE, Menu.FIRST, Menu.NONE, R.string.difficulty_menu);
 	    menu.add(Menu.NONE, Menu.FIRST+1, Menu.NONE, R.string.challenge_menu);
 	    menu.add(Menu.NONE, Menu.FIRST+2, Menu.NONE, R.string.reset_menu);
+	    menu.add(Menu.NONE, Menu.FIRST+3, Menu.NONE, R.string.classroom_menu);
+	    menu.add(Menu.NONE, Menu.FIRST+4, Menu.NONE, R.string.adaptive_menu);
+	    menu.add(Menu.NONE, Menu.FIRST+5, Menu.NONE, R.string.metrics_menu);
+	    menu.add(Menu.NONE, Menu.FIRST+6, Menu.NONE, R.string.report_menu);
+	    menu.add(Menu.NONE, Menu.FIRST+7, Menu.NONE, R.string.import_menu);
 	    return true;
 	}
 	
@@ -233,25 +486,20 @@ public class MainActivity extends Activity{
 	@Override
 	public boolean onOptionsItemSelected(MenuItem item) {
 	    if (item.getItemId() == Menu.FIRST) {
+	    	//The lists on offer come from the pack manifest, read along with the first list
+	    	final PackRegistry registry = wordListLoader.registry();
+	    	if (registry == null) {
+	    		Toast.makeText(this, "Words are still loading", Toast.LENGTH_SHORT).show();
+	    		return true;
+	    	}
 	        AlertDialog.Builder choicesBuilder = new AlertDialog.Builder(this);
 	        choicesBuilder.setTitle("Select Difficulty");
 	        //Create menu items and display onto screen
-	        choicesBuilder.setItems(R.array.difficulty, 
+	        choicesBuilder.setItems(registry.titles(), 
 	                new DialogInterface.OnClickListener() {
 	                    public void onClick(DialogInterface dialog, int item) {
-	                    	//Determines which item from menu is selected
 	                    	//Set wordList according to item selected
-	                    	if (item == 0)
-	                    		setWordList(ALL_WORDS);
-	                    	else if (item == 1)
-	                    		setWordList(YEAR5_6);
-	                    	else if (item == 2)
-	                    		setWordList(YEAR7_8);
-	                    	else if (item == 3)
-	                    		setWordList(YEAR9_10);
-	                    	else if (item == 4)
-	                    		setWordList(YEAR11_12);
-	                    	resetStats();
+	                    	setWordList(registry.name(item));
 	                    }
 	                }
 	        );
@@ -269,17 +517,22 @@ public class MainActivity extends Activity{
 	                    public void onClick(DialogInterface dialog, int item) {
 	                    	//Determines which item from menu is selected
 	                    	//Set time limit according to item selected
-	                    	if (item == 0)
-	                    		timeLimit = TIME_MINUTE_1;
-	                    	else if (item == 1)
+	                    	int timeLimit = TIME_MINUTE_1;
+	                    	if (item == 1)
 	                    		timeLimit = TIME_MINUTE_3;
 	                    	else if (item == 2)
 	                    		timeLimit = TIME_MINUTE_5;
-	                    	textToSpeech.speak("Timed challenge "+timeLimit+" minute limit", TextToSpeech.QUEUE_FLUSH, null);
-	                    	resetStats();
-	                    	timedMode = true;
-	                    	scoreChronometer.setBase(SystemClock.elapsedRealtime());
-	                    	timedModeStartTime = SystemClock.elapsedRealtime();
+	                    	speech.announce("Timed challenge "+timeLimit+" minute limit");
+	                    	engine.startChallenge(timeLimit);
+	                    	//Drop anything left from before and end the challenge exactly on time
+	                    	cancelGameCommands();
+	                    	scheduler.scheduleAt(COMMAND_CHALLENGE_END, challengeEndCommand, engine.getChallengeDeadline());
+	                    	showStats();
+	                    	showCurrentWord();
+	                    	scoreChronometer.setBase(engine.getChallengeStartTime());
+	                    	//The whole class plays against the same challenge clock
+	                    	if (classroomServer != null)
+	                    		classroomServer.startChallenge(engine.getChallengeStartTime(), timeLimit);
 	                    	backgroundTableLayout.setBackgroundColor(TIMED_BACKGROUND_COLOUR);
 	                    }
 	                }
@@ -293,79 +546,458 @@ public class MainActivity extends Activity{
 	    else if ((item.getItemId() == Menu.FIRST+2)) {
 	    	resetStats();
 	    	return true;
+	    }
+	    else if ((item.getItemId() == Menu.FIRST+3)) {
+	    	toggleClassroom();
+	    	return true;
+	    }
+	    else if ((item.getItemId() == Menu.FIRST+4)) {
+	    	toggleAdaptive();
+	    	return true;
+	    }
+	    else if ((item.getItemId() == Menu.FIRST+5)) {
+	    	toggleMetrics();
+	    	return true;
+	    }
+	    else if ((item.getItemId() == Menu.FIRST+6)) {
+	    	startActivity(new Intent(this, ReportActivity.class));
+	    	return true;
+	    }
+	    else if ((item.getItemId() == Menu.FIRST+7)) {
+	    	//Let the user pick a text or CSV file from any app that has one
+	    	Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+	    	intent.setType("text/*");
+	    	intent.addCategory(Intent.CATEGORY_OPENABLE);
+	    	startActivityForResult(Intent.createChooser(intent, "Import Word List"), REQUEST_IMPORT);
+	    	return true;
 	    }	    	
 	    return false;
 	}
 	
 	/* 
-	 * Private helper method that reads a textfile and loads words into an array.
-	 * Method is called each time user changes difficulty settings. Accepts a file
-	 * name as a parameter.
+	 * Imports the word list file the user picked. The import runs in the background, then
+	 * what was imported is shown and the list is played.
+	*/
+	@Override
+	protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+		super.onActivityResult(requestCode, resultCode, data);
+		if (requestCode != REQUEST_IMPORT || resultCode != RESULT_OK || data == null || data.getData() == null)
+			return;
+		InputStream in;
+		try {
+			in = getContentResolver().openInputStream(data.getData());
+		}
+		catch (FileNotFoundException e) {
+			Log.e("Spelling Bee", "Error Loading File", e);
+			Toast.makeText(this, "Could not open the file", Toast.LENGTH_SHORT).show();
+			return;
+		}
+		Toast.makeText(this, "Importing words", Toast.LENGTH_SHORT).show();
+		warmUp.importWordList(in, new WarmUp.ImportListener() {
+			@Override
+			public void onImported(WordListImporter.Result result) {
+				if (destroyed)
+					return;
+				if (result == null) {
+					Toast.makeText(MainActivity.this, "Could not import the word list", Toast.LENGTH_LONG).show();
+					return;
+				}
+				AlertDialog.Builder builder = new AlertDialog.Builder(MainActivity.this);
+				builder.setTitle("Word List Imported");
+				builder.setMessage(result.summary());
+				builder.setPositiveButton("OK", new DialogInterface.OnClickListener() {
+					public void onClick(DialogInterface dialog, int id) {
+					}
+				});
+				builder.create().show();
+				if (result.imported > 0)
+					setWordList(WordListImporter.LIST);
+			}
+		});
+	}
+	
+	/* 
+	 * Private helper method that switches adaptive difficulty on or off. While it is on, words
+	 * come from all lists, picked to suit how well the user is doing. Switching off goes back
+	 * to the list used before. Both ways are instant, no file is read. No returns and no
+	 * parameters.
+	*/
+	private void toggleAdaptive() {
+		if (isAdaptive()) {
+			engine.setWordList(listWords, listScheduler);
+			resetStats();
+			Toast.makeText(this, "Adaptive difficulty off", Toast.LENGTH_SHORT).show();
+			return;
+		}
+		if (allWords == null) {
+			Toast.makeText(this, "Words are still loading", Toast.LENGTH_SHORT).show();
+			return;
+		}
+		//Keep progress on the current list before leaving it
+		saveScheduler();
+		listWords = engine.getWordList();
+		listScheduler = engine.getWordScheduler();
+		if (adaptiveController == null)
+			adaptiveController = AdaptiveDifficultyController.forWords(allWords, engine.getDifficultyWeights());
+		adaptiveController.reset(allWords.size());
+		engine.setWordList(allWords, adaptiveController);
+		resetStats();
+		Toast.makeText(this, "Adaptive difficulty on", Toast.LENGTH_SHORT).show();
+	}
+	
+	/* 
+	 * Private helper method that shows or hides the developer metrics overlay. While it is
+	 * shown, latencies are recorded and summarised on screen every second. Hiding it writes
+	 * everything recorded to metrics.txt in the app's files and stops recording. No returns
+	 * and no parameters.
+	*/
+	private void toggleMetrics() {
+		if (LatencyRecorder.APP.isEnabled()) {
+			LatencyRecorder.APP.setEnabled(false);
+			scheduler.cancel(COMMAND_METRICS);
+			metricsTextView.setVisibility(View.GONE);
+			File file = new File(getFilesDir(), METRICS_FILE);
+			try {
+				Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+				try {
+					LatencyRecorder.APP.export(out);
+				}
+				finally {
+					out.close();
+				}
+				Toast.makeText(this, "Metrics written to " + file, Toast.LENGTH_LONG).show();
+			}
+			catch (IOException e) {
+				Log.e("Spelling Bee", "Error Saving File", e);
+			}
+			return;
+		}
+		LatencyRecorder.APP.setEnabled(true);
+		metricsTextView.setVisibility(View.VISIBLE);
+		scheduler.schedule(COMMAND_METRICS, metricsCommand, 0);
+	}
+	
+	/* 
+	 * Private helper method that cancels the pending game commands, leaving the metrics
+	 * overlay running.
+	*/
+	private void cancelGameCommands() {
+		scheduler.cancel(COMMAND_NEXT_WORD);
+		scheduler.cancel(COMMAND_CHALLENGE_END);
+		scheduler.cancel(COMMAND_RESET);
+	}
+	
+	/* 
+	 * Private helper method that tells whether words are currently picked adaptively.
+	*/
+	private boolean isAdaptive() {
+		return adaptiveController != null && engine.getWordScheduler() == adaptiveController;
+	}
+	
+	/* 
+	 * Private helper method that starts or stops hosting a classroom spelling bee. While
+	 * hosting, every word shown here is put to all connected students, and challenges
+	 * started here run for the whole class. The server binds on its own thread, a second
+	 * thread waits for the outcome so the user is told whether the port really opened.
+	 * No returns and no parameters.
+	*/
+	private void toggleClassroom() {
+		if (classroomServer != null) {
+			classroomServer.stop();
+			classroomServer = null;
+			Toast.makeText(this, "Classroom closed", Toast.LENGTH_SHORT).show();
+			return;
+		}
+		final ClassroomServer server = new ClassroomServer(new ClassroomRoom(elapsedClock, engine.getDifficultyWeights()),
+				ClassroomServer.DEFAULT_PORT);
+		classroomServer = server;
+		server.start();
+		if (engine.getCurrentWord() != null)
+			server.startRound(engine.getCurrentWord());
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				int port = -1;
+				try {
+					port = server.awaitPort();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				final int boundPort = port;
+				runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						if (boundPort < 0) {
+							server.stop();
+							if (server.getFailure() != null)
+								Log.e("Spelling Bee", "Error Opening Classroom", server.getFailure());
+						}
+						//Closed again, or the activity is gone, meanwhile
+						if (destroyed || classroomServer != server)
+							return;
+						if (boundPort < 0) {
+							classroomServer = null;
+							Toast.makeText(MainActivity.this, "Could not open the classroom on port "
+									+ ClassroomServer.DEFAULT_PORT, Toast.LENGTH_LONG).show();
+							return;
+						}
+						Toast.makeText(MainActivity.this, "Classroom open on port " + boundPort, Toast.LENGTH_LONG).show();
+					}
+				});
+			}
+		}, "Classroom start").start();
+	}
+	
+	/* 
+	 * Private helper method that loads a word list, from the compiled word pack if it contains
+	 * the list and otherwise from its textfile. Method is called each time user changes
+	 * difficulty settings. Loading happens on a background thread and the current list stays
+	 * in use until the new one is ready, then stats are reset and a new word is picked.
+	 * Accepts a file name as a parameter.
 	*/
 	private void setWordList(String file_name) {
-        try
-        {
-        	//Assign numberOfWords and wordList
-            numberOfWords = readNumberOfLines(file_name);
-            wordList = new String[numberOfWords];
-            InputStream inputStream = getAssets().open(file_name);
-            BufferedReader textReader = new BufferedReader(new InputStreamReader(inputStream));    
-            for (int i = 0; i < numberOfWords; i++) {
-                wordList[i] = textReader.readLine();
-            }
-            textReader.close();
-        }
-        catch (IOException e)
-        {
-        	Log.e("Spelling Bee", "Error Loading File", e);
-        }
+		final long start = LatencyRecorder.APP.start();
+		loadingListName = file_name;
+		wordListLoader.load(file_name, new WordListLoader.Callback() {
+			@Override
+			public void onLoaded(final String name, final WordList words) {
+				//Restore what the user has practised from this list before, still off the UI thread
+				final WordScheduler scheduler = loadScheduler(name, words);
+				runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						//The next instance loads the list again if the game was handed on meanwhile
+						if (retainingGame)
+							return;
+						//Keep progress on the previous list before switching
+						saveScheduler();
+						wordListName = name;
+						loadingListName = null;
+						if (name.equals(ALL_WORDS))
+							allWords = words;
+						engine.setWordList(words, scheduler);
+						if (pendingGameState == null || !restoreGameState(pendingGameState))
+							resetStats();
+						pendingGameState = null;
+						LatencyRecorder.APP.record(LatencyRecorder.STAGE_WORD_LIST, start);
+					}
+				});
+			}
+			
+			@Override
+			public void onError(String name, IOException error) {
+				Log.e("Spelling Bee", "Error Loading File", error);
+			}
+		});
 	}
-		
+    
+	/* 
+	 * Private helper method that creates the spaced repetition scheduler for a word list and
+	 * restores its saved state, if any. Returns the scheduler. Accepts the list name and words.
+	*/
+	private WordScheduler loadScheduler(String name, WordList words) {
+		SpacedRepetitionScheduler scheduler = new SpacedRepetitionScheduler(Clock.SYSTEM);
+		scheduler.reset(words.size());
+		File file = schedulerFile(name);
+		if (file.exists()) {
+			try {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				try {
+					scheduler.load(in, words);
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch (IOException e) {
+				//Start over rather than fail on a damaged file
+				Log.e("Spelling Bee", "Error Loading File", e);
+				scheduler.reset(words.size());
+			}
+		}
+		return scheduler;
+	}
+	
+	/* 
+	 * Private helper method that saves the spaced repetition state of the current word list.
+	 * Writes a temporary file first so an interrupted save never loses the previous state.
+	 * No returns and no parameters.
+	*/
+	private void saveScheduler() {
+		WordScheduler wordScheduler = engine.getWordScheduler();
+		if (!(wordScheduler instanceof SpacedRepetitionScheduler))
+			return;
+		File file = schedulerFile(wordListName);
+		File temporary = new File(file.getPath() + ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+			try {
+				((SpacedRepetitionScheduler) wordScheduler).save(out, engine.getWordList());
+			}
+			finally {
+				out.close();
+			}
+			if (!temporary.renameTo(file))
+				throw new IOException("Could not move " + temporary + " to " + file);
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Saving File", e);
+		}
+	}
+	
+	private File schedulerFile(String name) {
+		return new File(getFilesDir(), "srs_" + name + ".bin");
+	}
+	
+	/* 
+	 * Private helper method that takes over the game of the instance this one replaced after a
+	 * configuration change. Nothing is loaded, decoded or spoken again, unless a list was still
+	 * loading. Accepts what was retained.
+	*/
+	private void resumeRetainedGame(RetainedGame retained) {
+		wordListName = retained.wordListName;
+		allWords = retained.allWords;
+		adaptiveController = retained.adaptiveController;
+		listWords = retained.listWords;
+		listScheduler = retained.listScheduler;
+		classroomServer = retained.classroomServer;
+		if (retained.loadingListName != null)
+			setWordList(retained.loadingListName);
+		resumeGame(retained.nextWordDelay, retained.resetDelay);
+		recordStartup(LatencyRecorder.STAGE_RECREATE);
+	}
+	
+	/* 
+	 * Private helper method that reads the list name from a game saved by onSaveInstanceState.
+	 * Returns the default list if the state is unreadable.
+	*/
+	private String savedListName(byte[] state) {
+		try {
+			return new DataInputStream(new ByteArrayInputStream(state)).readUTF();
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Loading File", e);
+			return ALL_WORDS;
+		}
+	}
+	
+	/* 
+	 * Private helper method that restores a game saved by onSaveInstanceState once its list has
+	 * been loaded. Adaptive difficulty is not restored, it would need every list loaded first,
+	 * so its game carries on with a new word from the list used before. Returns whether the
+	 * game was restored. Accepts the saved state.
+	*/
+	private boolean restoreGameState(byte[] state) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+			in.readUTF();
+			boolean adaptive = in.readBoolean();
+			long nextWordDelay = in.readLong();
+			long resetDelay = in.readLong();
+			engine.restoreState(in);
+			cancelGameCommands();
+			if (adaptive) {
+				engine.nextWord();
+				resumeGame(-1, resetDelay);
+				speech.speakWord(engine.getCurrentWord());
+			}
+			else
+				resumeGame(nextWordDelay, resetDelay);
+			recordStartup(LatencyRecorder.STAGE_COLD_START);
+			return true;
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Loading File", e);
+			return false;
+		}
+	}
+	
 	/* 
-	 * Private helper method that reads a textfile and counts the number of lines.
-	 * Returns an integer that represents the number of lines in a file. Accepts
-	 * a file name as a parameter. No returns.
+	 * Private helper method that shows a game carried over from an earlier instance as it was
+	 * left, without speaking the word again, and schedules the commands that were pending.
+	 * Accepts how long the next word and reset commands had left, -1 if not pending.
 	*/
-    private int readNumberOfLines(String file_name) throws IOException
+	private void resumeGame(long nextWordDelay, long resetDelay) {
+		showStats();
+		if (engine.getCurrentWord() == null)
+			return;
+		updateImage();
+		if (engine.isTimedMode()) {
+			backgroundTableLayout.setBackgroundColor(TIMED_BACKGROUND_COLOUR);
+			scoreChronometer.setBase(engine.getChallengeStartTime());
+			scheduler.scheduleAt(COMMAND_CHALLENGE_END, challengeEndCommand, engine.getChallengeDeadline());
+		}
+		else
+			scoreChronometer.setBase(engine.getWordStartTime());
+		if (nextWordDelay >= 0) {
+			//Show the correct answer until it is scored
+			currentWordTextView.setText(engine.getCurrentWord());
+			currentWordTextView.setTextColor(getResources().getColor(R.color.correct_answer));
+			scheduler.schedule(COMMAND_NEXT_WORD, nextWordCommand, nextWordDelay);
+		}
+		if (resetDelay >= 0)
+			scheduler.schedule(COMMAND_RESET, resetCommand, resetDelay);
+		if (nextWordDelay < 0 && resetDelay < 0)
+			scoreChronometer.start();
+	}
+	
+	/* 
+	 * Private helper method that records the time since the activity was created as a startup
+	 * stage, the first time it is called. Accepts the stage.
+	*/
+	private void recordStartup(int stage) {
+		if (createNanos != 0) {
+			LatencyRecorder.APP.recordStartup(stage, System.nanoTime() - createNanos);
+			createNanos = 0;
+		}
+	}
+    
+	/* 
+	 * Private helper method that picks a new word for the user to spell. Words the user has
+	 * answered come back on a spaced repetition schedule, new words are picked at random.
+	 * No returns and no parameters.
+	*/
+    private void changeCurrentWord()
     {
-        int numberOfLines = 0;
-        String line;
-        InputStream inputStream = getAssets().open(file_name);
-        BufferedReader textReader = new BufferedReader(new InputStreamReader(inputStream));
-        while ((line = textReader.readLine()) != null) {
-            numberOfLines++;
-        }
-        textReader.close();
-        return numberOfLines;
+    	engine.nextWord();
+    	showCurrentWord();
     }
     
 	/* 
-	 * Private helper method that randomly picks a new word for the user to spell.
-	 * Calls methods to update images, chronometer, and text widgets. No returns
-	 * and no parameters.
+	 * Private helper method that shows the engine's current word. Calls methods to update
+	 * images, chronometer, and text widgets. No returns and no parameters.
 	*/
-    private void changeCurrentWord()
+    private void showCurrentWord()
     {
-    	//Randomly generate an index to select word
-    	int index = randomGenerator.nextInt(numberOfWords);
-    	while (index == currentIndex) {
-    		index = randomGenerator.nextInt(numberOfWords);
-    	}
-    	currentIndex = index;
-        currentWord = wordList[currentIndex];
+    	//Nothing to show until the first word list has been loaded
+    	String currentWord = engine.getCurrentWord();
+    	if (currentWord == null)
+    		return;
         enterWordEditText.setText("");
     	currentWordTextView.setText("");
-    	//Update the image according to word
+    	//Update the image according to word and start decoding images for the next words
         updateImage();
-        if (ttsInitialized)
-        	textToSpeech.speak("Spell the word " + currentWord, TextToSpeech.QUEUE_ADD, null);
-        hintsUsed = 0;
+        speech.speakWord(currentWord);
+        //Prepare the images and speech of the next words
+        for (int ahead = 0; ahead < PREFETCH_WORDS; ahead++) {
+        	int index = engine.peekIndex(ahead);
+        	if (index >= 0) {
+        		imageCache.prefetch(engine.getWordList().get(index));
+        		speech.prefetch(engine.getWordList().get(index));
+        	}
+        }
+        //Students in the classroom spell the word the host just spoke
+        if (classroomServer != null)
+        	classroomServer.startRound(currentWord);
         //If in timed mode, adjust chronometer accordingly
-        if (timedMode != true) {
-        	scoreChronometer.setBase(SystemClock.elapsedRealtime());
+        if (engine.isTimedMode() != true) {
+        	scoreChronometer.setBase(engine.getWordStartTime());
         }
         //Set the chronometer to start counting
         scoreChronometer.start();
+        //Time from launch to the first word, kept until metrics are switched on
+        recordStartup(LatencyRecorder.STAGE_COLD_START);
     }
   	
 	/* 
@@ -376,73 +1008,70 @@ public class MainActivity extends Activity{
 	*/
   	private void submitAnswer()
   	{
+  		long cueStart = LatencyRecorder.APP.start();
   		String input = enterWordEditText.getText().toString();
   		//Edit out whitespaces from input and display input on screen
   		currentWordTextView.setText(input.trim());
   		//Checks if user's input is correct
-  		if (input.trim().equalsIgnoreCase(currentWord)) {
+  		if (engine.submitAnswer(input)) {
   			currentWordTextView.setTextColor(getResources().getColor(R.color.correct_answer));
   			scoreChronometer.stop();
-  			soundPool.play(right_sound_id, 1.0f, 1.0f, 1, 0, 1.0f);
-  			//Create a handler for delay of 1 second and then call update methods
-            Handler handler = new Handler();
-            handler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                	updateScore();
-                	changeCurrentWord();
-                	wordsSpelled++;
-                	wordsSpelledTextView.setText("Spelled: "+ wordsSpelled);
-                }
-            }, 1000);
+  			feedbackSounds.play(FeedbackSounds.RIGHT, cueStart);
+  			//Score and move on after 1 second
+  			nextWordStart = LatencyRecorder.APP.start();
+  			scheduler.schedule(COMMAND_NEXT_WORD, nextWordCommand, NEXT_WORD_DELAY);
   		}
   		else {
   			currentWordTextView.setTextColor(getResources().getColor(R.color.wrong_answer));
   	        enterWordEditText.setText("");
-  	        soundPool.play(wrong_sound_id, 1.0f, 1.0f, 1, 0, 1.0f);
+  	        feedbackSounds.play(FeedbackSounds.WRONG, cueStart);
+  	        //Tell the user what kind of slip a near miss was
+  	        String feedback = mistakeFeedback(engine.getLastMistake());
+  	        if (feedback != null)
+  	        	Toast.makeText(this, feedback, Toast.LENGTH_SHORT).show();
   		}
   	}  	
+
+	/* 
+	 * Private helper method that describes a near miss found by AnswerChecker. Returns null
+	 * for answers that were not close.
+	*/
+  	private static String mistakeFeedback(int mistake) {
+  		switch (mistake) {
+  		case AnswerChecker.TRANSPOSITION:
+  			return "Close! Two letters are the wrong way round";
+  		case AnswerChecker.DOUBLED_LETTER:
+  			return "Close! Check the double letters";
+  		case AnswerChecker.OMISSION:
+  			return "Close! A letter is missing";
+  		case AnswerChecker.INSERTION:
+  			return "Close! There is one letter too many";
+  		case AnswerChecker.VOWEL_SWAP:
+  			return "Close! Check the vowels";
+  		case AnswerChecker.SUBSTITUTION:
+  			return "Close! One letter is wrong";
+  		default:
+  			return null;
+  		}
+  	}
   	
 	/* 
 	 * Private helper method that updates the image according to currentWord. If 
 	 * no image associated with word is found, a default image is picked instead.
+	 * Images are decoded in the background and cached, a cached image is shown at once.
 	 * No returns and no parameters.
 	*/
   	private void updateImage()
   	{	
-  		InputStream stream;
-  		//Try to load image for the current word
-  	    try {
-  	        stream = assets.open("images/"+currentWord+".jpg");
-  	        Drawable image = Drawable.createFromStream(stream, currentWord);
-  	        wordImageView.setImageDrawable(image);
-  	    }
-  	    catch (IOException e) {
-  	    	//If no image is found, try to load default image
-  	    	try {
-  	        stream = assets.open("images/no_image.jpg");
-  	        Drawable image = Drawable.createFromStream(stream, currentWord);
-  	        wordImageView.setImageDrawable(image);
-  	    	}
-  	    	catch (IOException error) {
-  	    		Log.e("Spelling Bee", "Error Loading File", error);
-  	    	}
-  	    }
-  	}
-  	
-	/*
-	 * Private helper method that implements OnInitListener. Used for determining if text to speech
-	 * initiated correctly and sets up text to speech properties.
-	*/
-  	private class initiateTextToSpeech implements OnInitListener {;
-  		@Override
-  		public void onInit(int initStatus) {
-  			if (initStatus == TextToSpeech.SUCCESS) {
-  				textToSpeech.setSpeechRate((float)0.8);
-  				textToSpeech.speak("Spell the word " + currentWord, TextToSpeech.QUEUE_FLUSH, null);
-  				ttsInitialized = true;
+  		imageCache.setTargetSize(wordImageView.getWidth(), wordImageView.getHeight());
+  		imageCache.load(engine.getCurrentWord(), new WordImageCache.Listener() {
+  			@Override
+  			public void onImageLoaded(String word, Bitmap image) {
+  				//Ignore images that arrive after the user has moved on to another word
+  				if (word.equals(engine.getCurrentWord()))
+  					wordImageView.setImageBitmap(image);
   			}
-  		}
+  		});
   	}
   	
 	/*
@@ -451,79 +1080,131 @@ public class MainActivity extends Activity{
   	private class buttonListener implements OnClickListener {
   	    @Override
   	    public void onClick(View v) {
+  	    	//Ignore buttons until the first word list has been loaded, and while a correct answer is shown
+  	    	if (engine.getCurrentWord() == null || scheduler.isPending(COMMAND_NEXT_WORD))
+  	    		return;
   	    	if (v.getId() == R.id.enterButton)
   	    		submitAnswer();
   	    	else if (v.getId() == R.id.pronounceButton)
-  	    		textToSpeech.speak(currentWord, TextToSpeech.QUEUE_FLUSH, null);
-  	    	else if (v.getId() == R.id.nextButton)
-  	    		changeCurrentWord();
+  	    		speech.pronounce(engine.getCurrentWord());
+  	    	else if (v.getId() == R.id.nextButton) {
+  	    		//A skipped near miss may still have earned partial credit
+  	    		engine.skipWord();
+  	    		showStats();
+  	    		showCurrentWord();
+  	    	}
   	    	else if (v.getId() == R.id.hintButton)
   	    		displayHint();
   	    }
   	};
   	
 	/*
-	 * Private helper method that instantiates an alert dialog and displays a hint for the user.
-	 * The type of hint displayed is based on the amount hints the user previously used. No returns
-	 * and no parameters.
+	 * Private helper class that checks the answer on every keystroke. Typing that has left the
+	 * current word is coloured, differently if it cannot become any word in the lists at all.
+	 * Nothing is allocated unless the colour changes.
+	*/
+  	private class prefixWatcher implements TextWatcher {
+  		@Override
+  		public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+  		}
+  		
+  		@Override
+  		public void onTextChanged(CharSequence s, int start, int before, int count) {
+  		}
+  		
+  		@Override
+  		public void afterTextChanged(Editable s) {
+  			String word = engine.getCurrentWord();
+  			int state = PREFIX_ON_TRACK;
+  			if (word != null && !AnswerChecker.isPrefix(s, word)) {
+  				Dawg words = dictionary;
+  				state = PREFIX_OFF_TRACK;
+  				if (words != null && !isDictionaryPrefix(words, s))
+  					state = PREFIX_NOT_A_WORD;
+  			}
+  			if (state == prefixState)
+  				return;
+  			prefixState = state;
+  			if (state == PREFIX_ON_TRACK)
+  				enterWordEditText.setTextColor(defaultInputColour);
+  			else if (state == PREFIX_OFF_TRACK)
+  				enterWordEditText.setTextColor(getResources().getColor(R.color.off_track));
+  			else
+  				enterWordEditText.setTextColor(getResources().getColor(R.color.not_a_word));
+  		}
+  		
+  		//Whether the typing without surrounding whitespace starts any word
+  		private boolean isDictionaryPrefix(Dawg words, CharSequence s) {
+  			int start = 0;
+  			int end = s.length();
+  			while (start < end && Character.isWhitespace(s.charAt(start)))
+  				start++;
+  			while (end > start && Character.isWhitespace(s.charAt(end - 1)))
+  				end--;
+  			return words.isPrefix(s, start, end);
+  		}
+  	};
+  	
+	/*
+	 * Private helper method that displays the next hint for the user in the hint dialog, which
+	 * is built the first time and reused after. The type of hint displayed is based on the amount
+	 * hints the user previously used. No returns and no parameters.
 	*/
   	private void displayHint() {
   		//Build a dialog text
-  		AlertDialog.Builder builder = new AlertDialog.Builder(this);
-        builder.setTitle("Hint");
-        builder.setCancelable(false);
-        builder.setPositiveButton("OK", new DialogInterface.OnClickListener() {
-           public void onClick(DialogInterface dialog, int id) {
-           }
-        });
+  		if (hintDialog == null) {
+  			AlertDialog.Builder builder = new AlertDialog.Builder(this);
+  			builder.setTitle("Hint");
+  			builder.setCancelable(false);
+  			builder.setPositiveButton("OK", new DialogInterface.OnClickListener() {
+  				public void onClick(DialogInterface dialog, int id) {
+  				}
+  			});
+  			//A message has to be set before creating for the dialog to have a message view
+  			builder.setMessage("");
+  			hintDialog = builder.create();
+  		}
         
         //Choose which hint to select
-        if (hintsUsed == 0)
-            builder.setMessage("The length of the word is " + currentWord.length());
-        else if (hintsUsed > currentWord.length())
-        	builder.setMessage("No more hints!");
-        else
-        	builder.setMessage("The number "+hintsUsed+" letter of the word is "+currentWord.charAt(hintsUsed-1));
-        hintsUsed++;
+        hintDialog.setMessage(engine.nextHint());
         
-        //Create and show dialog
-        AlertDialog hintDialog = builder.create();
+        //Show dialog
         hintDialog.show();
   	}
   	
 	/*
-	 * Private helper method that updates all user statistics. No returns and no parameters.
+	 * Private helper method that scores the correctly spelled word and updates all user
+	 * statistics. No returns and no parameters.
 	*/
   	private void updateScore() {
-  		int seconds;
-  		//Based on whether timed mode is on, update the chronometer accordingly
-  		if (timedMode != true) {
-	  		seconds = (int)((SystemClock.elapsedRealtime() - scoreChronometer.getBase())/1000);
+  		engine.scoreCorrectAnswer();
+  		showStats();
+  	}
+  	
+	/*
+	 * Private helper method that shows the score and number of words spelled. Blank while
+	 * nothing has been spelled or scored. No returns and no parameters.
+	*/
+  	private void showStats() {
+  		if (engine.getWordsSpelled() == 0 && engine.getScore() == 0) {
+  			scoreTextView.setText("Score: ");
+  			wordsSpelledTextView.setText("Spelled: ");
   		}
   		else {
-	  		seconds = (int)((SystemClock.elapsedRealtime() - timedModeStartTime)/1000);
-	  		timedModeStartTime = SystemClock.elapsedRealtime();
+  			scoreTextView.setText("Score: " + engine.getScore());
+  			wordsSpelledTextView.setText("Spelled: "+ engine.getWordsSpelled());
   		}
-  		//Calculate the score and display it
-  		int actualScore = (currentWord.length()*10 - (seconds + hintsUsed*10));
-  		if (actualScore < 0)
-  			actualScore = 0;
-  		score = score + actualScore; 		
-    	scoreTextView.setText("Score: " + score);
   	}
   	
 	/*
 	 * Private helper method that resets all user statistics. No returns and no parameters.
 	*/
   	private void resetStats() {
-  		wordsSpelled = 0;
-  		score = 0;
-  		currentIndex = -1;
-  		scoreTextView.setText("Score: ");
-  		wordsSpelledTextView.setText("Spelled: ");
-        timedMode = false;
+  		cancelGameCommands();
+  		engine.resetStats();
+  		showStats();
         backgroundTableLayout.setBackgroundColor(REGULAR_BACKGROUND_COLOUR);
-  		changeCurrentWord();
+  		showCurrentWord();
   	}
   	
 	/* 
@@ -538,12 +1219,13 @@ public class MainActivity extends Activity{
            public void onClick(DialogInterface dialog, int id) {
            }
         });
-        if (wordsSpelled == 0){
-        	builder.setMessage("Your score: "+score +"\n"+"You spelled 0 words in a "+timeLimit+" minute time limit\n"+
+        int timeLimit = engine.getTimeLimit();
+        if (engine.getWordsSpelled() == 0){
+        	builder.setMessage("Your score: "+engine.getScore() +"\n"+"You spelled 0 words in a "+timeLimit+" minute time limit\n"+
             		"You took an average of "+(timeLimit*60)+" seconds to spell each word");
         }
         else {
-        	builder.setMessage("Your score: "+score +"\n"+"You spelled "+wordsSpelled+" words in a "+timeLimit+" minute time limit");
+        	builder.setMessage("Your score: "+engine.getScore() +"\n"+"You spelled "+engine.getWordsSpelled()+" words in a "+timeLimit+" minute time limit");
         }
         //Create the dialog and show it
         AlertDialog displayDialog = builder.create();
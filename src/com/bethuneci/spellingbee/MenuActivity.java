@@ -22,6 +22,9 @@ public class MenuActivity extends Activity {
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.activity_menu);
+		
+		//Load the word list, sounds, speech and first image while the user is still on the menu
+		WarmUp.start(this);
 	}
 
 	@Override
@@ -0,0 +1,146 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/* 
+ * Description: The word lists the game offers, read from the packs.idx asset. Each line gives
+ * a list's name, the title shown in the difficulty menu and the word pack holding the list,
+ * tab separated. A list without a pack is read from the text asset of its name. Only this
+ * manifest is read at startup, however many lists there are; WordListLoader opens a pack
+ * the first time one of its lists is played. Adding a list only takes a line here and a
+ * re-run of WordPackCompiler. Plain Java, no Android dependencies.
+*/
+
+public class PackRegistry {
+
+	public static final String MANIFEST = "packs.idx";
+
+	private final String[] names;
+	private final String[] titles;
+	private final String[] packs;
+	private final HashMap<String, Integer> indexes;
+
+	private PackRegistry(String[] names, String[] titles, String[] packs) {
+		this.names = names;
+		this.titles = titles;
+		this.packs = packs;
+		indexes = new HashMap<String, Integer>(names.length * 2);
+		for (int i = 0; i < names.length; i++)
+			indexes.put(names[i], Integer.valueOf(i));
+	}
+
+	/* 
+	 * Reads tab separated lines of list name, title and pack, skipping blank lines and lines
+	 * starting with #. A missing title is the name, a missing pack or "-" means a text file.
+	 * Closes the stream.
+	*/
+	public static PackRegistry read(InputStream inputStream) throws IOException {
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> titles = new ArrayList<String>();
+		ArrayList<String> packs = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() == 0 || line.startsWith("#"))
+					continue;
+				String[] fields = line.split("\t");
+				String name = fields[0].trim();
+				String title = fields.length > 1 && fields[1].trim().length() > 0 ? fields[1].trim() : name;
+				String pack = fields.length > 2 ? fields[2].trim() : "";
+				names.add(name);
+				titles.add(title);
+				packs.add(pack.length() == 0 || pack.equals("-") ? null : pack);
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return new PackRegistry(names.toArray(new String[names.size()]), titles.toArray(new String[titles.size()]),
+				packs.toArray(new String[packs.size()]));
+	}
+
+	/* 
+	 * Returns a copy of this registry with a list added at the end, or changed if it is
+	 * already there, e.g. a list the user imported.
+	*/
+	public PackRegistry with(String name, String title, String pack) {
+		Integer list = indexes.get(name);
+		int size = list == null ? names.length + 1 : names.length;
+		int index = list == null ? names.length : list.intValue();
+		String[] newNames = new String[size];
+		String[] newTitles = new String[size];
+		String[] newPacks = new String[size];
+		System.arraycopy(names, 0, newNames, 0, names.length);
+		System.arraycopy(titles, 0, newTitles, 0, titles.length);
+		System.arraycopy(packs, 0, newPacks, 0, packs.length);
+		newNames[index] = name;
+		newTitles[index] = title;
+		newPacks[index] = pack;
+		return new PackRegistry(newNames, newTitles, newPacks);
+	}
+
+	/* 
+	 * Returns a registry without lists, under which every list is read from its text file.
+	*/
+	public static PackRegistry empty() {
+		return new PackRegistry(new String[0], new String[0], new String[0]);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String name(int list) {
+		return names[list];
+	}
+
+	public String title(int list) {
+		return titles[list];
+	}
+
+	/* 
+	 * Returns the titles of every list, in the order of the manifest.
+	*/
+	public String[] titles() {
+		return titles.clone();
+	}
+
+	/* 
+	 * Returns the pack holding the named list, or null if the list is read from its text file
+	 * or is not in the manifest.
+	*/
+	public String pack(String name) {
+		Integer list = indexes.get(name);
+		return list == null ? null : packs[list.intValue()];
+	}
+
+	/* 
+	 * Returns the names of the lists held by a pack, in the order of the manifest.
+	*/
+	public String[] lists(String pack) {
+		ArrayList<String> lists = new ArrayList<String>();
+		for (int i = 0; i < names.length; i++) {
+			if (pack.equals(packs[i]))
+				lists.add(names[i]);
+		}
+		return lists.toArray(new String[lists.size()]);
+	}
+
+	/* 
+	 * Returns every pack named in the manifest, each once.
+	*/
+	public String[] packs() {
+		ArrayList<String> distinct = new ArrayList<String>();
+		for (String pack : packs) {
+			if (pack != null && !distinct.contains(pack))
+				distinct.add(pack);
+		}
+		return distinct.toArray(new String[distinct.size()]);
+	}
+}
@@ -0,0 +1,30 @@
+package com.bethuneci.spellingbee;
+
+import android.os.Bundle;
+import android.app.Activity;
+import android.widget.TextView;
+
+/* 
+ * Description: Report for the teacher of the mistakes made so far: the most missed words,
+ * which letters get mixed up and where in words mistakes happen. Shown straight from the
+ * running ErrorAnalytics counts, so it opens instantly however many answers there have been.
+*/
+
+public class ReportActivity extends Activity {
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		setContentView(R.layout.activity_report);
+	}
+
+	/* 
+	 * Rebuilds the report every time the screen is shown, so it includes answers given since.
+	*/
+	@Override
+	protected void onResume() {
+		super.onResume();
+		TextView reportTextView = (TextView) findViewById(R.id.reportTextView);
+		reportTextView.setText(WarmUp.start(this).errorAnalytics().report());
+	}
+}
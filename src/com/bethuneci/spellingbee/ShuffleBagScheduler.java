@@ -0,0 +1,93 @@
+package com.bethuneci.spellingbee;
+
+import java.util.Random;
+
+/* 
+ * Description: WordScheduler that asks every word of the list once, in random order, before
+ * any word is repeated. The bag is a permutation of indices shuffled one position at a time
+ * (an incremental Fisher-Yates shuffle), so each draw is O(1) and allocates nothing. A new
+ * bag never starts with the word that ended the previous one.
+*/
+
+public class ShuffleBagScheduler implements WordScheduler {
+
+	private final Random random;
+	private int[] bag = new int[0];
+	private int size;
+	//Next position to draw, and number of positions already shuffled into place
+	private int cursor;
+	private int shuffled;
+	private int last = -1;
+
+	public ShuffleBagScheduler() {
+		this(new Random());
+	}
+
+	/* 
+	 * Seeded scheduler, the same seed gives the same order every time.
+	*/
+	public ShuffleBagScheduler(long seed) {
+		this(new Random(seed));
+	}
+
+	public ShuffleBagScheduler(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public void reset(int size) {
+		if (bag.length < size)
+			bag = new int[size];
+		for (int i = 0; i < size; i++)
+			bag[i] = i;
+		this.size = size;
+		cursor = 0;
+		shuffled = 0;
+		last = -1;
+	}
+
+	@Override
+	public int next() {
+		if (size == 0)
+			throw new IllegalStateException("No words to schedule");
+		if (cursor == size) {
+			//Bag exhausted, reshuffle the same permutation lazily
+			cursor = 0;
+			shuffled = 0;
+		}
+		shuffleUpTo(cursor);
+		last = bag[cursor++];
+		return last;
+	}
+
+	@Override
+	public int peek(int ahead) {
+		int position = cursor + ahead;
+		if (ahead < 0 || position >= size)
+			return -1;
+		shuffleUpTo(position);
+		return bag[position];
+	}
+
+	@Override
+	public void recordAnswer(int index, int quality) {
+		//Order does not depend on answers
+	}
+
+	/* 
+	 * Fixes every position up to and including the given one. Picking the word for a position
+	 * ahead of time is still a uniform Fisher-Yates step, so peeking does not bias the order.
+	*/
+	private void shuffleUpTo(int position) {
+		while (shuffled <= position) {
+			int swap = shuffled + random.nextInt(size - shuffled);
+			//Don't open a new bag with the word the previous bag ended on
+			if (shuffled == 0 && size > 1 && bag[swap] == last)
+				swap = (swap + 1 + random.nextInt(size - 1)) % size;
+			int word = bag[swap];
+			bag[swap] = bag[shuffled];
+			bag[shuffled] = word;
+			shuffled++;
+		}
+	}
+}
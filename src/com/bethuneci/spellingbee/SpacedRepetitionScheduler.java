@@ -0,0 +1,277 @@
+package com.bethuneci.spellingbee;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+
+/* 
+ * Description: WordScheduler that asks words again on an SM-2 spaced repetition schedule.
+ * Every answered word has an ease factor, a repetition count, an interval and a due time.
+ * Answered words sit in an indexed binary min-heap ordered by due time, so scheduling an
+ * answer is O(log n). When no answered word is due, a word the student has not seen yet is
+ * introduced in random order. State is kept in primitive arrays indexed like the word list
+ * and can be saved and restored per word. Plain Java, time comes from an injected Clock.
+*/
+
+public class SpacedRepetitionScheduler implements WordScheduler {
+
+	private static final int STATE_MAGIC = 0x53425352;
+	private static final int STATE_VERSION = 1;
+	private static final float DEFAULT_EASE = 2.5f;
+	private static final float MINIMUM_EASE = 1.3f;
+	private static final long MINUTE = 60 * 1000L;
+	private static final long DAY = 24 * 60 * MINUTE;
+	//Intervals after a lapse, after the first and after the second correct answer
+	private static final long RELEARN_INTERVAL = MINUTE;
+	private static final long FIRST_INTERVAL = 10 * MINUTE;
+	private static final long SECOND_INTERVAL = DAY;
+
+	private final Clock clock;
+	private final Random random;
+	private int size;
+
+	//Per word state, indexed like the word list
+	private float[] ease = new float[0];
+	private int[] repetitions = new int[0];
+	private long[] interval = new long[0];
+	private long[] due = new long[0];
+
+	//Answered words ordered by due time, heapPosition is -1 for words never answered
+	private int[] heap = new int[0];
+	private int[] heapPosition = new int[0];
+	private int heapSize;
+
+	//Words never answered, the first unseenCount entries, drawn in random order
+	private int[] unseen = new int[0];
+	private int[] unseenPosition = new int[0];
+	private int unseenCount;
+	//New word chosen in advance so it can be peeked at, -1 if none
+	private int candidate = -1;
+	private int last = -1;
+
+	public SpacedRepetitionScheduler(Clock clock) {
+		this(clock, new Random());
+	}
+
+	public SpacedRepetitionScheduler(Clock clock, Random random) {
+		this.clock = clock;
+		this.random = random;
+	}
+
+	@Override
+	public void reset(int size) {
+		this.size = size;
+		ease = new float[size];
+		repetitions = new int[size];
+		interval = new long[size];
+		due = new long[size];
+		heap = new int[size];
+		heapPosition = new int[size];
+		unseen = new int[size];
+		unseenPosition = new int[size];
+		for (int i = 0; i < size; i++) {
+			ease[i] = DEFAULT_EASE;
+			heapPosition[i] = -1;
+			unseen[i] = i;
+			unseenPosition[i] = i;
+		}
+		heapSize = 0;
+		unseenCount = size;
+		candidate = -1;
+		last = -1;
+	}
+
+	/* 
+	 * Asks the most overdue word if one is due, otherwise a new word, otherwise the word that
+	 * falls due soonest. The word just asked is only repeated if it is the only choice.
+	*/
+	@Override
+	public int next() {
+		if (size == 0)
+			throw new IllegalStateException("No words to schedule");
+		last = choose();
+		if (last == candidate)
+			candidate = -1;
+		return last;
+	}
+
+	/* 
+	 * Only the very next word can be predicted, later ones depend on the answers given.
+	*/
+	@Override
+	public int peek(int ahead) {
+		if (ahead != 0 || size == 0)
+			return -1;
+		return choose();
+	}
+
+	/* 
+	 * Records how well a word was answered and reschedules it. O(log n).
+	*/
+	@Override
+	public void recordAnswer(int index, int quality) {
+		if (heapPosition[index] < 0)
+			removeUnseen(index);
+		if (quality < QUALITY_HARD) {
+			repetitions[index] = 0;
+			interval[index] = RELEARN_INTERVAL;
+		}
+		else {
+			repetitions[index]++;
+			if (repetitions[index] == 1)
+				interval[index] = FIRST_INTERVAL;
+			else if (repetitions[index] == 2)
+				interval[index] = SECOND_INTERVAL;
+			else
+				interval[index] = (long) (interval[index] * ease[index]);
+		}
+		int miss = 5 - quality;
+		ease[index] = Math.max(MINIMUM_EASE, ease[index] + 0.1f - miss * (0.08f + miss * 0.02f));
+		due[index] = clock.now() + interval[index];
+		if (heapPosition[index] < 0)
+			heapInsert(index);
+		else
+			heapUpdate(index);
+	}
+
+	/* 
+	 * Writes the state of every answered word, keyed by the word itself so the state can be
+	 * read back even if the list has been reordered or extended.
+	*/
+	public void save(DataOutput out, WordList words) throws IOException {
+		out.writeInt(STATE_MAGIC);
+		out.writeInt(STATE_VERSION);
+		out.writeInt(heapSize);
+		for (int i = 0; i < heapSize; i++) {
+			int index = heap[i];
+			out.writeUTF(words.get(index));
+			out.writeFloat(ease[index]);
+			out.writeInt(repetitions[index]);
+			out.writeLong(interval[index]);
+			out.writeLong(due[index]);
+		}
+	}
+
+	/* 
+	 * Restores state written by save() onto a list that has already been reset(). Words no
+	 * longer in the list are skipped.
+	*/
+	public void load(DataInput in, WordList words) throws IOException {
+		if (in.readInt() != STATE_MAGIC || in.readInt() != STATE_VERSION)
+			throw new IOException("Unrecognised spaced repetition state");
+		HashMap<String, Integer> indices = new HashMap<String, Integer>(words.size() * 2);
+		for (int i = 0; i < words.size(); i++)
+			indices.put(words.get(i), i);
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			Integer index = indices.get(in.readUTF());
+			float savedEase = in.readFloat();
+			int savedRepetitions = in.readInt();
+			long savedInterval = in.readLong();
+			long savedDue = in.readLong();
+			if (index == null || heapPosition[index] >= 0)
+				continue;
+			removeUnseen(index);
+			ease[index] = savedEase;
+			repetitions[index] = savedRepetitions;
+			interval[index] = savedInterval;
+			due[index] = savedDue;
+			heapInsert(index);
+		}
+	}
+
+	private int choose() {
+		long now = clock.now();
+		if (heapSize > 0 && due[heap[0]] <= now) {
+			if (heap[0] != last || (heapSize == 1 && unseenCount == 0))
+				return heap[0];
+			//The top word was just asked, try the next most overdue one
+			int other = earlierChild(0);
+			if (other >= 0 && due[heap[other]] <= now)
+				return heap[other];
+		}
+		if (unseenCount > 0) {
+			if (candidate < 0 || heapPosition[candidate] >= 0) {
+				int position = random.nextInt(unseenCount);
+				//A skipped new word is still unseen, don't draw it straight away again
+				if (unseen[position] == last && unseenCount > 1)
+					position = (position + 1 + random.nextInt(unseenCount - 1)) % unseenCount;
+				candidate = unseen[position];
+			}
+			if (candidate != last || heapSize == 0)
+				return candidate;
+		}
+		if (heap[0] != last || heapSize == 1)
+			return heap[0];
+		return heap[earlierChild(0)];
+	}
+
+	/* 
+	 * Index in the heap of the child of a node that falls due first, or -1 if it has none.
+	*/
+	private int earlierChild(int position) {
+		int left = position * 2 + 1;
+		int right = left + 1;
+		if (left >= heapSize)
+			return -1;
+		if (right < heapSize && due[heap[right]] < due[heap[left]])
+			return right;
+		return left;
+	}
+
+	/* 
+	 * Swaps the word out of the unseen part of the array. O(1).
+	*/
+	private void removeUnseen(int index) {
+		int position = unseenPosition[index];
+		if (position < 0)
+			return;
+		int moved = unseen[--unseenCount];
+		unseen[position] = moved;
+		unseenPosition[moved] = position;
+		unseenPosition[index] = -1;
+		if (candidate == index)
+			candidate = -1;
+	}
+
+	private void heapInsert(int index) {
+		heap[heapSize] = index;
+		heapPosition[index] = heapSize;
+		siftUp(heapSize++);
+	}
+
+	private void heapUpdate(int index) {
+		siftUp(heapPosition[index]);
+		siftDown(heapPosition[index]);
+	}
+
+	private void siftUp(int position) {
+		int index = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (due[heap[parent]] <= due[index])
+				break;
+			heap[position] = heap[parent];
+			heapPosition[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = index;
+		heapPosition[index] = position;
+	}
+
+	private void siftDown(int position) {
+		int index = heap[position];
+		while (true) {
+			int child = earlierChild(position);
+			if (child < 0 || due[heap[child]] >= due[index])
+				break;
+			heap[position] = heap[child];
+			heapPosition[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = index;
+		heapPosition[index] = position;
+	}
+}
@@ -0,0 +1,476 @@
+package com.bethuneci.spellingbee;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.TextToSpeech.OnInitListener;
+import android.speech.tts.TextToSpeech.OnUtteranceCompletedListener;
+import android.util.Log;
+
+/* 
+ * Description: Speaks words for the game. Upcoming words are synthesized to audio files in
+ * the background, one at a time and only while nothing is being spoken, into a size-bounded
+ * LRU cache on disk. A cached clip is played at once; on a miss the text is spoken live and
+ * synthesized for next time. Anything asked to be spoken before the engine has started is
+ * held and spoken once it is ready, instead of being dropped. Synthesis cut off by speech
+ * that interrupts the engine is queued again, and one the engine never finishes is given up
+ * after a while, so the queue cannot stall. Keeps hit and miss counts and
+ * the average synthesis time. All methods must be called on the main thread.
+*/
+
+public class SpeechPipeline implements OnInitListener, OnUtteranceCompletedListener, MediaPlayer.OnPreparedListener,
+		MediaPlayer.OnErrorListener {
+
+	private static final String CACHE_DIR = "tts";
+	private static final String SYNTHESIS_PREFIX = "synth:";
+	//Live speech is tagged with its start time while latencies are recorded
+	private static final String LIVE_PREFIX = "live:";
+	private static final float SPEECH_RATE = 0.8f;
+	//Far longer than any word takes, an utterance not done by then was dropped by the engine
+	private static final long SYNTHESIS_TIMEOUT_MILLIS = 15000;
+
+	private final TextToSpeech textToSpeech;
+	private final File cacheDir;
+	private final long maxCacheBytes;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final MediaPlayer player = new MediaPlayer();
+	//Text of the clip being prepared to play, null once it plays or when it is no longer wanted
+	private String preparing;
+	private long preparingStart;
+
+	//Cached clips by text, least recently played first, and their total size
+	private final LinkedHashMap<String, File> clips = new LinkedHashMap<String, File>(64, 0.75f, true);
+	private long cacheBytes;
+	//Texts waiting to be synthesized, and the one being synthesized now with its utterance id
+	private final LinkedList<String> synthesisQueue = new LinkedList<String>();
+	private String synthesizing;
+	private String synthesisUtterance;
+	private int synthesisCount;
+	private long synthesisStart;
+	private final Runnable synthesizeLater = new Runnable() {
+		@Override
+		public void run() {
+			synthesizeNext();
+		}
+	};
+	private final Runnable synthesisTimedOut = new Runnable() {
+		@Override
+		public void run() {
+			Log.e("Spelling Bee", "Text to speech never finished synthesizing: " + synthesizing);
+			clipFile(synthesizing).delete();
+			synthesizing = null;
+			synthesizeNext();
+		}
+	};
+
+	private boolean ready;
+	private String pendingText;
+	//Start of the wait for the first word to be spoken, 0 once it has been
+	private long firstWordStart;
+	private int hits;
+	private int misses;
+	private int synthesized;
+	private long synthesisMillis;
+
+	public SpeechPipeline(Context context, long maxCacheBytes) {
+		this.maxCacheBytes = maxCacheBytes;
+		cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+		cacheDir.mkdirs();
+		indexCache();
+		player.setAudioStreamType(AudioManager.STREAM_MUSIC);
+		player.setOnPreparedListener(this);
+		player.setOnErrorListener(this);
+		textToSpeech = new TextToSpeech(context, this);
+	}
+
+	@Override
+	public void onInit(int status) {
+		if (status != TextToSpeech.SUCCESS) {
+			Log.e("Spelling Bee", "Text to speech failed to start: " + status);
+			return;
+		}
+		textToSpeech.setSpeechRate(SPEECH_RATE);
+		textToSpeech.setOnUtteranceCompletedListener(this);
+		ready = true;
+		if (pendingText != null) {
+			speak(pendingText, TextToSpeech.QUEUE_FLUSH);
+			pendingText = null;
+		}
+		synthesizeNext();
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/* 
+	 * Measures from the given System.nanoTime() until the next word prompt starts being
+	 * spoken, whether from a clip or live once the engine is ready, as the first word
+	 * spoken startup stage.
+	*/
+	public void timeFirstWord(long startNanos) {
+		firstWordStart = startNanos;
+	}
+
+	/* 
+	 * Asks the user to spell a word, queued after anything already being said.
+	*/
+	public void speakWord(String word) {
+		say(wordPrompt(word), TextToSpeech.QUEUE_ADD);
+	}
+
+	/* 
+	 * Says a word on its own, interrupting anything being said.
+	*/
+	public void pronounce(String word) {
+		say(word, TextToSpeech.QUEUE_FLUSH);
+	}
+
+	/* 
+	 * Says a one-off message live, without caching it.
+	*/
+	public void announce(String text) {
+		if (ready)
+			speak(text, TextToSpeech.QUEUE_FLUSH);
+		else
+			pendingText = text;
+	}
+
+	/* 
+	 * Synthesizes the clips for a word that is coming up, if they are not cached yet.
+	*/
+	public void prefetch(String word) {
+		queueSynthesis(wordPrompt(word));
+		queueSynthesis(word);
+	}
+
+	public int hitCount() {
+		return hits;
+	}
+
+	public int missCount() {
+		return misses;
+	}
+
+	/* 
+	 * Average milliseconds it took to synthesize a clip, 0 if none has been synthesized yet.
+	*/
+	public long averageSynthesisMillis() {
+		return synthesized == 0 ? 0 : synthesisMillis / synthesized;
+	}
+
+	public void shutdown() {
+		mainHandler.removeCallbacks(synthesizeLater);
+		mainHandler.removeCallbacks(synthesisTimedOut);
+		player.release();
+		textToSpeech.shutdown();
+	}
+
+	/* 
+	 * Plays the cached clip if there is one and nothing else is being spoken, otherwise
+	 * speaks live and queues the text for synthesis.
+	*/
+	private void say(String text, int queueMode) {
+		if (!ready) {
+			pendingText = text;
+			return;
+		}
+		File clip = clips.get(text);
+		if (clip != null && !clip.exists()) {
+			//The system clears cache directories when storage runs low
+			recountCache();
+			clip = null;
+		}
+		boolean speaking = textToSpeech.isSpeaking() && queueMode == TextToSpeech.QUEUE_ADD;
+		if (clip != null && !speaking && play(text, clip, LatencyRecorder.APP.start()))
+			return;
+		misses++;
+		speak(text, queueMode);
+		queueSynthesis(text);
+	}
+
+	/* 
+	 * Starts preparing a clip off the main thread, it plays from onPrepared(). Returns false
+	 * if the clip cannot be opened.
+	*/
+	private boolean play(String text, File clip, long start) {
+		//A clip replaces whatever live speech is still running
+		if (textToSpeech.isSpeaking()) {
+			interruptSynthesis();
+			textToSpeech.stop();
+		}
+		try {
+			player.reset();
+			player.setDataSource(clip.getPath());
+		}
+		catch (IOException e) {
+			//Damaged clip, drop it and synthesize it again
+			removeClip(clip);
+			return false;
+		}
+		preparing = text;
+		preparingStart = start;
+		player.prepareAsync();
+		return true;
+	}
+
+	/* 
+	 * Called on the main thread once a clip is ready, plays it unless live speech has been
+	 * asked for since.
+	*/
+	@Override
+	public void onPrepared(MediaPlayer mediaPlayer) {
+		if (preparing == null)
+			return;
+		preparing = null;
+		player.start();
+		LatencyRecorder.APP.record(LatencyRecorder.STAGE_SPEECH_START, preparingStart);
+		firstWordStarted();
+		hits++;
+	}
+
+	/* 
+	 * Called on the main thread when a clip cannot be decoded or played. A clip that fails
+	 * to prepare is damaged: it is dropped, spoken live instead and synthesized again.
+	*/
+	@Override
+	public boolean onError(MediaPlayer mediaPlayer, int what, int extra) {
+		String text = preparing;
+		preparing = null;
+		player.reset();
+		if (text == null)
+			return true;
+		File clip = clips.get(text);
+		if (clip != null)
+			removeClip(clip);
+		misses++;
+		speak(text, TextToSpeech.QUEUE_FLUSH);
+		queueSynthesis(text);
+		return true;
+	}
+
+	private void speak(String text, int queueMode) {
+		if (player.isPlaying())
+			player.stop();
+		//Nor may a clip still being prepared start over the speech
+		preparing = null;
+		//There is no callback for the start of an utterance before API 15, so live speech
+		//is timed to its end
+		HashMap<String, String> params = null;
+		long start = LatencyRecorder.APP.start();
+		if (start != 0) {
+			params = new HashMap<String, String>();
+			params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, LIVE_PREFIX + start);
+		}
+		//Flushing the engine's queue also drops the synthesis in progress, without a callback
+		if (queueMode == TextToSpeech.QUEUE_FLUSH)
+			interruptSynthesis();
+		textToSpeech.speak(text, queueMode, params);
+		firstWordStarted();
+	}
+
+	private void firstWordStarted() {
+		if (firstWordStart == 0)
+			return;
+		LatencyRecorder.APP.recordStartup(LatencyRecorder.STAGE_FIRST_WORD_SPOKEN, System.nanoTime() - firstWordStart);
+		firstWordStart = 0;
+	}
+
+	private void queueSynthesis(String text) {
+		if (clips.containsKey(text) || text.equals(synthesizing) || synthesisQueue.contains(text))
+			return;
+		synthesisQueue.addLast(text);
+		synthesizeNext();
+	}
+
+	/* 
+	 * Starts synthesizing the next queued text unless one is in progress. Waits while the
+	 * engine is speaking, since synthesis shares the engine with live speech.
+	*/
+	private void synthesizeNext() {
+		if (!ready || synthesizing != null || synthesisQueue.isEmpty())
+			return;
+		if (textToSpeech.isSpeaking()) {
+			mainHandler.removeCallbacks(synthesizeLater);
+			mainHandler.postDelayed(synthesizeLater, 500);
+			return;
+		}
+		synthesizing = synthesisQueue.removeFirst();
+		synthesisStart = SystemClock.elapsedRealtime();
+		//Numbered, so a late callback for an interrupted attempt is not taken for a later one
+		synthesisUtterance = SYNTHESIS_PREFIX + ++synthesisCount;
+		HashMap<String, String> params = new HashMap<String, String>();
+		params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, synthesisUtterance);
+		if (textToSpeech.synthesizeToFile(synthesizing, params, clipFile(synthesizing).getPath()) != TextToSpeech.SUCCESS) {
+			synthesizing = null;
+			return;
+		}
+		mainHandler.postDelayed(synthesisTimedOut, SYNTHESIS_TIMEOUT_MILLIS);
+	}
+
+	/* 
+	 * Puts the text being synthesized back at the front of the queue before the engine is
+	 * stopped or flushed, and tries it again once the engine is quiet.
+	*/
+	private void interruptSynthesis() {
+		if (synthesizing == null)
+			return;
+		mainHandler.removeCallbacks(synthesisTimedOut);
+		clipFile(synthesizing).delete();
+		synthesisQueue.addFirst(synthesizing);
+		synthesizing = null;
+		mainHandler.removeCallbacks(synthesizeLater);
+		mainHandler.postDelayed(synthesizeLater, 500);
+	}
+
+	/* 
+	 * Called by the engine on its own thread, handled on the main thread.
+	*/
+	@Override
+	public void onUtteranceCompleted(final String utteranceId) {
+		if (utteranceId.startsWith(LIVE_PREFIX)) {
+			LatencyRecorder.APP.record(LatencyRecorder.STAGE_LIVE_SPEECH,
+					Long.parseLong(utteranceId.substring(LIVE_PREFIX.length())));
+			return;
+		}
+		mainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				if (synthesizing == null || !utteranceId.equals(synthesisUtterance))
+					return;
+				mainHandler.removeCallbacks(synthesisTimedOut);
+				File clip = clipFile(synthesizing);
+				if (clip.length() > 0) {
+					synthesized++;
+					synthesisMillis += SystemClock.elapsedRealtime() - synthesisStart;
+					addClip(synthesizing, clip);
+				}
+				synthesizing = null;
+				synthesizeNext();
+			}
+		});
+	}
+
+	private void addClip(String text, File clip) {
+		clips.put(text, clip);
+		cacheBytes += clip.length();
+		//Evict least recently played clips until the cache fits again
+		Iterator<Map.Entry<String, File>> oldest = clips.entrySet().iterator();
+		while (cacheBytes > maxCacheBytes && oldest.hasNext()) {
+			File evicted = oldest.next().getValue();
+			if (evicted.equals(clip))
+				break;
+			oldest.remove();
+			cacheBytes -= evicted.length();
+			evicted.delete();
+		}
+	}
+
+	private void removeClip(File clip) {
+		Iterator<File> files = clips.values().iterator();
+		while (files.hasNext()) {
+			if (files.next().equals(clip)) {
+				files.remove();
+				cacheBytes -= clip.length();
+				clip.delete();
+				return;
+			}
+		}
+	}
+
+	/* 
+	 * Drops clips whose files are gone and adds up the size of the rest again, so the cache
+	 * size stays right after the system has deleted files from the cache directory.
+	*/
+	private void recountCache() {
+		cacheBytes = 0;
+		Iterator<File> files = clips.values().iterator();
+		while (files.hasNext()) {
+			File file = files.next();
+			if (file.exists())
+				cacheBytes += file.length();
+			else
+				files.remove();
+		}
+	}
+
+	/* 
+	 * Rebuilds the in-memory index from clips left by earlier runs, oldest first.
+	*/
+	private void indexCache() {
+		File[] files = cacheDir.listFiles();
+		if (files == null)
+			return;
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return a.lastModified() < b.lastModified() ? -1 : a.lastModified() > b.lastModified() ? 1 : 0;
+			}
+		});
+		for (File file : files) {
+			String text = textOf(file);
+			if (text == null || file.length() == 0)
+				file.delete();
+			else
+				addClip(text, file);
+		}
+	}
+
+	private static String wordPrompt(String word) {
+		return "Spell the word " + word;
+	}
+
+	/* 
+	 * Clip file names encode the text, so the index can be rebuilt from the directory.
+	*/
+	private File clipFile(String text) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))
+				name.append(c);
+			else
+				name.append('_').append(Integer.toHexString(c)).append('_');
+		}
+		return new File(cacheDir, name.append(".wav").toString());
+	}
+
+	private static String textOf(File file) {
+		String name = file.getName();
+		if (!name.endsWith(".wav"))
+			return null;
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < name.length() - 4; i++) {
+			char c = name.charAt(i);
+			if (c != '_') {
+				text.append(c);
+				continue;
+			}
+			int end = name.indexOf('_', i + 1);
+			if (end < 0)
+				return null;
+			try {
+				text.append((char) Integer.parseInt(name.substring(i + 1, end), 16));
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+			i = end;
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,396 @@
+package com.bethuneci.spellingbee;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/* 
+ * Description: The rules of the spelling game without any Android widgets: choosing words,
+ * checking answers, hints, scoring and the timed challenge. MainActivity drives one engine
+ * and only shows its state. Time comes from an injected monotonic clock, word order from an
+ * injected WordScheduler, so the engine can be run and profiled on a desktop JVM. An engine
+ * is not thread safe, each player needs their own.
+*/
+
+public class SpellingGameEngine {
+
+	/* 
+	 * Told about every submitted answer, e.g. to log it.
+	*/
+	public interface Listener {
+		void onAnswer(AnswerEvent event);
+	}
+
+	private static final int POINTS_PER_LETTER = 10;
+	private static final int POINTS_PER_HINT = 10;
+	private static final int STATE_VERSION = 1;
+
+	private final Clock clock;
+	private final Clock wallClock;
+	private final AnswerChecker checker = new AnswerChecker();
+	private Listener listener;
+	private DifficultyWeights difficultyWeights = DifficultyWeights.empty();
+
+	private WordList wordList;
+	private WordScheduler wordScheduler;
+	private int currentIndex = -1;
+	private String currentWord;
+	//Hints of the current word, looked up when the first is asked for
+	private WordHints currentHints;
+	private int hintsUsed;
+	private int wrongAttempts;
+	//Kind of the last wrong answer, and the best partial credit any answer to this word earned
+	private int lastMistake = AnswerChecker.EXACT;
+	private int nearMissCredit;
+	private int wordsSpelled;
+	private long score;
+
+	//When the current word was shown, and when scoring time started counting
+	private long wordStartTime;
+	private long scoreStartTime;
+	private boolean timedMode;
+	private int timeLimit;
+	private long challengeStartTime;
+
+	/* 
+	 * The clock measures answer and challenge times and must not jump, the wall clock only
+	 * stamps recorded answers.
+	*/
+	public SpellingGameEngine(Clock clock, Clock wallClock) {
+		this.clock = clock;
+		this.wallClock = wallClock;
+	}
+
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/* 
+	 * Sets how much each word is worth relative to its length. Until then every word is
+	 * worth its length.
+	*/
+	public void setDifficultyWeights(DifficultyWeights weights) {
+		difficultyWeights = weights;
+	}
+
+	public DifficultyWeights getDifficultyWeights() {
+		return difficultyWeights;
+	}
+
+	/* 
+	 * Switches to another word list. No word is current until resetStats() or nextWord().
+	*/
+	public void setWordList(WordList words, WordScheduler scheduler) {
+		wordList = words;
+		wordScheduler = scheduler;
+		currentIndex = -1;
+		currentWord = null;
+		currentHints = null;
+	}
+
+	/* 
+	 * Moves on to a new word and returns it, or null if no list has been set. Every call
+	 * starts the answer time for the word, except during a challenge, where the time for a
+	 * word runs from the previous correct answer.
+	*/
+	public String nextWord() {
+		if (wordList == null || wordList.size() == 0)
+			return null;
+		currentIndex = wordScheduler.next();
+		currentWord = wordList.get(currentIndex);
+		currentHints = null;
+		hintsUsed = 0;
+		wrongAttempts = 0;
+		lastMistake = AnswerChecker.EXACT;
+		nearMissCredit = 0;
+		wordStartTime = clock.now();
+		if (!timedMode)
+			scoreStartTime = wordStartTime;
+		return currentWord;
+	}
+
+	/* 
+	 * Skips the current word and returns the new one. A word the user got wrong before
+	 * skipping it counts as failed, but a near miss still earns its partial credit, reported
+	 * as a MODE_SKIPPED event since the wrong answer itself was reported already.
+	*/
+	public String skipWord() {
+		if (wrongAttempts > 0)
+			wordScheduler.recordAnswer(currentIndex, WordScheduler.QUALITY_FAILED);
+		if (nearMissCredit > 0) {
+			long elapsed = clock.now() - scoreStartTime;
+			int points = points(currentWord, (int) (elapsed / 1000), hintsUsed, difficultyWeights.weight(currentWord))
+					* nearMissCredit / 100;
+			if (timedMode)
+				scoreStartTime = clock.now();
+			score += points;
+			notifyAnswer(false, points, elapsed, null, AnswerEvent.MODE_SKIPPED);
+		}
+		return nextWord();
+	}
+
+	/* 
+	 * Checks an answer against the current word, ignoring case and surrounding whitespace.
+	 * A correct answer is not scored until scoreCorrectAnswer(), so the caller can pause on
+	 * it first. A wrong answer is classified, see getLastMistake(), and a near miss is
+	 * remembered for partial credit should the word be skipped. Returns whether the answer
+	 * was correct.
+	*/
+	public boolean submitAnswer(String input) {
+		if (currentWord == null)
+			return false;
+		lastMistake = checker.evaluate(input, currentWord);
+		if (lastMistake == AnswerChecker.EXACT) {
+			wordScheduler.recordAnswer(currentIndex, answerQuality());
+			return true;
+		}
+		if (checker.credit() > nearMissCredit)
+			nearMissCredit = checker.credit();
+		wrongAttempts++;
+		notifyAnswer(false, 0, clock.now() - scoreStartTime, input.trim());
+		return false;
+	}
+
+	/* 
+	 * Scores the current word after a correct answer and counts it as spelled. Returns the
+	 * points earned.
+	*/
+	public int scoreCorrectAnswer() {
+		long now = clock.now();
+		long elapsed = now - scoreStartTime;
+		int seconds = (int) (elapsed / 1000);
+		if (timedMode)
+			scoreStartTime = now;
+		int points = points(currentWord, seconds, hintsUsed, difficultyWeights.weight(currentWord));
+		score += points;
+		wordsSpelled++;
+		notifyAnswer(true, points, elapsed, null);
+		return points;
+	}
+
+	/* 
+	 * Returns the next hint for the current word from the word list's precomputed hints, see
+	 * WordHints, then that there are no more hints. A list without hints gives the length and
+	 * then one letter at a time.
+	*/
+	public String nextHint() {
+		if (currentHints == null) {
+			currentHints = wordList.hints(currentIndex);
+			if (currentHints == null)
+				currentHints = WordHints.plain(currentWord);
+		}
+		String hint = currentHints.get(hintsUsed);
+		hintsUsed++;
+		return hint;
+	}
+
+	/* 
+	 * Clears score and words spelled, ends any challenge and picks a new word.
+	*/
+	public void resetStats() {
+		wordsSpelled = 0;
+		score = 0;
+		currentIndex = -1;
+		timedMode = false;
+		nextWord();
+	}
+
+	/* 
+	 * Starts a timed challenge of the given number of minutes with fresh statistics.
+	*/
+	public void startChallenge(int minutes) {
+		resetStats();
+		timeLimit = minutes;
+		timedMode = true;
+		challengeStartTime = clock.now();
+		scoreStartTime = challengeStartTime;
+	}
+
+	/* 
+	 * Ends the challenge if its time is up. Returns true only on the call that ends it.
+	*/
+	public boolean checkChallengeOver() {
+		if (timedMode && clock.now() >= getChallengeDeadline()) {
+			timedMode = false;
+			return true;
+		}
+		return false;
+	}
+
+	/* 
+	 * Writes the progress on the current list in a few dozen bytes: the current word and the
+	 * hints and attempts spent on it, the score and any challenge. Times are written as how
+	 * long ago they were, since the clock need not survive the process. The list and the
+	 * word scheduler are not written, their owner keeps them.
+	*/
+	public void saveState(DataOutputStream out) throws IOException {
+		long now = clock.now();
+		out.writeByte(STATE_VERSION);
+		out.writeInt(currentIndex);
+		out.writeShort(hintsUsed);
+		out.writeShort(wrongAttempts);
+		out.writeByte(lastMistake);
+		out.writeByte(nearMissCredit);
+		out.writeInt(wordsSpelled);
+		out.writeLong(score);
+		out.writeBoolean(timedMode);
+		out.writeByte(timeLimit);
+		out.writeLong(now - wordStartTime);
+		out.writeLong(now - scoreStartTime);
+		out.writeLong(now - challengeStartTime);
+	}
+
+	/* 
+	 * Reads progress written by saveState() back onto the list already set. If the saved word
+	 * is not in the list any more, e.g. the list file changed, a new word is picked instead.
+	 * Returns the current word.
+	*/
+	public String restoreState(DataInputStream in) throws IOException {
+		if (in.readByte() != STATE_VERSION)
+			throw new IOException("Unsupported game state version");
+		long now = clock.now();
+		int index = in.readInt();
+		int savedHints = in.readShort();
+		int savedAttempts = in.readShort();
+		int savedMistake = in.readByte();
+		int savedCredit = in.readByte();
+		wordsSpelled = in.readInt();
+		score = in.readLong();
+		timedMode = in.readBoolean();
+		timeLimit = in.readByte();
+		long wordAge = in.readLong();
+		long scoreAge = in.readLong();
+		challengeStartTime = now - in.readLong();
+		if (wordList == null || index < 0 || index >= wordList.size()) {
+			nextWord();
+			if (timedMode)
+				scoreStartTime = now - scoreAge;
+			return currentWord;
+		}
+		currentIndex = index;
+		currentWord = wordList.get(index);
+		currentHints = null;
+		hintsUsed = savedHints;
+		wrongAttempts = savedAttempts;
+		lastMistake = savedMistake;
+		nearMissCredit = savedCredit;
+		wordStartTime = now - wordAge;
+		scoreStartTime = now - scoreAge;
+		return currentWord;
+	}
+
+	/* 
+	 * Returns the index of the word that will be asked after the given number of further
+	 * words, or -1 if that is not known. Used to prefetch.
+	*/
+	public int peekIndex(int ahead) {
+		return wordScheduler == null ? -1 : wordScheduler.peek(ahead);
+	}
+
+	public WordList getWordList() {
+		return wordList;
+	}
+
+	public WordScheduler getWordScheduler() {
+		return wordScheduler;
+	}
+
+	public String getCurrentWord() {
+		return currentWord;
+	}
+
+	public int getCurrentIndex() {
+		return currentIndex;
+	}
+
+	public long getScore() {
+		return score;
+	}
+
+	public int getWordsSpelled() {
+		return wordsSpelled;
+	}
+
+	/* 
+	 * Kind of mistake in the last wrong answer to the current word, one of the AnswerChecker
+	 * results, or AnswerChecker.EXACT if there was none.
+	*/
+	public int getLastMistake() {
+		return lastMistake;
+	}
+
+	public int getHintsUsed() {
+		return hintsUsed;
+	}
+
+	public boolean isTimedMode() {
+		return timedMode;
+	}
+
+	public int getTimeLimit() {
+		return timeLimit;
+	}
+
+	public long getWordStartTime() {
+		return wordStartTime;
+	}
+
+	public long getChallengeStartTime() {
+		return challengeStartTime;
+	}
+
+	/* 
+	 * Clock time at which the current or last challenge ends.
+	*/
+	public long getChallengeDeadline() {
+		return challengeStartTime + timeLimit * 60 * 1000L;
+	}
+
+	/* 
+	 * Whether an answer spells the word, ignoring case and surrounding whitespace.
+	*/
+	public static boolean isCorrect(String input, String word) {
+		return input.trim().equalsIgnoreCase(word);
+	}
+
+	/* 
+	 * Points for spelling a word: ten per letter, less one per second taken and ten per
+	 * hint, never below zero.
+	*/
+	public static int points(String word, int seconds, int hints) {
+		return points(word, seconds, hints, DifficultyWeights.DEFAULT_WEIGHT);
+	}
+
+	/* 
+	 * Points for spelling a word of the given difficulty weight: the ten per letter are
+	 * scaled by the weight in percent before the time and hints are taken off.
+	*/
+	public static int points(String word, int seconds, int hints, int weight) {
+		int points = word.length() * POINTS_PER_LETTER * weight / 100 - (seconds + hints * POINTS_PER_HINT);
+		return points < 0 ? 0 : points;
+	}
+
+	/* 
+	 * Rates a correct answer for the word scheduler from the hints and wrong attempts it took.
+	*/
+	private int answerQuality() {
+		if (wrongAttempts > 0)
+			return WordScheduler.QUALITY_LAPSE;
+		else if (hintsUsed > 1)
+			return WordScheduler.QUALITY_HARD;
+		else if (hintsUsed == 1)
+			return WordScheduler.QUALITY_CORRECT;
+		return WordScheduler.QUALITY_PERFECT;
+	}
+
+	private void notifyAnswer(boolean correct, int points, long millis, String answer) {
+		notifyAnswer(correct, points, millis, answer, timedMode ? AnswerEvent.MODE_TIMED : AnswerEvent.MODE_REGULAR);
+	}
+
+	private void notifyAnswer(boolean correct, int points, long millis, String answer, int mode) {
+		if (listener == null)
+			return;
+		listener.onAnswer(new AnswerEvent(currentWord, correct, wallClock.now(), (int) millis, hintsUsed, mode, points,
+				answer));
+	}
+}
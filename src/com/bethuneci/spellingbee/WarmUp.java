@@ -0,0 +1,316 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/* 
+ * Description: Resources the game needs, loaded once per process and in parallel, starting
+ * while MenuActivity is still on screen. The default word list and the word pack are read
+ * on the loader thread, the image atlas and default image on the image decoder thread, the
+ * dictionary, difficulty weights and saved error analytics on a thread of their own, while
+ * the feedback sounds are decoded and text to speech binds to its engine. MainActivity
+ * then attaches to whatever is ready instead of building everything itself, and anything
+ * still loading carries on in the background. Everything is created with the application
+ * context, so it outlives any one activity. Must be started on the main thread.
+*/
+
+public class WarmUp {
+
+	/* 
+	 * Receives the dictionary and difficulty weights on the main thread, either of which may
+	 * be null if its asset could not be read.
+	*/
+	public interface Listener {
+		void onDictionaryLoaded(Dawg dictionary, DifficultyWeights weights);
+	}
+
+	/* 
+	 * Receives the result of a word list import on the main thread, null if it failed.
+	*/
+	public interface ImportListener {
+		void onImported(WordListImporter.Result result);
+	}
+
+	public static final String DEFAULT_LIST = "list.txt";
+	private static final long SPEECH_CACHE_BYTES = 8 * 1024 * 1024;
+
+	private static WarmUp instance;
+
+	private final AssetManager assets;
+	private final File filesDir;
+	private final AssetMapper assetMapper;
+	private final WordListLoader wordListLoader;
+	private final WordImageCache imageCache;
+	private final SpeechPipeline speech;
+	private final FeedbackSounds feedbackSounds;
+	private final AnswerLog answerLog;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+	//Only touched on the main thread
+	private boolean dictionaryLoaded;
+	private Dawg dictionary;
+	private DifficultyWeights weights;
+	private Listener listener;
+	//Counts this session's answers at once, those saved before are added in once read
+	private final ErrorAnalytics errorAnalytics = new ErrorAnalytics();
+	private boolean errorAnalyticsLoaded;
+
+	/* 
+	 * Starts warming up the first time it is called and returns the process' warm-up.
+	*/
+	public static WarmUp start(Context context) {
+		if (instance == null)
+			instance = new WarmUp(context.getApplicationContext());
+		return instance;
+	}
+
+	private WarmUp(Context context) {
+		assets = context.getAssets();
+		filesDir = context.getFilesDir();
+
+		//Read the pack manifest and resolve the default list from its pack, MainActivity's first load is then instant
+		assetMapper = new AssetMapper(context);
+		wordListLoader = new WordListLoader(new WordListLoader.Source() {
+			@Override
+			public InputStream open(String name) throws IOException {
+				return assets.open(name);
+			}
+		}, new WordPack.Opener() {
+			@Override
+			public ByteBuffer open(String pack) throws IOException {
+				//The pack of an imported list is written to the app's files, every other pack is an asset
+				if (pack.equals(WordListImporter.PACK))
+					return AssetMapper.mapFile(new File(filesDir, pack));
+				return assetMapper.map(pack);
+			}
+		});
+		if (new File(filesDir, WordListImporter.PACK).exists())
+			wordListLoader.addList(WordListImporter.LIST, WordListImporter.TITLE, WordListImporter.PACK);
+		wordListLoader.load(DEFAULT_LIST, new WordListLoader.Callback() {
+			@Override
+			public void onLoaded(String name, WordList words) {
+			}
+
+			@Override
+			public void onError(String name, IOException error) {
+				Log.e("Spelling Bee", "Error Loading File", error);
+			}
+		});
+
+		//Cache decoded images in up to an eighth of the heap, sized for the screen until the image view is laid out
+		int screenWidth = context.getResources().getDisplayMetrics().widthPixels;
+		imageCache = new WordImageCache(new ImageAtlas.Opener() {
+			@Override
+			public ByteBuffer open() throws IOException {
+				return assetMapper.map(ImageAtlas.ASSET);
+			}
+		}, (int) (Runtime.getRuntime().maxMemory() / 8), screenWidth, screenWidth);
+		imageCache.warmUp();
+
+		feedbackSounds = new FeedbackSounds(context);
+
+		//One writer for the answer log however many times the activity is created
+		answerLog = new AnswerLog(filesDir, new AnswerLog.ErrorListener() {
+			@Override
+			public void onError(IOException error) {
+				Log.e("Spelling Bee", "Error Saving File", error);
+			}
+		});
+
+		//Text to speech with up to 8 MB of synthesized clips
+		speech = new SpeechPipeline(context, SPEECH_CACHE_BYTES);
+
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				loadDictionary();
+				loadErrorAnalytics();
+			}
+		}, "Dictionary loader").start();
+	}
+
+	public WordListLoader wordListLoader() {
+		return wordListLoader;
+	}
+
+	public WordImageCache imageCache() {
+		return imageCache;
+	}
+
+	public SpeechPipeline speech() {
+		return speech;
+	}
+
+	public FeedbackSounds feedbackSounds() {
+		return feedbackSounds;
+	}
+
+	public AnswerLog answerLog() {
+		return answerLog;
+	}
+
+	public ErrorAnalytics errorAnalytics() {
+		return errorAnalytics;
+	}
+
+	/* 
+	 * Imports a word list in the background, see WordListImporter, replacing any imported
+	 * before, and offers it with the other lists. Closes the stream.
+	*/
+	public void importWordList(final InputStream in, final ImportListener importListener) {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				WordListImporter.Result result = null;
+				try {
+					ImageAtlas atlas = null;
+					try {
+						atlas = new ImageAtlas(assetMapper.map(ImageAtlas.ASSET));
+					}
+					catch (IOException e) {
+						Log.e("Spelling Bee", "Error Loading File", e);
+					}
+					result = new WordListImporter(atlas, WordListImporter.DEFAULT_MAX_WORDS).importWords(in,
+							new File(filesDir, WordListImporter.PACK), WordListImporter.LIST);
+					wordListLoader.addList(WordListImporter.LIST, WordListImporter.TITLE, WordListImporter.PACK);
+				}
+				catch (IOException e) {
+					Log.e("Spelling Bee", "Error Loading File", e);
+				}
+				final WordListImporter.Result finalResult = result;
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						importListener.onImported(finalResult);
+					}
+				});
+			}
+		}, "Word list importer").start();
+	}
+
+	/* 
+	 * Lets go of word packs not in use and decoded images, for when memory is low.
+	*/
+	public void trimMemory() {
+		wordListLoader.trimMemory();
+		imageCache.trimMemory();
+	}
+
+	/* 
+	 * Saves the error analytics, including those of earlier sessions. Does nothing until the
+	 * saved analytics have been read and added in, so they are never overwritten.
+	*/
+	public void saveErrorAnalytics() {
+		if (!errorAnalyticsLoaded)
+			return;
+		File file = new File(filesDir, ErrorAnalytics.FILE);
+		File temporary = new File(file.getPath() + ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+			try {
+				errorAnalytics.save(out);
+			}
+			finally {
+				out.close();
+			}
+			if (!temporary.renameTo(file))
+				throw new IOException("Could not move " + temporary + " to " + file);
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Saving File", e);
+		}
+	}
+
+	/* 
+	 * Sets the listener for the dictionary, or clears it with null. If the dictionary is
+	 * already loaded the listener is told straight away.
+	*/
+	public void setListener(Listener listener) {
+		this.listener = listener;
+		if (listener != null && dictionaryLoaded)
+			listener.onDictionaryLoaded(dictionary, weights);
+	}
+
+	/* 
+	 * Runs on the dictionary thread.
+	*/
+	private void loadDictionary() {
+		Dawg loadedDictionary = null;
+		DifficultyWeights loadedWeights = null;
+		try {
+			InputStream in = assets.open(Dawg.ASSET);
+			try {
+				loadedDictionary = Dawg.read(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Loading File", e);
+		}
+		try {
+			loadedWeights = DifficultyWeights.read(assets.open(DifficultyWeights.MANIFEST));
+		}
+		catch (IOException e) {
+			Log.e("Spelling Bee", "Error Loading File", e);
+		}
+		final Dawg finalDictionary = loadedDictionary;
+		final DifficultyWeights finalWeights = loadedWeights;
+		mainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				dictionary = finalDictionary;
+				weights = finalWeights;
+				dictionaryLoaded = true;
+				if (listener != null)
+					listener.onDictionaryLoaded(dictionary, weights);
+			}
+		});
+	}
+
+	/* 
+	 * Runs on the dictionary thread. A damaged file is dropped and counting starts over.
+	*/
+	private void loadErrorAnalytics() {
+		ErrorAnalytics saved = null;
+		File file = new File(filesDir, ErrorAnalytics.FILE);
+		if (file.exists()) {
+			try {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				try {
+					saved = ErrorAnalytics.load(in);
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch (IOException e) {
+				Log.e("Spelling Bee", "Error Loading File", e);
+			}
+		}
+		final ErrorAnalytics finalSaved = saved;
+		mainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				if (finalSaved != null)
+					errorAnalytics.add(finalSaved);
+				errorAnalyticsLoaded = true;
+			}
+		});
+	}
+}
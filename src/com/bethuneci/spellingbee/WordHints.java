@@ -0,0 +1,153 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: The hints for one word, in the order they are given: its length, how it
+ * splits into syllables, its first and last letters, its trickiest few letters, a word spelled
+ * like it, then its remaining letters one at a time. Everything that takes work to find is
+ * worked out beforehand by HintGenerator, normally when the word pack is compiled, so giving a
+ * hint only formats a short sentence. Hints a word has none of, e.g. a similar word, are left
+ * out of its sequence.
+*/
+
+public class WordHints {
+
+	public static final String NO_MORE_HINTS = "No more hints!";
+
+	//Kinds of hint before the letters
+	private static final int LENGTH = 0;
+	private static final int SYLLABLES = 1;
+	private static final int ENDS = 2;
+	private static final int TRICKY = 3;
+	private static final int SIMILAR = 4;
+
+	private final String word;
+	private final long syllableBreaks;
+	private final int trickyStart;
+	private final int trickyLength;
+	private final String similar;
+	private final int[] kinds;
+
+	/* 
+	 * Bit i of the syllable breaks is set if a syllable starts at letter i, so bit 0 is set
+	 * whenever the syllables are known at all. The tricky segment is ignored if its length is
+	 * 0, the similar word if it is null.
+	*/
+	public WordHints(String word, long syllableBreaks, int trickyStart, int trickyLength, String similar) {
+		this.word = word;
+		this.syllableBreaks = syllableBreaks;
+		this.trickyStart = trickyStart;
+		this.trickyLength = trickyStart + trickyLength <= word.length() ? trickyLength : 0;
+		this.similar = similar;
+		int[] order = new int[5];
+		int count = 0;
+		order[count++] = LENGTH;
+		if (syllableBreaks != 0)
+			order[count++] = SYLLABLES;
+		if (word.length() > 2)
+			order[count++] = ENDS;
+		if (this.trickyLength > 0)
+			order[count++] = TRICKY;
+		if (similar != null)
+			order[count++] = SIMILAR;
+		kinds = new int[count];
+		System.arraycopy(order, 0, kinds, 0, count);
+	}
+
+	/* 
+	 * Hints for a word nothing is known about: its length and then its letters.
+	*/
+	public static WordHints plain(String word) {
+		return new WordHints(word, 0, 0, 0, null);
+	}
+
+	/* 
+	 * Number of hints before there are no more.
+	*/
+	public int count() {
+		return kinds.length + word.length() - 2 * knownEnds();
+	}
+
+	/* 
+	 * Returns hint number n, counting from 0, or NO_MORE_HINTS once they have all been given.
+	*/
+	public String get(int n) {
+		if (n < kinds.length)
+			return describe(kinds[n]);
+		int letter = n - kinds.length + knownEnds();
+		if (letter >= word.length() - knownEnds())
+			return NO_MORE_HINTS;
+		return "The number " + (letter + 1) + " letter of the word is " + word.charAt(letter);
+	}
+
+	public String getWord() {
+		return word;
+	}
+
+	public long getSyllableBreaks() {
+		return syllableBreaks;
+	}
+
+	public int getTrickyStart() {
+		return trickyStart;
+	}
+
+	public int getTrickyLength() {
+		return trickyLength;
+	}
+
+	public String getSimilar() {
+		return similar;
+	}
+
+	private String describe(int kind) {
+		switch (kind) {
+		case LENGTH:
+			return "The length of the word is " + word.length();
+		case SYLLABLES:
+			return syllables();
+		case ENDS:
+			return "The word starts with " + word.charAt(0) + " and ends with " + word.charAt(word.length() - 1);
+		case TRICKY:
+			return "Watch out for \"" + word.substring(trickyStart, trickyStart + trickyLength) + "\", letters "
+					+ (trickyStart + 1) + " to " + (trickyStart + trickyLength);
+		default:
+			return (sharedEnding() >= 3 ? "It ends like " : "It is spelled a bit like ") + similar;
+		}
+	}
+
+	private int sharedEnding() {
+		int shared = 0;
+		while (shared < word.length() && shared < similar.length() && AnswerChecker.lower(word.charAt(word.length() - 1 - shared))
+				== AnswerChecker.lower(similar.charAt(similar.length() - 1 - shared)))
+			shared++;
+		return shared;
+	}
+
+	/* 
+	 * Lists the letters in each syllable, e.g. "3 syllables of 2, 3 and 4 letters".
+	*/
+	private String syllables() {
+		StringBuilder lengths = new StringBuilder();
+		int count = 0;
+		int start = 0;
+		for (int i = 1; i <= word.length(); i++) {
+			if (i == word.length() || (i < 64 && (syllableBreaks & (1L << i)) != 0)) {
+				if (count > 0)
+					lengths.append(", ");
+				lengths.append(i - start);
+				start = i;
+				count++;
+			}
+		}
+		if (count == 1)
+			return "The word has one syllable";
+		int last = lengths.lastIndexOf(", ");
+		lengths.replace(last, last + 2, " and ");
+		return "The word has " + count + " syllables of " + lengths + " letters";
+	}
+
+	//The letter hints skip the first and last letters when they were given together
+	private int knownEnds() {
+		return word.length() > 2 ? 1 : 0;
+	}
+}
@@ -0,0 +1,45 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Everything answered for one word, folded together from AnswerLog events.
+*/
+
+public class WordHistory {
+
+	public final String word;
+	public int attempts;
+	public int correct;
+	public int hints;
+	public long answerMillis;
+	public long points;
+	public long lastAnswered;
+
+	public WordHistory(String word) {
+		this.word = word;
+	}
+
+	public WordHistory(WordHistory other) {
+		this(other.word);
+		attempts = other.attempts;
+		correct = other.correct;
+		hints = other.hints;
+		answerMillis = other.answerMillis;
+		points = other.points;
+		lastAnswered = other.lastAnswered;
+	}
+
+	/* 
+	 * Adds one answer to the totals. Credit paid on a skip only adds its points.
+	*/
+	public void add(AnswerEvent event) {
+		points += event.points;
+		lastAnswered = Math.max(lastAnswered, event.time);
+		if (event.mode == AnswerEvent.MODE_SKIPPED)
+			return;
+		attempts++;
+		if (event.correct)
+			correct++;
+		hints += event.hints;
+		answerMillis += event.answerMillis;
+	}
+}
@@ -0,0 +1,258 @@
+package com.bethuneci.spellingbee;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+/* 
+ * Description: Size-bounded LRU cache of decoded word images. Images are decoded on a
+ * background thread, downsampled to the size they are shown at, and upcoming words can be
+ * prefetched so that showing the next word never waits on a decode. Images are read from the
+ * ImageAtlas, at the stored size closest to the size they are shown at. Words without an
+ * image share the one cached default image. Keeps hit, miss and eviction counters.
+*/
+
+public class WordImageCache {
+
+	/* 
+	 * Receives a decoded image on the main thread.
+	*/
+	public interface Listener {
+		void onImageLoaded(String word, Bitmap image);
+	}
+
+	private static final String NO_IMAGE = "no_image";
+
+	private final ImageAtlas.Opener atlasOpener;
+	private final LruCache<String, Bitmap> cache;
+	private final ConcurrentHashMap<String, Boolean> inFlight = new ConcurrentHashMap<String, Boolean>();
+	//Words found to have no image, shown with the default image cached under NO_IMAGE
+	private final ConcurrentHashMap<String, Boolean> missing = new ConcurrentHashMap<String, Boolean>();
+	private final ExecutorService decoder;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger evictions = new AtomicInteger();
+	private volatile int targetWidth;
+	private volatile int targetHeight;
+	//Only touched on the decoder thread
+	private ImageAtlas atlas;
+	private boolean atlasOpened;
+	private byte[] jpeg = new byte[32 * 1024];
+
+	/* 
+	 * Creates a cache holding at most maxBytes of decoded pixels. Images are decoded to
+	 * roughly the given size, which can be changed later with setTargetSize.
+	*/
+	public WordImageCache(ImageAtlas.Opener atlasOpener, int maxBytes, int targetWidth, int targetHeight) {
+		this.atlasOpener = atlasOpener;
+		this.targetWidth = targetWidth;
+		this.targetHeight = targetHeight;
+		cache = new LruCache<String, Bitmap>(maxBytes) {
+			@Override
+			protected int sizeOf(String word, Bitmap image) {
+				return image.getRowBytes() * image.getHeight();
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, String word, Bitmap oldImage, Bitmap newImage) {
+				if (evicted)
+					evictions.incrementAndGet();
+			}
+		};
+		decoder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "WordImageCache");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/* 
+	 * Opens the image atlas and decodes the default image in the background, so the first
+	 * word does not wait on either.
+	*/
+	public void warmUp() {
+		prefetch(NO_IMAGE);
+	}
+
+	/* 
+	 * Sets the size images are downsampled to, normally the size of the image view once it
+	 * has been laid out. Already cached images are kept.
+	*/
+	public void setTargetSize(int width, int height) {
+		if (width > 0 && height > 0) {
+			targetWidth = width;
+			targetHeight = height;
+		}
+	}
+
+	/* 
+	 * Delivers the image for a word. A cached image is delivered before this method
+	 * returns, otherwise it is decoded in the background and delivered on the main thread.
+	*/
+	public void load(final String word, final Listener listener) {
+		Bitmap image = cached(word);
+		if (image != null) {
+			hits.incrementAndGet();
+			listener.onImageLoaded(word, image);
+			return;
+		}
+		misses.incrementAndGet();
+		decoder.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Bitmap decoded = decodeAndCache(word);
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						listener.onImageLoaded(word, decoded);
+					}
+				});
+			}
+		});
+	}
+
+	/* 
+	 * Decodes the image for a word in the background if it is not cached or queued yet.
+	*/
+	public void prefetch(final String word) {
+		if (cached(word) != null || inFlight.putIfAbsent(word, Boolean.TRUE) != null)
+			return;
+		decoder.execute(new Runnable() {
+			@Override
+			public void run() {
+				decodeAndCache(word);
+				inFlight.remove(word);
+			}
+		});
+	}
+
+	/* 
+	 * Drops every decoded image, for when memory is low. Images are decoded again from the
+	 * atlas as they are needed.
+	*/
+	public void trimMemory() {
+		cache.evictAll();
+	}
+
+	public int hitCount() {
+		return hits.get();
+	}
+
+	public int missCount() {
+		return misses.get();
+	}
+
+	public int evictionCount() {
+		return evictions.get();
+	}
+
+	/* 
+	 * Returns the cached image for a word, the default image if the word is known to have
+	 * none, or null if it has not been decoded.
+	*/
+	private Bitmap cached(String word) {
+		return cache.get(missing.containsKey(word) ? NO_IMAGE : word);
+	}
+
+	/* 
+	 * Runs on the decoder thread. Falls back to the default image when the word has none.
+	 * A word without an image is remembered, so it is looked for once and its default image
+	 * is not cached, or counted against the cache size, once per word.
+	*/
+	private Bitmap decodeAndCache(String word) {
+		Bitmap image = cached(word);
+		if (image != null)
+			return image;
+		if (!missing.containsKey(word)) {
+			long start = LatencyRecorder.APP.start();
+			image = decode(word);
+			LatencyRecorder.APP.record(LatencyRecorder.STAGE_IMAGE_DECODE, start);
+			if (image != null) {
+				cache.put(word, image);
+				return image;
+			}
+			if (!word.equals(NO_IMAGE))
+				missing.put(word, Boolean.TRUE);
+			image = cache.get(NO_IMAGE);
+			if (image != null)
+				return image;
+		}
+		image = decode(NO_IMAGE);
+		if (image != null)
+			cache.put(NO_IMAGE, image);
+		return image;
+	}
+
+	/* 
+	 * Decodes the smallest stored size of an image that fills the target size, at a power of
+	 * two sample size should even that be too big. The JPEG bytes are copied out of the atlas
+	 * into a buffer reused for every image. Returns null if the word has no image or it cannot
+	 * be decoded.
+	*/
+	private Bitmap decode(String word) {
+		ImageAtlas imageAtlas = atlas();
+		int image = imageAtlas == null ? -1 : imageAtlas.find(word);
+		if (image < 0)
+			return null;
+		int size = imageAtlas.pickSize(image, targetWidth, targetHeight);
+		int length = imageAtlas.length(image, size);
+		if (jpeg.length < length)
+			jpeg = new byte[length];
+		imageAtlas.read(image, size, jpeg);
+		try {
+			BitmapFactory.Options options = new BitmapFactory.Options();
+			options.inSampleSize = sampleSize(imageAtlas.width(image, size), imageAtlas.height(image, size));
+			options.inPreferredConfig = Bitmap.Config.RGB_565;
+			return BitmapFactory.decodeByteArray(jpeg, 0, length, options);
+		}
+		catch (OutOfMemoryError e) {
+			Log.e("Spelling Bee", "Out of memory decoding " + word, e);
+			return null;
+		}
+	}
+
+	/* 
+	 * Opens the image atlas on first use. Without an atlas every word is treated as having no
+	 * image, and the default image is not shown either.
+	*/
+	private ImageAtlas atlas() {
+		if (!atlasOpened) {
+			atlasOpened = true;
+			try {
+				atlas = new ImageAtlas(atlasOpener.open());
+			}
+			catch (IOException e) {
+				Log.e("Spelling Bee", "Error Loading File", e);
+				atlas = null;
+			}
+		}
+		return atlas;
+	}
+
+	/* 
+	 * Largest power of two that keeps both dimensions at or above the target size.
+	*/
+	private int sampleSize(int width, int height) {
+		int sampleSize = 1;
+		if (width <= 0 || height <= 0 || targetWidth <= 0 || targetHeight <= 0)
+			return sampleSize;
+		while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight)
+			sampleSize *= 2;
+		return sampleSize;
+	}
+}
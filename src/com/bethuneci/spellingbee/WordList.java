@@ -0,0 +1,25 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Read-only, index addressable list of words. Implemented both by plain arrays
+ * loaded from text files and by lists resolved lazily out of a compiled word pack.
+*/
+
+public interface WordList {
+
+	/* 
+	 * Returns the number of words in the list.
+	*/
+	int size();
+
+	/* 
+	 * Returns the word at the given index, between 0 and size()-1.
+	*/
+	String get(int index);
+
+	/* 
+	 * Returns the hints of the word at the given index, or null if the list has none
+	 * worked out.
+	*/
+	WordHints hints(int index);
+}
@@ -0,0 +1,332 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/* 
+ * Description: Imports a teacher's word list, a text file of one word per line or a CSV file
+ * with the word in the first column, into a word pack of a single list. The file is read in
+ * one streaming pass. Each word is trimmed, its inner whitespace collapsed and its case
+ * lowered, the same words trim().equalsIgnoreCase treats as one answer, and is kept only
+ * the first time, found by a 64 bit fingerprint in an open addressing table of longs. Word bytes and
+ * hint records are written to temporary files as they come, so memory is bounded by the
+ * word limit and not by the size of the file. Words without an image, and words text to
+ * speech is likely to spell out instead of saying, are counted and a few of each reported.
+ * Plain Java, no Android dependencies.
+*/
+
+public class WordListImporter {
+
+	public static final String LIST = "imported";
+	public static final String TITLE = "Imported Words";
+	public static final String PACK = "imported.pack";
+	public static final int DEFAULT_MAX_WORDS = 200000;
+
+	private static final int MAX_WORD_LENGTH = 40;
+	private static final int MAX_EXAMPLES = 10;
+	private static final int INITIAL_CAPACITY = 4096;
+
+	/* 
+	 * What an import did. Examples are the first few words of each kind.
+	*/
+	public static class Result {
+		public long lines;
+		public int imported;
+		public long duplicates;
+		public long invalid;
+		//Words left out once the list was full
+		public long overLimit;
+		public int withoutImage;
+		public int hardToSay;
+		public long nanos;
+		public final ArrayList<String> invalidExamples = new ArrayList<String>();
+		public final ArrayList<String> withoutImageExamples = new ArrayList<String>();
+		public final ArrayList<String> hardToSayExamples = new ArrayList<String>();
+
+		/* 
+		 * Describes the import for the teacher, one fact per line.
+		*/
+		public String summary() {
+			StringBuilder summary = new StringBuilder();
+			summary.append("Imported ").append(imported).append(" words from ").append(lines).append(" lines\n");
+			summary.append(duplicates).append(" duplicates skipped\n");
+			append(summary, invalid, " lines skipped as not a word", invalidExamples);
+			if (overLimit > 0)
+				summary.append(overLimit).append(" words left out, the list is full\n");
+			append(summary, withoutImage, " words have no picture", withoutImageExamples);
+			append(summary, hardToSay, " words may be spelled out instead of said", hardToSayExamples);
+			return summary.toString();
+		}
+
+		private static void append(StringBuilder summary, long count, String what, ArrayList<String> examples) {
+			summary.append(count).append(what);
+			for (int i = 0; i < examples.size(); i++)
+				summary.append(i == 0 ? ": " : ", ").append(examples.get(i));
+			if (count > examples.size())
+				summary.append(", ...");
+			summary.append('\n');
+		}
+	}
+
+	private final ImageAtlas imageAtlas;
+	private final int maxWords;
+
+	//Fingerprints of the words imported so far, 0 for an empty slot
+	private long[] fingerprints;
+	private int[] wordEnds;
+	private final StringBuilder word = new StringBuilder(MAX_WORD_LENGTH);
+
+	/* 
+	 * The image atlas may be null, in which case no word is flagged for its image.
+	*/
+	public WordListImporter(ImageAtlas imageAtlas, int maxWords) {
+		this.imageAtlas = imageAtlas;
+		this.maxWords = maxWords;
+	}
+
+	/* 
+	 * Reads a word list and writes it as the named list of a pack file, replacing the file
+	 * only once it is complete. Closes the stream.
+	*/
+	public Result importWords(InputStream inputStream, File packFile, String listName) throws IOException {
+		long start = System.nanoTime();
+		fingerprints = new long[INITIAL_CAPACITY];
+		wordEnds = new int[INITIAL_CAPACITY];
+		Result result = new Result();
+		File wordFile = new File(packFile.getPath() + ".words.tmp");
+		File hintFile = new File(packFile.getPath() + ".hints.tmp");
+		File temporary = new File(packFile.getPath() + ".tmp");
+		try {
+			DataOutputStream words = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(wordFile)));
+			DataOutputStream hints = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(hintFile)));
+			try {
+				read(inputStream, words, hints, result);
+			}
+			finally {
+				words.close();
+				hints.close();
+			}
+			InputStream hintRecords = new BufferedInputStream(new FileInputStream(hintFile));
+			InputStream wordBytes = new BufferedInputStream(new FileInputStream(wordFile));
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary));
+			try {
+				WordPackWriter.writeList(out, listName, wordEnds, result.imported, hintRecords, wordBytes);
+			}
+			finally {
+				out.close();
+				hintRecords.close();
+				wordBytes.close();
+			}
+			if (!temporary.renameTo(packFile))
+				throw new IOException("Could not move " + temporary + " to " + packFile);
+		}
+		finally {
+			wordFile.delete();
+			hintFile.delete();
+			temporary.delete();
+			fingerprints = null;
+			wordEnds = null;
+		}
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	private void read(InputStream inputStream, DataOutputStream words, DataOutputStream hints, Result result)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"), 65536);
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				result.lines++;
+				if (!normalise(line, result.lines == 1)) {
+					reject(result, line);
+					continue;
+				}
+				if (word.length() == 0)
+					continue;
+				if (!insert(fingerprint(word), result))
+					continue;
+				String text = word.toString();
+				byte[] encoded = text.getBytes("UTF-8");
+				words.write(encoded);
+				if (result.imported == wordEnds.length)
+					wordEnds = grow(wordEnds);
+				wordEnds[result.imported] = words.size();
+				WordPackWriter.writeHintRecord(hints, HintGenerator.syllableBreaks(text), 0, 0, -1);
+				result.imported++;
+				flag(text, result);
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/* 
+	 * Takes the word from a line into the word buffer in lower case, from the first column of
+	 * a CSV line, without quotes, surrounding whitespace or repeated inner whitespace. In a
+	 * quoted field "" is a quote, which no word contains, and the field ends at the closing
+	 * quote, which must be followed by a separator or the end of the line. Returns false if
+	 * what is left is not a word; an empty buffer is a blank line, or the header of a CSV
+	 * file: a first line of more than one column, the first of them Word.
+	*/
+	private boolean normalise(String line, boolean first) {
+		word.setLength(0);
+		int length = line.length();
+		int i = 0;
+		//A byte order mark may start the file
+		if (first && length > 0 && line.charAt(0) == '\uFEFF')
+			i++;
+		while (i < length && Character.isWhitespace(line.charAt(i)))
+			i++;
+		boolean quoted = i < length && line.charAt(i) == '"';
+		if (quoted)
+			i++;
+		boolean space = false;
+		boolean closed = false;
+		for (; i < length; i++) {
+			char c = line.charAt(i);
+			if (quoted && c == '"') {
+				//A doubled quote is a quote in the field, and fails the letter check below
+				closed = i + 1 == length || line.charAt(i + 1) != '"';
+				if (closed)
+					break;
+				i++;
+			}
+			else if (!quoted && isSeparator(c))
+				break;
+			if (Character.isWhitespace(c)) {
+				space = word.length() > 0;
+				continue;
+			}
+			if (space)
+				word.append(' ');
+			space = false;
+			if (word.length() >= MAX_WORD_LENGTH || !(Character.isLetter(c) || c == '\'' || c == '-'))
+				return false;
+			word.append(AnswerChecker.lower(c));
+		}
+		if (quoted) {
+			//A field left open ran into a line break, anything after the closing quote is malformed
+			if (!closed)
+				return false;
+			i++;
+			while (i < length && line.charAt(i) == ' ')
+				i++;
+			if (i < length && !isSeparator(line.charAt(i)))
+				return false;
+		}
+		//Only a CSV header names its columns, a list of single words may well start with "word"
+		if (first && i < length && isSeparator(line.charAt(i)) && "word".contentEquals(word))
+			word.setLength(0);
+		return word.length() == 0 || Character.isLetter(word.charAt(0));
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ',' || c == ';' || c == '\t';
+	}
+
+	/* 
+	 * Adds a fingerprint to the table unless it is there already. Returns whether it was added.
+	*/
+	private boolean insert(long fingerprint, Result result) {
+		int mask = fingerprints.length - 1;
+		int slot = (int) fingerprint & mask;
+		while (fingerprints[slot] != 0) {
+			if (fingerprints[slot] == fingerprint) {
+				result.duplicates++;
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (result.imported == maxWords) {
+			result.overLimit++;
+			return false;
+		}
+		fingerprints[slot] = fingerprint;
+		//Keep the table at most half full
+		if ((result.imported + 1) * 2 > fingerprints.length)
+			rehash();
+		return true;
+	}
+
+	private void rehash() {
+		long[] old = fingerprints;
+		fingerprints = new long[old.length * 2];
+		int mask = fingerprints.length - 1;
+		for (long fingerprint : old) {
+			if (fingerprint == 0)
+				continue;
+			int slot = (int) fingerprint & mask;
+			while (fingerprints[slot] != 0)
+				slot = (slot + 1) & mask;
+			fingerprints[slot] = fingerprint;
+		}
+	}
+
+	/* 
+	 * FNV-1a over the characters of a lower case word, then mixed so the low bits used for the
+	 * slot are spread. Never 0. Two different words share a fingerprint with a
+	 * chance of about one in 10^19 per pair, which is taken.
+	*/
+	private static long fingerprint(CharSequence word) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < word.length(); i++) {
+			hash ^= word.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash == 0 ? 1 : hash;
+	}
+
+	private void flag(String text, Result result) {
+		if (imageAtlas != null && imageAtlas.find(text) < 0) {
+			if (result.withoutImage++ < MAX_EXAMPLES)
+				result.withoutImageExamples.add(text);
+		}
+		if (!isSayable(text)) {
+			if (result.hardToSay++ < MAX_EXAMPLES)
+				result.hardToSayExamples.add(text);
+		}
+	}
+
+	/* 
+	 * Whether an English voice is likely to say a word rather than spell it out: it needs a
+	 * vowel, and letters outside the English alphabet are often skipped or spelled.
+	*/
+	private static boolean isSayable(String text) {
+		boolean vowel = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = AnswerChecker.lower(text.charAt(i));
+			if (c >= 128)
+				return false;
+			if ("aeiouy".indexOf(c) >= 0)
+				vowel = true;
+		}
+		return vowel;
+	}
+
+	private void reject(Result result, String line) {
+		if (result.invalid++ < MAX_EXAMPLES)
+			result.invalidExamples.add(line.trim().length() > MAX_WORD_LENGTH ? line.trim().substring(0, MAX_WORD_LENGTH) + "..."
+					: line.trim());
+	}
+
+	private static int[] grow(int[] array) {
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
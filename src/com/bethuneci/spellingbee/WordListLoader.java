@@ -0,0 +1,235 @@
+package com.bethuneci.spellingbee;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* 
+ * Description: Loads word lists on a background executor. The PackRegistry manifest is read
+ * first and says which compiled word pack holds each list. A pack is opened the first time
+ * one of its lists is loaded and its lists are then resolved without reading any words; a
+ * few recently used packs are kept open, the rest are let go. Other lists are read from their
+ * text file in a single streaming pass. The most recently loaded list is published
+ * atomically, so the previous list stays playable until the new one is ready. Plain Java, no
+ * Android dependencies, so the class can be exercised on a desktop JVM.
+*/
+
+public class WordListLoader {
+
+	/* 
+	 * Opens a named word list. MainActivity backs this with the AssetManager.
+	*/
+	public interface Source {
+		InputStream open(String name) throws IOException;
+	}
+
+	/* 
+	 * Receives the result of a load. Called on the loader thread, never for a load that
+	 * was superseded by a newer call to load().
+	*/
+	public interface Callback {
+		void onLoaded(String name, WordList words);
+		void onError(String name, IOException error);
+	}
+
+	private static final String CHARSET = "UTF-8";
+	private static final int MAX_OPEN_PACKS = 4;
+
+	private final Source source;
+	private final WordPack.Opener packOpener;
+	private final Executor executor;
+	private final AtomicReference<WordList> current = new AtomicReference<WordList>();
+	private final AtomicInteger generation = new AtomicInteger();
+	//Set once the manifest has been read, for the menu
+	private volatile PackRegistry registry;
+	//Only touched on the executor thread: open packs, least recently used first, null for a
+	//pack that could not be opened, and the pack of the last list loaded
+	private final LinkedHashMap<String, WordPack> packs = new LinkedHashMap<String, WordPack>(8, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, WordPack> eldest) {
+			return size() > MAX_OPEN_PACKS;
+		}
+	};
+	private String lastPack;
+
+	public WordListLoader(Source source, WordPack.Opener packOpener) {
+		this(source, packOpener, newLoaderExecutor());
+	}
+
+	/* 
+	 * The pack opener may be null, in which case every list is read from its text file. The
+	 * manifest is opened through the source.
+	*/
+	public WordListLoader(Source source, WordPack.Opener packOpener, Executor executor) {
+		this.source = source;
+		this.packOpener = packOpener;
+		this.executor = executor;
+	}
+
+	/* 
+	 * Starts loading the named list in the background. A later call supersedes an earlier
+	 * one that has not finished yet; the stale result is dropped instead of published.
+	*/
+	public void load(final String name, final Callback callback) {
+		final int ticket = generation.incrementAndGet();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					WordList words = resolve(name);
+					if (ticket == generation.get()) {
+						current.set(words);
+						callback.onLoaded(name, words);
+					}
+				}
+				catch (IOException e) {
+					if (ticket == generation.get())
+						callback.onError(name, e);
+				}
+			}
+		});
+	}
+
+	/* 
+	 * Returns the last published list, or null if nothing has been loaded yet.
+	*/
+	public WordList current() {
+		return current.get();
+	}
+
+	/* 
+	 * Returns the lists on offer, or null until the manifest has been read along with the
+	 * first list loaded.
+	*/
+	public PackRegistry registry() {
+		return registry;
+	}
+
+	/* 
+	 * Offers another list, from a pack written after the manifest, such as an imported list.
+	 * A pack of the same name that is open is let go, so a rewritten pack is opened again.
+	*/
+	public void addList(final String name, final String title, final String pack) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (registry == null)
+					registry = readRegistry();
+				registry = registry.with(name, title, pack);
+				packs.remove(pack);
+			}
+		});
+	}
+
+	/* 
+	 * Lets go of every open pack but the one of the last list loaded, for when memory is low.
+	 * Lists already loaded keep their own pack.
+	*/
+	public void trimMemory() {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				WordPack last = packs.get(lastPack);
+				packs.clear();
+				if (last != null)
+					packs.put(lastPack, last);
+			}
+		});
+	}
+
+	/* 
+	 * Looks the list up in the pack the manifest names for it, opening the pack on first use,
+	 * and falls back to reading the text file when there is no pack, it cannot be opened or it
+	 * does not contain the list. Hints of a list read from text are worked out here, with
+	 * similar words from that list only.
+	*/
+	private WordList resolve(String name) throws IOException {
+		if (registry == null)
+			registry = readRegistry();
+		String packName = registry.pack(name);
+		WordPack pack = packName != null ? openPack(packName) : null;
+		WordList words = pack != null ? pack.list(name) : null;
+		if (words == null) {
+			String[] read = readWords(source.open(name));
+			words = new ArrayWordList(read, HintGenerator.forWords(read).hints(read));
+		}
+		return words;
+	}
+
+	private PackRegistry readRegistry() {
+		try {
+			return PackRegistry.read(source.open(PackRegistry.MANIFEST));
+		}
+		catch (IOException e) {
+			return PackRegistry.empty();
+		}
+	}
+
+	/* 
+	 * Returns an open pack, opening it if need be, or null if it cannot be opened. A pack that
+	 * failed to open is not tried again until it has been let go.
+	*/
+	private WordPack openPack(String name) {
+		lastPack = name;
+		if (packs.containsKey(name))
+			return packs.get(name);
+		WordPack pack = null;
+		if (packOpener != null) {
+			try {
+				pack = new WordPack(packOpener.open(name));
+			}
+			catch (IOException e) {
+				pack = null;
+			}
+		}
+		packs.put(name, pack);
+		return pack;
+	}
+
+	/* 
+	 * Reads every non-blank line of a stream in one pass and closes the stream. Lines are
+	 * trimmed, so stray whitespace and empty lines in the asset files never become words.
+	*/
+	public static String[] readWords(InputStream inputStream) throws IOException {
+		ArrayList<String> words = new ArrayList<String>();
+		BufferedReader textReader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+		try {
+			String line;
+			while ((line = textReader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0)
+					words.add(line);
+			}
+		}
+		finally {
+			textReader.close();
+		}
+		return words.toArray(new String[words.size()]);
+	}
+
+	/* 
+	 * Single low-priority daemon thread, so queued loads run in order and never keep the
+	 * process alive.
+	*/
+	private static ExecutorService newLoaderExecutor() {
+		return Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "WordListLoader");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,150 @@
+package com.bethuneci.spellingbee;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/* 
+ * Description: Reader for the compiled binary word pack produced by WordPackWriter. The pack
+ * is normally memory mapped, and a word is decoded only when it is asked for, so opening a
+ * pack costs a few header reads no matter how many words it holds.
+ * 
+ * Layout (big-endian):
+ *     int magic 'SBWP', int version, int list count
+ *     per list: short name length, UTF-8 name, int word count, int offset table position,
+ *         int hint table position
+ *     per list: int[word count + 1] absolute offsets of each word
+ *     per list: per word a 14 byte hint record, see WordHints: long syllable breaks,
+ *         byte tricky start, byte tricky length, int similar word as list << 24 | index or -1
+ *     UTF-8 word bytes
+*/
+
+public class WordPack {
+
+	public static final int MAGIC = 0x53425750;
+	public static final int VERSION = 2;
+	public static final int HINT_RECORD = 14;
+
+	/* 
+	 * Supplies the bytes of a named pack, typically by memory mapping a file.
+	*/
+	public interface Opener {
+		ByteBuffer open(String pack) throws IOException;
+	}
+
+	private final ByteBuffer buffer;
+	private final String[] names;
+	private final int[] counts;
+	private final int[] tables;
+	private final int[] hintTables;
+
+	public WordPack(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a word pack");
+		if (buffer.getInt(4) != VERSION)
+			throw new IOException("Unsupported word pack version " + buffer.getInt(4));
+		int listCount = buffer.getInt(8);
+		names = new String[listCount];
+		counts = new int[listCount];
+		tables = new int[listCount];
+		hintTables = new int[listCount];
+		int position = 12;
+		for (int i = 0; i < listCount; i++) {
+			int length = buffer.getShort(position) & 0xFFFF;
+			names[i] = decode(position + 2, length);
+			position += 2 + length;
+			counts[i] = buffer.getInt(position);
+			tables[i] = buffer.getInt(position + 4);
+			hintTables[i] = buffer.getInt(position + 8);
+			position += 12;
+		}
+	}
+
+	/* 
+	 * Returns the names of all lists in the pack, in the order they were written.
+	*/
+	public String[] listNames() {
+		return names.clone();
+	}
+
+	/* 
+	 * Returns the named list, or null if the pack does not contain it.
+	*/
+	public WordList list(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name))
+				return new PackedWordList(counts[i], tables[i], hintTables[i]);
+		}
+		return null;
+	}
+
+	/* 
+	 * Returns a word of any list, by the list's number and the word's index.
+	*/
+	private String word(int list, int index) {
+		int start = buffer.getInt(tables[list] + index * 4);
+		int end = buffer.getInt(tables[list] + index * 4 + 4);
+		return decode(start, end - start);
+	}
+
+	/* 
+	 * Decodes UTF-8 bytes with absolute reads, which leaves the shared buffer position alone
+	 * so lists can be read from any thread.
+	*/
+	private String decode(int offset, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(offset + i);
+		try {
+			return new String(bytes, 0, length, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/* 
+	 * WordList view over one list of the pack. Only the table positions are kept.
+	*/
+	private class PackedWordList implements WordList {
+		private final int count;
+		private final int table;
+		private final int hintTable;
+
+		PackedWordList(int count, int table, int hintTable) {
+			this.count = count;
+			this.table = table;
+			this.hintTable = hintTable;
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= count)
+				throw new IndexOutOfBoundsException("Index " + index + ", size " + count);
+			int start = buffer.getInt(table + index * 4);
+			int end = buffer.getInt(table + index * 4 + 4);
+			return decode(start, end - start);
+		}
+
+		/* 
+		 * Reads the word's hint record; the similar word is decoded from wherever it is.
+		*/
+		@Override
+		public WordHints hints(int index) {
+			String word = get(index);
+			int record = hintTable + index * HINT_RECORD;
+			int similar = buffer.getInt(record + 10);
+			int similarList = similar >>> 24;
+			int similarIndex = similar & 0xFFFFFF;
+			return new WordHints(word, buffer.getLong(record), buffer.get(record + 8) & 0xFF, buffer.get(record + 9) & 0xFF,
+					similar < 0 || similarList >= names.length || similarIndex >= counts[similarList] ? null
+							: word(similarList, similarIndex));
+		}
+	}
+}
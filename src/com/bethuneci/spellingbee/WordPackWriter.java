@@ -0,0 +1,169 @@
+package com.bethuneci.spellingbee;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/* 
+ * Description: Compiles word lists into the binary pack format read by WordPack. Used by the
+ * build-time pack compiler and by anything else that needs to produce packs.
+*/
+
+public class WordPackWriter {
+
+	private final ArrayList<String> names = new ArrayList<String>();
+	private final ArrayList<byte[][]> lists = new ArrayList<byte[][]>();
+	private final ArrayList<WordHints[]> hints = new ArrayList<WordHints[]>();
+	//First place each word was added, as list << 24 | index
+	private final HashMap<String, Integer> references = new HashMap<String, Integer>();
+
+	/* 
+	 * Adds a list without hints to the pack. Words are stored in the given order.
+	*/
+	public void addList(String name, String[] words) throws IOException {
+		addList(name, words, null);
+	}
+
+	/* 
+	 * Adds a list to the pack with the hints of each of its words, or null for none. A similar
+	 * word is stored as a reference to where it was first added, and left out if it is not
+	 * in any list of the pack.
+	*/
+	public void addList(String name, String[] words, WordHints[] wordHints) throws IOException {
+		if (wordHints != null && wordHints.length != words.length)
+			throw new IllegalArgumentException(words.length + " words but " + wordHints.length + " hints");
+		if (names.size() == 0x7F || words.length > 0xFFFFFF)
+			throw new IllegalArgumentException("Too many lists or words for " + name);
+		byte[][] encoded = new byte[words.length][];
+		for (int i = 0; i < words.length; i++) {
+			encoded[i] = words[i].getBytes("UTF-8");
+			if (!references.containsKey(words[i]))
+				references.put(words[i], Integer.valueOf(names.size() << 24 | i));
+		}
+		names.add(name);
+		lists.add(encoded);
+		hints.add(wordHints);
+	}
+
+	/* 
+	 * Writes the header, directory, offset tables, hint tables and word bytes. Does not close
+	 * the stream.
+	*/
+	public void writeTo(OutputStream outputStream) throws IOException {
+		//Encode names first, the directory size depends on them
+		byte[][] encodedNames = new byte[names.size()][];
+		int directorySize = 0;
+		for (int i = 0; i < names.size(); i++) {
+			encodedNames[i] = names.get(i).getBytes("UTF-8");
+			directorySize += 2 + encodedNames[i].length + 12;
+		}
+
+		//Offset tables follow the directory, then the hint tables, then the word bytes
+		int[] tablePositions = new int[lists.size()];
+		int[] hintPositions = new int[lists.size()];
+		int position = 12 + directorySize;
+		for (int i = 0; i < lists.size(); i++) {
+			tablePositions[i] = position;
+			position += (lists.get(i).length + 1) * 4;
+		}
+		for (int i = 0; i < lists.size(); i++) {
+			hintPositions[i] = position;
+			position += lists.get(i).length * WordPack.HINT_RECORD;
+		}
+		int dataPosition = position;
+
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(WordPack.MAGIC);
+		out.writeInt(WordPack.VERSION);
+		out.writeInt(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			out.writeShort(encodedNames[i].length);
+			out.write(encodedNames[i]);
+			out.writeInt(lists.get(i).length);
+			out.writeInt(tablePositions[i]);
+			out.writeInt(hintPositions[i]);
+		}
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		for (byte[][] words : lists) {
+			for (byte[] word : words) {
+				out.writeInt(dataPosition + data.size());
+				data.write(word);
+			}
+			out.writeInt(dataPosition + data.size());
+		}
+		for (int i = 0; i < lists.size(); i++) {
+			WordHints[] wordHints = hints.get(i);
+			for (int j = 0; j < lists.get(i).length; j++)
+				writeHints(out, wordHints == null ? null : wordHints[j]);
+		}
+		data.writeTo(out);
+		out.flush();
+	}
+
+	/* 
+	 * Writes a pack of one list whose word bytes and hint records have already been written
+	 * out, for lists too big to hold in memory: the UTF-8 bytes of every word one after the
+	 * other, and a hint record per word, see writeHintRecord(). The ends give where each
+	 * word's bytes end. Does not close any stream.
+	*/
+	public static void writeList(OutputStream outputStream, String name, int[] wordEnds, int count,
+			InputStream hintRecords, InputStream wordBytes) throws IOException {
+		byte[] encodedName = name.getBytes("UTF-8");
+		int tablePosition = 12 + 2 + encodedName.length + 12;
+		int hintPosition = tablePosition + (count + 1) * 4;
+		int dataPosition = hintPosition + count * WordPack.HINT_RECORD;
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(WordPack.MAGIC);
+		out.writeInt(WordPack.VERSION);
+		out.writeInt(1);
+		out.writeShort(encodedName.length);
+		out.write(encodedName);
+		out.writeInt(count);
+		out.writeInt(tablePosition);
+		out.writeInt(hintPosition);
+		out.writeInt(dataPosition);
+		for (int i = 0; i < count; i++)
+			out.writeInt(dataPosition + wordEnds[i]);
+		copy(hintRecords, out, (long) count * WordPack.HINT_RECORD);
+		copy(wordBytes, out, count == 0 ? 0 : wordEnds[count - 1]);
+		out.flush();
+	}
+
+	/* 
+	 * Writes one HINT_RECORD byte hint record. The similar word is list << 24 | index, or -1.
+	*/
+	public static void writeHintRecord(DataOutput out, long syllableBreaks, int trickyStart, int trickyLength,
+			int similar) throws IOException {
+		boolean trickyFits = trickyStart <= 0xFF && trickyLength <= 0xFF;
+		out.writeLong(syllableBreaks);
+		out.writeByte(trickyFits ? trickyStart : 0);
+		out.writeByte(trickyFits ? trickyLength : 0);
+		out.writeInt(similar);
+	}
+
+	private void writeHints(DataOutputStream out, WordHints wordHints) throws IOException {
+		if (wordHints == null) {
+			writeHintRecord(out, 0, 0, 0, -1);
+			return;
+		}
+		Integer similar = wordHints.getSimilar() == null ? null : references.get(wordHints.getSimilar());
+		writeHintRecord(out, wordHints.getSyllableBreaks(), wordHints.getTrickyStart(), wordHints.getTrickyLength(),
+				similar == null ? -1 : similar.intValue());
+	}
+
+	private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+		byte[] buffer = new byte[8192];
+		while (length > 0) {
+			int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+			if (read < 0)
+				throw new IOException(length + " bytes missing");
+			out.write(buffer, 0, read);
+			length -= read;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.bethuneci.spellingbee;
+
+/* 
+ * Description: Decides which word of the current list is asked next. Implementations work
+ * on indices into the list so they never touch the words themselves.
+*/
+
+public interface WordScheduler {
+
+	//Answer qualities passed to recordAnswer, on the SM-2 scale of 0 to 5
+	int QUALITY_PERFECT = 5;
+	int QUALITY_CORRECT = 4;
+	int QUALITY_HARD = 3;
+	int QUALITY_LAPSE = 2;
+	int QUALITY_FAILED = 0;
+
+	/* 
+	 * Starts scheduling over a list with the given number of words.
+	*/
+	void reset(int size);
+
+	/* 
+	 * Returns the index of the next word to ask.
+	*/
+	int next();
+
+	/* 
+	 * Returns the index that will be returned after the given number of further calls to
+	 * next() (0 means the very next one), or -1 if that is not known yet. Used to prefetch.
+	*/
+	int peek(int ahead);
+
+	/* 
+	 * Tells the scheduler how well the word at the given index was answered. Schedulers
+	 * that do not adapt to answers ignore it.
+	*/
+	void recordAnswer(int index, int quality);
+}
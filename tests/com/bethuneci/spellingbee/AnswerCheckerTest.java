@@ -0,0 +1,107 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for AnswerChecker: distances, how slips are classified and the
+ * partial credit they earn.
+*/
+
+public class AnswerCheckerTest {
+
+	private final AnswerChecker checker = new AnswerChecker();
+
+	@Test
+	public void caseAndSurroundingWhitespaceAreIgnored() {
+		assertEquals(AnswerChecker.EXACT, checker.evaluate("  Necessary\t", "necessary"));
+		assertEquals(0, checker.distance());
+		assertEquals(100, checker.credit());
+	}
+
+	@Test
+	public void singleSlipsAreClassified() {
+		assertEquals(AnswerChecker.TRANSPOSITION, checker.evaluate("recieve", "receive"));
+		assertEquals(AnswerChecker.DOUBLED_LETTER, checker.evaluate("neccessary", "necessary"));
+		assertEquals(AnswerChecker.DOUBLED_LETTER, checker.evaluate("necesary", "necessary"));
+		assertEquals(AnswerChecker.OMISSION, checker.evaluate("enviroment", "environment"));
+		assertEquals(AnswerChecker.INSERTION, checker.evaluate("arguement", "argument"));
+		assertEquals(AnswerChecker.VOWEL_SWAP, checker.evaluate("seperate", "separate"));
+		assertEquals(AnswerChecker.SUBSTITUTION, checker.evaluate("rhythn", "rhythm"));
+		assertEquals(AnswerChecker.OTHER, checker.evaluate("banana", "apple"));
+	}
+
+	@Test
+	public void distanceMatchesLevenshtein() {
+		checker.evaluate("kitten", "sitting");
+		assertEquals(3, checker.distance());
+		checker.evaluate("", "word");
+		assertEquals(4, checker.distance());
+		checker.evaluate("caf\u00c9", "caf\u00e9");
+		assertEquals(0, checker.distance());
+	}
+
+	@Test
+	public void wordsLongerThanOneColumnAreMeasured() {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 70; i++)
+			word.append((char) ('a' + i % 26));
+		String answer = word.substring(0, 30) + word.substring(31) + "z";
+		checker.evaluate(answer, word.toString());
+		assertEquals(2, checker.distance());
+	}
+
+	@Test
+	public void oneSlipEarnsNearMissCredit() {
+		checker.evaluate("recieve", "receive");
+		assertEquals(50, checker.credit());
+		checker.evaluate("cst", "cat");
+		assertEquals(50, checker.credit());
+	}
+
+	@Test
+	public void creditForFurtherSlipsScalesWithWordLength() {
+		//Two slips: none in a short word, some in a longer one, more in a longer one still
+		checker.evaluate("hause", "horse");
+		assertEquals(0, checker.credit());
+		checker.evaluate("garbon", "garden");
+		assertEquals(25, checker.credit());
+		checker.evaluate("beutiful", "beautiful");
+		assertEquals(50, checker.credit());
+		checker.evaluate("baeutifal", "beautiful");
+		assertTrue(checker.credit() > 0 && checker.credit() < 50);
+		checker.evaluate("buttifle", "beautiful");
+		assertEquals(0, checker.credit());
+	}
+
+	@Test
+	public void shortWordsEarnNoCredit() {
+		checker.evaluate("an", "at");
+		assertEquals(0, checker.credit());
+		checker.evaluate("", "a");
+		assertEquals(0, checker.credit());
+		checker.evaluate("aa", "a");
+		assertEquals(0, checker.credit());
+	}
+
+	@Test
+	public void emptyAnswerEarnsNoCredit() {
+		checker.evaluate("", "cat");
+		assertEquals(0, checker.credit());
+		checker.evaluate("   ", "xyz");
+		assertEquals(0, checker.credit());
+	}
+
+	@Test
+	public void prefixesOfTheWordAreRecognised() {
+		assertTrue(AnswerChecker.isPrefix("", "word"));
+		assertTrue(AnswerChecker.isPrefix(" Wo", "word"));
+		assertTrue(AnswerChecker.isPrefix("word  ", "word"));
+		assertFalse(AnswerChecker.isPrefix("wa", "word"));
+		assertFalse(AnswerChecker.isPrefix("wor d", "word"));
+		assertFalse(AnswerChecker.isPrefix("words", "word"));
+	}
+}
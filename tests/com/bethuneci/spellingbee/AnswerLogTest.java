@@ -0,0 +1,97 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for AnswerLog, in a temporary directory. A new log on the same
+ * directory stands in for the app starting again.
+*/
+
+public class AnswerLogTest {
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("answers", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	@Test
+	public void historyTotalsEveryAnswer() throws Exception {
+		AnswerLog log = new AnswerLog(directory);
+		log.record(new AnswerEvent("apple", false, 10, 4000, 1, AnswerEvent.MODE_REGULAR, 0));
+		log.record(new AnswerEvent("apple", true, 20, 3000, 1, AnswerEvent.MODE_REGULAR, 40));
+		log.record(new AnswerEvent("pear", true, 30, 2000, 0, AnswerEvent.MODE_TIMED, 38));
+		HashMap<String, WordHistory> history = log.history().get();
+		assertEquals(2, history.get("apple").attempts);
+		assertEquals(1, history.get("apple").correct);
+		assertEquals(2, history.get("apple").hints);
+		assertEquals(7000, history.get("apple").answerMillis);
+		assertEquals(20, history.get("apple").lastAnswered);
+		assertEquals(38, history.get("pear").points);
+	}
+
+	@Test
+	public void answersSurviveARestart() throws Exception {
+		AnswerLog log = new AnswerLog(directory);
+		log.record(new AnswerEvent("apple", true, 10, 1000, 0, AnswerEvent.MODE_REGULAR, 50));
+		log.history().get();
+		assertEquals(1, new AnswerLog(directory).history().get().get("apple").correct);
+	}
+
+	@Test
+	public void tornRecordIsCutOffAndLaterAnswersKept() throws Exception {
+		AnswerLog log = new AnswerLog(directory);
+		log.record(new AnswerEvent("apple", true, 10, 1000, 0, AnswerEvent.MODE_REGULAR, 50));
+		log.history().get();
+		//A batch cut short by a crash
+		RandomAccessFile file = new RandomAccessFile(new File(directory, "answers.log"), "rw");
+		try {
+			file.seek(file.length());
+			file.write(new byte[] {0, 40, 'p', 'e'});
+		}
+		finally {
+			file.close();
+		}
+		AnswerLog restarted = new AnswerLog(directory);
+		restarted.record(new AnswerEvent("pear", true, 20, 1000, 0, AnswerEvent.MODE_REGULAR, 40));
+		restarted.history().get();
+		HashMap<String, WordHistory> history = new AnswerLog(directory).history().get();
+		assertEquals(1, history.get("apple").attempts);
+		assertEquals(1, history.get("pear").attempts);
+	}
+
+	@Test
+	public void compactionKeepsTheTotals() throws Exception {
+		AnswerLog log = new AnswerLog(directory);
+		//Enough records to pass the compaction threshold
+		for (int i = 0; i < 12000; i++)
+			log.record(new AnswerEvent("word" + i % 10, i % 3 == 0, i, 1000, 0, AnswerEvent.MODE_REGULAR, 1));
+		HashMap<String, WordHistory> history = log.history().get();
+		assertTrue(new File(directory, "answers.agg").exists());
+		assertFalse(new File(directory, "answers.log").length() > 256 * 1024);
+		assertEquals(1200, history.get("word0").attempts);
+		assertEquals(400, history.get("word0").correct);
+		assertEquals(1200, new AnswerLog(directory).history().get().get("word0").attempts);
+	}
+}
@@ -0,0 +1,89 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for ClassroomServer over loopback sockets.
+*/
+
+public class ClassroomServerTest {
+
+	private ClassroomServer server;
+	private int port;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new ClassroomServer(new ClassroomRoom(Clock.SYSTEM, DifficultyWeights.empty()), 0);
+		server.start();
+		port = server.awaitPort();
+		assertTrue(port > 0);
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	private static Socket join(int port, String name, int receiveBuffer) throws Exception {
+		Socket socket = new Socket();
+		if (receiveBuffer > 0)
+			socket.setReceiveBufferSize(receiveBuffer);
+		socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+		socket.setSoTimeout(5000);
+		OutputStream out = socket.getOutputStream();
+		out.write(("JOIN " + name + "\n").getBytes("UTF-8"));
+		out.flush();
+		return socket;
+	}
+
+	@Test
+	public void joinIsWelcomed() throws Exception {
+		Socket socket = join(port, "Ada", 0);
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			assertTrue(in.readLine().startsWith("WELCOME "));
+			server.startRound("rhythm");
+			assertEquals("WORD 1 6", in.readLine());
+		}
+		finally {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void clientThatStopsReadingIsDropped() throws Exception {
+		StringBuilder name = new StringBuilder();
+		while (name.length() < 400)
+			name.append("Stalled");
+		Socket socket = join(port, name.toString(), 4096);
+		try {
+			long deadline = System.currentTimeMillis() + 20000;
+			while (server.getRoom().playerCount() == 0 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertEquals(1, server.getRoom().playerCount());
+			//Standings of some 400 bytes each, never read
+			for (int i = 0; i < 20000 && server.getRoom().playerCount() > 0; i++) {
+				server.endChallenge();
+				if (i % 100 == 0)
+					Thread.sleep(5);
+			}
+			while (server.getRoom().playerCount() > 0 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertEquals(0, server.getRoom().playerCount());
+		}
+		finally {
+			socket.close();
+		}
+	}
+}
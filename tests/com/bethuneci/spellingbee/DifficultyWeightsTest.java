@@ -0,0 +1,49 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for DifficultyWeights.
+*/
+
+public class DifficultyWeightsTest {
+
+	private static DifficultyWeights read(String text) throws Exception {
+		return DifficultyWeights.read(new ByteArrayInputStream(text.getBytes("UTF-8")));
+	}
+
+	@Test
+	public void weightIgnoresCase() throws Exception {
+		DifficultyWeights weights = read("Rhythm\t140\nquiz\t120\n");
+		assertEquals(140, weights.weight("rhythm"));
+		assertEquals(120, weights.weight("QUIZ"));
+		assertEquals(DifficultyWeights.DEFAULT_WEIGHT, weights.weight("apple"));
+	}
+
+	@Test
+	public void weightIsTheSameInATurkishLocale() throws Exception {
+		Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			DifficultyWeights weights = read("Icicle\t130\n");
+			assertEquals(130, weights.weight("icicle"));
+			assertEquals(130, weights.weight("ICICLE"));
+		}
+		finally {
+			Locale.setDefault(locale);
+		}
+	}
+
+	@Test
+	public void lowerCaseWordIsNotCopied() {
+		String word = "caf\u00e9";
+		assertSame(word, DifficultyWeights.lower(word));
+		assertEquals("caf\u00e9", DifficultyWeights.lower("CAF\u00c9"));
+	}
+}
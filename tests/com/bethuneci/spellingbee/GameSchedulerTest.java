@@ -0,0 +1,116 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for GameScheduler, on a clock and waker the test moves by hand.
+*/
+
+public class GameSchedulerTest {
+
+	private long now = 1000;
+	//Deadline of the last wake-up asked for, -1 while asleep
+	private long wake = -1;
+	private final StringBuilder ran = new StringBuilder();
+
+	private final GameScheduler scheduler = new GameScheduler(new Clock() {
+		@Override
+		public long now() {
+			return now;
+		}
+	}, new GameScheduler.Waker() {
+		@Override
+		public void wakeAt(long deadline) {
+			wake = deadline;
+		}
+
+		@Override
+		public void sleep() {
+			wake = -1;
+		}
+	}, 3);
+
+	@Test
+	public void commandsRunInDeadlineOrderOnceDue() {
+		scheduler.schedule(0, command("a"), 300);
+		scheduler.schedule(1, command("b"), 100);
+		assertEquals(1100, wake);
+		now = 1100;
+		scheduler.runDue();
+		assertEquals("b", ran.toString());
+		assertEquals(1300, wake);
+		//A wake-up is used up once it fires, and none is asked for with nothing left
+		wake = -1;
+		now = 2000;
+		scheduler.runDue();
+		assertEquals("ba", ran.toString());
+		assertEquals(-1, wake);
+	}
+
+	@Test
+	public void earlyWakeUpRunsNothingAndAsksAgain() {
+		scheduler.schedule(0, command("a"), 500);
+		now = 1400;
+		scheduler.runDue();
+		assertEquals("", ran.toString());
+		assertEquals(1500, wake);
+		assertEquals(100, scheduler.remaining(0));
+	}
+
+	@Test
+	public void reschedulingAKeyReplacesItsCommand() {
+		scheduler.schedule(0, command("a"), 100);
+		scheduler.schedule(0, command("b"), 200);
+		now = 5000;
+		scheduler.runDue();
+		assertEquals("b", ran.toString());
+	}
+
+	@Test
+	public void cancelledCommandNeverRuns() {
+		scheduler.schedule(2, command("a"), 100);
+		scheduler.cancel(2);
+		assertFalse(scheduler.isPending(2));
+		assertEquals(-1, scheduler.remaining(2));
+		assertEquals(-1, wake);
+		now = 5000;
+		scheduler.runDue();
+		assertEquals("", ran.toString());
+	}
+
+	@Test
+	public void commandCanScheduleAnother() {
+		scheduler.schedule(0, new Runnable() {
+			@Override
+			public void run() {
+				ran.append("a");
+				scheduler.schedule(1, command("b"), 0);
+			}
+		}, 100);
+		now = 1100;
+		scheduler.runDue();
+		assertEquals("ab", ran.toString());
+		assertFalse(scheduler.isPending(1));
+	}
+
+	@Test
+	public void remainingIsZeroOnceDue() {
+		scheduler.schedule(1, command("a"), 100);
+		now = 1500;
+		assertTrue(scheduler.isPending(1));
+		assertEquals(0, scheduler.remaining(1));
+	}
+
+	private Runnable command(final String name) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				ran.append(name);
+			}
+		};
+	}
+}
@@ -0,0 +1,158 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+/* 
+ * Description: Tests how words are resolved to images through ImageAtlas, on a small atlas
+ * built here and on the atlas shipped in assets, read from the project root.
+*/
+
+public class ImageAtlasTest {
+
+	private static final int[] SIZES = {160, 480};
+
+	@Test
+	public void wordsResolveToTheirImage() throws IOException {
+		ImageAtlas atlas = new ImageAtlas(atlas("apple", "banana"));
+		assertEquals(2, atlas.imageCount());
+		assertEquals(0, atlas.find("apple"));
+		assertEquals(1, atlas.find("banana"));
+		assertArrayEquals(SIZES, atlas.sizes());
+	}
+
+	@Test
+	public void wordWithoutImageIsNotFound() throws IOException {
+		ImageAtlas atlas = new ImageAtlas(atlas("apple"));
+		assertEquals(-1, atlas.find("cherry"));
+		//Lookups are exact, the game asks with the word as listed
+		assertEquals(-1, atlas.find("Apple"));
+		assertEquals(-1, atlas.find(""));
+	}
+
+	@Test
+	public void longAndNonAsciiWordsResolve() throws IOException {
+		StringBuilder longWord = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			longWord.append('x');
+		ImageAtlas atlas = new ImageAtlas(atlas("caf\u00e9", longWord.toString(), "dog"));
+		assertEquals(0, atlas.find("caf\u00e9"));
+		assertEquals(1, atlas.find(longWord.toString()));
+		assertEquals(2, atlas.find("dog"));
+	}
+
+	@Test
+	public void smallestSizeFillingTheViewIsPicked() throws IOException {
+		ImageAtlas atlas = new ImageAtlas(atlas("apple"));
+		assertEquals(0, atlas.pickSize(0, 100, 100));
+		assertEquals(0, atlas.pickSize(0, 160, 400));
+		assertEquals(1, atlas.pickSize(0, 300, 300));
+		//Nothing fills a view bigger than the largest size, which is the best there is
+		assertEquals(1, atlas.pickSize(0, 2000, 2000));
+		assertEquals(480, atlas.width(0, 1));
+		assertEquals(360, atlas.height(0, 1));
+	}
+
+	@Test
+	public void imageBytesAreReadForTheirWordAndSize() throws IOException {
+		ImageAtlas atlas = new ImageAtlas(atlas("apple", "banana"));
+		int image = atlas.find("banana");
+		byte[] into = new byte[atlas.length(image, 1)];
+		atlas.read(image, 1, into);
+		assertArrayEquals(jpeg(1, 1), into);
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		new ImageAtlas(ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0, 0, 0}));
+	}
+
+	@Test(expected = IOException.class)
+	public void otherVersionsAreRejected() throws IOException {
+		ByteBuffer buffer = atlas("apple");
+		buffer.putInt(4, ImageAtlas.VERSION + 1);
+		new ImageAtlas(buffer);
+	}
+
+	@Test
+	public void shippedAtlasHoldsWholeJpegsAtEverySize() throws IOException {
+		ImageAtlas atlas = new ImageAtlas(map(new File("assets", ImageAtlas.ASSET)));
+		assertTrue(atlas.imageCount() > 0);
+		int[] sizes = atlas.sizes();
+		byte[] into = new byte[0];
+		for (int image = 0; image < atlas.imageCount(); image++) {
+			for (int size = 0; size < sizes.length; size++) {
+				int length = atlas.length(image, size);
+				assertTrue(length > 4);
+				assertTrue(Math.max(atlas.width(image, size), atlas.height(image, size)) <= sizes[size]);
+				if (into.length < length)
+					into = new byte[length];
+				atlas.read(image, size, into);
+				assertTrue("not a JPEG", (into[0] & 0xFF) == 0xFF && (into[1] & 0xFF) == 0xD8);
+				assertTrue("cut short", (into[length - 2] & 0xFF) == 0xFF && (into[length - 1] & 0xFF) == 0xD9);
+			}
+		}
+	}
+
+	/* 
+	 * An atlas of the given words at SIZES, each size of an image being fake JPEG bytes of 4:3.
+	*/
+	private static ByteBuffer atlas(String... words) throws IOException {
+		byte[][] names = new byte[words.length][];
+		int position = 16 + SIZES.length * 4;
+		for (int i = 0; i < words.length; i++) {
+			names[i] = words[i].getBytes("UTF-8");
+			position += 2 + names[i].length + SIZES.length * 12;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(ImageAtlas.MAGIC);
+		out.writeInt(ImageAtlas.VERSION);
+		out.writeInt(SIZES.length);
+		out.writeInt(words.length);
+		for (int size : SIZES)
+			out.writeInt(size);
+		for (int i = 0; i < words.length; i++) {
+			out.writeShort(names[i].length);
+			out.write(names[i]);
+			for (int size = 0; size < SIZES.length; size++) {
+				int length = jpeg(i, size).length;
+				out.writeInt(position);
+				out.writeInt(length);
+				out.writeShort(SIZES[size]);
+				out.writeShort(SIZES[size] * 3 / 4);
+				position += length;
+			}
+		}
+		for (int i = 0; i < words.length; i++) {
+			for (int size = 0; size < SIZES.length; size++)
+				out.write(jpeg(i, size));
+		}
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+
+	private static byte[] jpeg(int image, int size) {
+		return new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) image, (byte) size, (byte) 0xFF, (byte) 0xD9};
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+}
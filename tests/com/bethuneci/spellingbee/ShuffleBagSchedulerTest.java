@@ -0,0 +1,76 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for ShuffleBagScheduler.
+*/
+
+public class ShuffleBagSchedulerTest {
+
+	@Test
+	public void everyWordIsAskedOnceInEachBag() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(1);
+		scheduler.reset(50);
+		for (int bag = 0; bag < 20; bag++) {
+			boolean[] asked = new boolean[50];
+			for (int i = 0; i < 50; i++) {
+				int index = scheduler.next();
+				assertTrue("asked twice in one bag: " + index, !asked[index]);
+				asked[index] = true;
+			}
+		}
+	}
+
+	@Test
+	public void newBagNeverRepeatsTheLastWord() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(2);
+		scheduler.reset(3);
+		int previous = scheduler.next();
+		for (int i = 0; i < 3000; i++) {
+			int index = scheduler.next();
+			assertTrue(index != previous);
+			previous = index;
+		}
+	}
+
+	@Test
+	public void peekShowsWhatNextReturns() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(3);
+		scheduler.reset(10);
+		scheduler.next();
+		int first = scheduler.peek(0);
+		int second = scheduler.peek(1);
+		assertEquals(first, scheduler.next());
+		assertEquals(second, scheduler.next());
+		assertEquals(-1, scheduler.peek(8));
+	}
+
+	@Test
+	public void sameSeedGivesSameOrder() {
+		ShuffleBagScheduler first = new ShuffleBagScheduler(42);
+		ShuffleBagScheduler second = new ShuffleBagScheduler(42);
+		first.reset(100);
+		second.reset(100);
+		for (int i = 0; i < 300; i++)
+			assertEquals(first.next(), second.next());
+	}
+
+	@Test
+	public void singleWordIsAlwaysAsked() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(4);
+		scheduler.reset(1);
+		for (int i = 0; i < 5; i++)
+			assertEquals(0, scheduler.next());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void emptyListHasNoNextWord() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(5);
+		scheduler.reset(0);
+		scheduler.next();
+	}
+}
@@ -0,0 +1,138 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/* 
+ * Description: Tests that SpellingGameEngine.saveState() and restoreState() carry a game over
+ * to a new engine, as when the activity is recreated or the process restarted. The restored
+ * engine runs on a clock with a different origin, as a new process would.
+*/
+
+public class SpellingGameEngineStateTest {
+
+	private static final String[] WORDS = {"apple", "banana", "cherry", "damson", "elderberry"};
+
+	private long now = 50000;
+	private long restoredNow = 7000000;
+
+	private final Clock clock = new Clock() {
+		@Override
+		public long now() {
+			return now;
+		}
+	};
+	private final Clock restoredClock = new Clock() {
+		@Override
+		public long now() {
+			return restoredNow;
+		}
+	};
+
+	@Test
+	public void wordHintsAttemptsAndScoreAreRestored() throws IOException {
+		SpellingGameEngine engine = newEngine(clock, WORDS);
+		engine.nextWord();
+		spellCurrentWord(engine);
+		String word = engine.nextWord();
+		engine.nextHint();
+		engine.submitAnswer("x" + word);
+		now += 4000;
+
+		SpellingGameEngine restored = newEngine(restoredClock, WORDS);
+		assertEquals(word, restored.restoreState(save(engine)));
+		assertEquals(engine.getCurrentIndex(), restored.getCurrentIndex());
+		assertEquals(1, restored.getHintsUsed());
+		assertEquals(engine.getLastMistake(), restored.getLastMistake());
+		assertEquals(engine.getScore(), restored.getScore());
+		assertEquals(1, restored.getWordsSpelled());
+		assertEquals(restoredNow - 4000, restored.getWordStartTime());
+		//Hints carry on from where they were
+		assertEquals(engine.nextHint(), restored.nextHint());
+	}
+
+	@Test
+	public void restoredAnswerIsScoredForTheWholeTimeTaken() throws IOException {
+		SpellingGameEngine engine = newEngine(clock, WORDS);
+		String word = engine.nextWord();
+		now += 3000;
+		SpellingGameEngine restored = newEngine(restoredClock, WORDS);
+		restored.restoreState(save(engine));
+		restoredNow += 2000;
+		assertTrue(restored.submitAnswer(word));
+		assertEquals(SpellingGameEngine.points(word, 5, 0), restored.scoreCorrectAnswer());
+	}
+
+	@Test
+	public void challengeKeepsItsTimeLeft() throws IOException {
+		SpellingGameEngine engine = newEngine(clock, WORDS);
+		engine.startChallenge(2);
+		now += 90 * 1000;
+		SpellingGameEngine restored = newEngine(restoredClock, WORDS);
+		restored.restoreState(save(engine));
+		assertTrue(restored.isTimedMode());
+		assertEquals(2, restored.getTimeLimit());
+		assertEquals(restoredNow + 30 * 1000, restored.getChallengeDeadline());
+		restoredNow += 29 * 1000;
+		assertFalse(restored.checkChallengeOver());
+		restoredNow += 1000;
+		assertTrue(restored.checkChallengeOver());
+	}
+
+	@Test
+	public void wordNoLongerInTheListIsReplaced() throws IOException {
+		SpellingGameEngine engine = newEngine(clock, WORDS);
+		while (engine.getCurrentIndex() < 3)
+			engine.nextWord();
+		spellCurrentWord(engine);
+		SpellingGameEngine restored = newEngine(restoredClock, new String[] {"fig", "grape"});
+		String word = restored.restoreState(save(engine));
+		assertTrue(word.equals("fig") || word.equals("grape"));
+		assertEquals(0, restored.getHintsUsed());
+		assertEquals(engine.getScore(), restored.getScore());
+		assertEquals(1, restored.getWordsSpelled());
+	}
+
+	@Test
+	public void stateIsSmall() throws IOException {
+		SpellingGameEngine engine = newEngine(clock, WORDS);
+		engine.nextWord();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		engine.saveState(new DataOutputStream(bytes));
+		assertTrue(bytes.size() < 64);
+	}
+
+	@Test(expected = IOException.class)
+	public void otherVersionsAreRejected() throws IOException {
+		newEngine(restoredClock, WORDS).restoreState(new DataInputStream(new ByteArrayInputStream(new byte[] {99, 0, 0, 0})));
+	}
+
+	private static SpellingGameEngine newEngine(Clock clock, String[] words) {
+		SpellingGameEngine engine = new SpellingGameEngine(clock, clock);
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(7);
+		scheduler.reset(words.length);
+		engine.setWordList(new ArrayWordList(words), scheduler);
+		return engine;
+	}
+
+	private void spellCurrentWord(SpellingGameEngine engine) {
+		now += 1000;
+		assertTrue(engine.submitAnswer(engine.getCurrentWord()));
+		engine.scoreCorrectAnswer();
+	}
+
+	private static DataInputStream save(SpellingGameEngine engine) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		engine.saveState(new DataOutputStream(bytes));
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+}
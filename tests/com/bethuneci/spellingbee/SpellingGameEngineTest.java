@@ -0,0 +1,93 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for the answers SpellingGameEngine reports and how they add up in a
+ * word's history.
+*/
+
+public class SpellingGameEngineTest {
+
+	private long now = 1000;
+	private final ArrayList<AnswerEvent> events = new ArrayList<AnswerEvent>();
+	private final SpellingGameEngine engine = new SpellingGameEngine(new Clock() {
+		@Override
+		public long now() {
+			return now;
+		}
+	}, Clock.SYSTEM);
+
+	public SpellingGameEngineTest() {
+		ShuffleBagScheduler scheduler = new ShuffleBagScheduler(1);
+		scheduler.reset(1);
+		engine.setWordList(new ArrayWordList(new String[] {"necessary"}), scheduler);
+		engine.setListener(new SpellingGameEngine.Listener() {
+			@Override
+			public void onAnswer(AnswerEvent event) {
+				events.add(event);
+			}
+		});
+		engine.nextWord();
+	}
+
+	@Test
+	public void skipAfterNearMissIsOneAttempt() {
+		assertFalse(engine.submitAnswer("neccessary"));
+		now += 3000;
+		engine.skipWord();
+		assertEquals(2, events.size());
+		assertEquals(AnswerEvent.MODE_SKIPPED, events.get(1).mode);
+		assertTrue(events.get(1).points > 0);
+
+		WordHistory history = history();
+		assertEquals(1, history.attempts);
+		assertEquals(0, history.correct);
+		assertEquals(events.get(1).points, history.points);
+		assertEquals(engine.getScore(), history.points);
+	}
+
+	@Test
+	public void skipWithoutNearMissReportsNothing() {
+		engine.skipWord();
+		assertEquals(0, events.size());
+		assertFalse(engine.submitAnswer("xyz"));
+		engine.skipWord();
+		assertEquals(1, events.size());
+		assertEquals(1, history().attempts);
+	}
+
+	@Test
+	public void wrongThenRightAnswerIsTwoAttempts() {
+		engine.submitAnswer("necesary");
+		assertTrue(engine.submitAnswer("Necessary "));
+		engine.scoreCorrectAnswer();
+		WordHistory history = history();
+		assertEquals(2, history.attempts);
+		assertEquals(1, history.correct);
+	}
+
+	@Test
+	public void skippedCreditIsNotTakenForASpeedSample() {
+		AdaptiveDifficultyController controller = new AdaptiveDifficultyController(new double[] {0.5}, new Random(1));
+		engine.submitAnswer("neccessary");
+		engine.skipWord();
+		for (AnswerEvent event : events)
+			controller.onAnswer(event);
+		assertEquals(0, controller.getAverageMillisPerLetter(), 0);
+	}
+
+	private WordHistory history() {
+		WordHistory history = new WordHistory("necessary");
+		for (AnswerEvent event : events)
+			history.add(event);
+		return history;
+	}
+}
@@ -0,0 +1,104 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.After;
+import org.junit.Test;
+
+/* 
+ * Description: Tests what WordListImporter takes from teachers' files, reading the pack it
+ * writes back with WordPack.
+*/
+
+public class WordListImporterTest {
+
+	private File pack;
+
+	@After
+	public void deletePack() {
+		if (pack != null)
+			pack.delete();
+	}
+
+	@Test
+	public void wordsAreTrimmedLoweredAndKeptOnce() throws IOException {
+		WordListImporter.Result result = importWords("\uFEFFWord,Meaning\n  Apple \n\napple\nBANANA\nice  cream\n");
+		assertWords(new String[] {"apple", "banana", "ice cream"});
+		assertEquals(6, result.lines);
+		assertEquals(1, result.duplicates);
+		assertEquals(0, result.invalid);
+	}
+
+	@Test
+	public void onlyTheFirstCsvColumnIsTaken() throws IOException {
+		WordListImporter.Result result = importWords("apple,fruit\nbanana;fruit\ncherry\tfruit\n\"damson\",\"a plum, small\"\n");
+		assertWords(new String[] {"apple", "banana", "cherry", "damson"});
+		assertEquals(0, result.invalid);
+	}
+
+	@Test
+	public void wordAloneOnTheFirstLineIsKept() throws IOException {
+		WordListImporter.Result result = importWords("Word\nworld\n");
+		assertWords(new String[] {"word", "world"});
+		assertEquals(0, result.invalid);
+	}
+
+	@Test
+	public void quotedFieldEndsAtItsClosingQuote() throws IOException {
+		WordListImporter.Result result = importWords("\"apple\"  ,week 1\n\"ice cream\"\n\"fig\" x\n\"\"\n");
+		assertWords(new String[] {"apple", "ice cream"});
+		assertEquals(1, result.invalid);
+		assertEquals("\"fig\" x", result.invalidExamples.get(0));
+	}
+
+	@Test
+	public void escapedQuotesAndOpenQuotesAreNotWords() throws IOException {
+		WordListImporter.Result result = importWords("\"say \"\"cheese\"\"\",x\n\"pear\n\"plum\"\"\"\nquince\n");
+		assertWords(new String[] {"quince"});
+		assertEquals(3, result.invalid);
+	}
+
+	@Test
+	public void linesThatAreNotWordsAreCounted() throws IOException {
+		WordListImporter.Result result = importWords("item 12\n-dash\nok\n");
+		assertWords(new String[] {"ok"});
+		assertEquals(2, result.invalid);
+	}
+
+	@Test
+	public void wordsPastTheLimitAreLeftOut() throws IOException {
+		pack = File.createTempFile("import", ".pack");
+		WordListImporter.Result result = new WordListImporter(null, 2).importWords(
+				new ByteArrayInputStream("a\nb\nc\nb\nd\n".getBytes("UTF-8")), pack, WordListImporter.LIST);
+		assertWords(new String[] {"a", "b"});
+		assertEquals(2, result.overLimit);
+	}
+
+	private WordListImporter.Result importWords(String text) throws IOException {
+		pack = File.createTempFile("import", ".pack");
+		return new WordListImporter(null, WordListImporter.DEFAULT_MAX_WORDS).importWords(
+				new ByteArrayInputStream(text.getBytes("UTF-8")), pack, WordListImporter.LIST);
+	}
+
+	private void assertWords(String[] expected) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(pack, "r");
+		ByteBuffer buffer;
+		try {
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		}
+		finally {
+			file.close();
+		}
+		WordList words = new WordPack(buffer).list(WordListImporter.LIST);
+		assertEquals(expected.length, words.size());
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], words.get(i));
+	}
+}
@@ -0,0 +1,173 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+/* 
+ * Description: JVM tests for WordListLoader. Lists are served from memory and loads run on a
+ * queue the test drains itself, so nothing here needs a device or a real thread. Like tools,
+ * the tests folder is kept off the APK build path; run it with JUnit 4 on a desktop JVM
+ * against the compiled src classes.
+*/
+
+public class WordListLoaderTest {
+
+	private final HashMap<String, String> files = new HashMap<String, String>();
+	private final HashMap<String, byte[]> packs = new HashMap<String, byte[]>();
+	private final ArrayList<Runnable> queued = new ArrayList<Runnable>();
+	private final ArrayList<String> loaded = new ArrayList<String>();
+	private int packsOpened;
+
+	private final WordListLoader loader = new WordListLoader(new WordListLoader.Source() {
+		@Override
+		public InputStream open(String name) throws IOException {
+			String text = files.get(name);
+			if (text == null)
+				throw new FileNotFoundException(name);
+			return new ByteArrayInputStream(text.getBytes("UTF-8"));
+		}
+	}, new WordPack.Opener() {
+		@Override
+		public ByteBuffer open(String pack) throws IOException {
+			packsOpened++;
+			byte[] bytes = packs.get(pack);
+			if (bytes == null)
+				throw new FileNotFoundException(pack);
+			return ByteBuffer.wrap(bytes);
+		}
+	}, new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			queued.add(command);
+		}
+	});
+
+	private final WordListLoader.Callback callback = new WordListLoader.Callback() {
+		@Override
+		public void onLoaded(String name, WordList words) {
+			loaded.add(name);
+		}
+
+		@Override
+		public void onError(String name, IOException error) {
+			loaded.add("error " + name);
+		}
+	};
+
+	@Test
+	public void readWordsTrimsLinesAndSkipsBlankOnes() throws IOException {
+		String[] words = WordListLoader.readWords(new ByteArrayInputStream("apple\n  banana \r\n\n\t\ncherry".getBytes("UTF-8")));
+		assertArrayEquals(new String[] {"apple", "banana", "cherry"}, words);
+	}
+
+	@Test
+	public void readWordsKeepsUtf8() throws IOException {
+		String[] words = WordListLoader.readWords(new ByteArrayInputStream("caf\u00e9\nna\u00efve\n".getBytes("UTF-8")));
+		assertArrayEquals(new String[] {"caf\u00e9", "na\u00efve"}, words);
+	}
+
+	@Test
+	public void listWithoutPackIsReadFromText() {
+		files.put("list.txt", "one\ntwo\nthree\n");
+		loader.load("list.txt", callback);
+		runQueued();
+		WordList words = loader.current();
+		assertEquals(3, words.size());
+		assertEquals("two", words.get(1));
+		assertEquals(0, packsOpened);
+		assertEquals(0, loader.registry().size());
+	}
+
+	@Test
+	public void listInPackIsResolvedWithoutReadingText() throws IOException {
+		files.put(PackRegistry.MANIFEST, "easy\tEasy Words\twords.pack\nhard\tHard Words\twords.pack\n");
+		packs.put("words.pack", pack("easy", new String[] {"cat", "dog"}, "hard", new String[] {"rhythm"}));
+		loader.load("hard", callback);
+		loader.load("easy", callback);
+		runQueued();
+		assertEquals("dog", loader.current().get(1));
+		assertEquals(1, packsOpened);
+		assertArrayEquals(new String[] {"Easy Words", "Hard Words"}, loader.registry().titles());
+	}
+
+	@Test
+	public void listMissingFromPackFallsBackToText() throws IOException {
+		files.put(PackRegistry.MANIFEST, "extra\tExtra\twords.pack\n");
+		files.put("extra", "zebra\n");
+		packs.put("words.pack", pack("easy", new String[] {"cat"}, "hard", new String[] {"rhythm"}));
+		loader.load("extra", callback);
+		runQueued();
+		assertEquals("zebra", loader.current().get(0));
+	}
+
+	@Test
+	public void supersededLoadIsNotPublished() {
+		files.put("first", "a\n");
+		files.put("second", "b\n");
+		loader.load("first", callback);
+		loader.load("second", callback);
+		runQueued();
+		assertEquals(1, loaded.size());
+		assertEquals("second", loaded.get(0));
+		assertEquals("b", loader.current().get(0));
+	}
+
+	@Test
+	public void failedLoadKeepsPreviousList() {
+		files.put("first", "a\n");
+		loader.load("first", callback);
+		runQueued();
+		WordList first = loader.current();
+		loader.load("missing", callback);
+		runQueued();
+		assertEquals("error missing", loaded.get(1));
+		assertSame(first, loader.current());
+	}
+
+	@Test
+	public void addedListIsOfferedAndReadFromItsPack() throws IOException {
+		files.put(PackRegistry.MANIFEST, "easy\tEasy\twords.pack\n");
+		packs.put("words.pack", pack("easy", new String[] {"cat"}, "hard", new String[] {"rhythm"}));
+		packs.put("imported.pack", pack("imported", new String[] {"quokka"}, "unused", new String[0]));
+		loader.addList("imported", "Imported", "imported.pack");
+		loader.load("imported", callback);
+		runQueued();
+		assertEquals("quokka", loader.current().get(0));
+		assertArrayEquals(new String[] {"Easy", "Imported"}, loader.registry().titles());
+	}
+
+	@Test
+	public void nothingIsPublishedBeforeTheFirstLoad() {
+		assertNull(loader.current());
+		assertNull(loader.registry());
+	}
+
+	private void runQueued() {
+		while (!queued.isEmpty())
+			queued.remove(0).run();
+	}
+
+	private static byte[] pack(String firstName, String[] firstWords, String secondName, String[] secondWords)
+			throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList(firstName, firstWords);
+		writer.addList(secondName, secondWords);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.writeTo(bytes);
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,132 @@
+package com.bethuneci.spellingbee;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/* 
+ * Description: Round trips word lists through WordPackWriter and reads them back with
+ * WordPack, from a buffer the way a mapped pack is read.
+*/
+
+public class WordPackTest {
+
+	@Test
+	public void listsReadBackInOrder() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("easy", new String[] {"cat", "dog", "sun"});
+		writer.addList("hard", new String[] {"rhythm", "queue"});
+		WordPack pack = new WordPack(write(writer));
+		assertArrayEquals(new String[] {"easy", "hard"}, pack.listNames());
+		assertWords(new String[] {"cat", "dog", "sun"}, pack.list("easy"));
+		assertWords(new String[] {"rhythm", "queue"}, pack.list("hard"));
+		assertNull(pack.list("missing"));
+	}
+
+	@Test
+	public void nonAsciiWordsAndNamesSurvive() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("fran\u00e7ais", new String[] {"caf\u00e9", "na\u00efve", "\u00fcber"});
+		WordPack pack = new WordPack(write(writer));
+		assertWords(new String[] {"caf\u00e9", "na\u00efve", "\u00fcber"}, pack.list("fran\u00e7ais"));
+	}
+
+	@Test
+	public void emptyListReadsBackEmpty() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("empty", new String[0]);
+		writer.addList("one", new String[] {"a"});
+		WordPack pack = new WordPack(write(writer));
+		assertEquals(0, pack.list("empty").size());
+		assertWords(new String[] {"a"}, pack.list("one"));
+	}
+
+	@Test
+	public void hintsReadBackWithSimilarWordsAcrossLists() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("easy", new String[] {"station"}, new WordHints[] {new WordHints("station", 1 | 1 << 4, 4, 3, null)});
+		writer.addList("hard", new String[] {"nation", "zyzzyva"}, new WordHints[] {
+				new WordHints("nation", 1 | 1 << 3, 2, 4, "station"), new WordHints("zyzzyva", 0, 0, 0, "unknown")});
+		WordList hard = new WordPack(write(writer)).list("hard");
+		WordHints nation = hard.hints(0);
+		assertEquals(1 | 1 << 3, nation.getSyllableBreaks());
+		assertEquals(2, nation.getTrickyStart());
+		assertEquals(4, nation.getTrickyLength());
+		assertEquals("station", nation.getSimilar());
+		//A similar word in no list of the pack is left out
+		assertNull(hard.hints(1).getSimilar());
+		assertEquals(0, hard.hints(1).getSyllableBreaks());
+	}
+
+	@Test
+	public void listWithoutHintsHasPlainHints() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("easy", new String[] {"cat"});
+		WordHints hints = new WordPack(write(writer)).list("easy").hints(0);
+		assertEquals("cat", hints.getWord());
+		assertEquals(WordHints.plain("cat").count(), hints.count());
+	}
+
+	@Test
+	public void streamedListMatchesListWrittenInMemory() throws IOException {
+		String[] words = {"apple", "banana", "cherry"};
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("fruit", words);
+		byte[] expected = write(writer).array();
+
+		ByteArrayOutputStream wordBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream hintRecords = new ByteArrayOutputStream();
+		DataOutputStream hints = new DataOutputStream(hintRecords);
+		int[] wordEnds = new int[words.length];
+		for (int i = 0; i < words.length; i++) {
+			wordBytes.write(words[i].getBytes("UTF-8"));
+			wordEnds[i] = wordBytes.size();
+			WordPackWriter.writeHintRecord(hints, 0, 0, 0, -1);
+		}
+		ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+		WordPackWriter.writeList(streamed, "fruit", wordEnds, words.length, new ByteArrayInputStream(hintRecords.toByteArray()),
+				new ByteArrayInputStream(wordBytes.toByteArray()));
+		assertArrayEquals(expected, streamed.toByteArray());
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		new WordPack(ByteBuffer.wrap(new byte[] {'J', 'P', 'E', 'G', 0, 0, 0, 0, 0, 0, 0, 0}));
+	}
+
+	@Test(expected = IOException.class)
+	public void otherVersionsAreRejected() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("easy", new String[] {"cat"});
+		ByteBuffer buffer = write(writer);
+		buffer.putInt(4, WordPack.VERSION + 1);
+		new WordPack(buffer);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void wordPastTheEndIsRejected() throws IOException {
+		WordPackWriter writer = new WordPackWriter();
+		writer.addList("easy", new String[] {"cat"});
+		new WordPack(write(writer)).list("easy").get(1);
+	}
+
+	private static ByteBuffer write(WordPackWriter writer) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.writeTo(bytes);
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+
+	private static void assertWords(String[] expected, WordList words) {
+		assertEquals(expected.length, words.size());
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], words.get(i));
+	}
+}
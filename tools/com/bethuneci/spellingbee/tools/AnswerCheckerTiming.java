@@ -0,0 +1,102 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import com.bethuneci.spellingbee.AnswerChecker;
+import com.bethuneci.spellingbee.WordListLoader;
+
+/* 
+ * Description: Desktop timing harness for AnswerChecker. Every word of a list is paired
+ * with a near miss (two letters swapped) and a random answer of the same length, and the
+ * pairs are evaluated in turn. Words of 8, 16, 32 and 64 letters are timed on their own to
+ * show the cost stays flat up to the 64 letters of the bit-parallel path. Reports ns per
+ * evaluation, and bytes allocated per evaluation where the JVM can tell. Run from the
+ * project root:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.AnswerCheckerTiming [word list] [rounds]
+*/
+
+public class AnswerCheckerTiming {
+
+	private static final int[] LENGTHS = {8, 16, 32, 64};
+
+	//Keeps the results alive so the JIT cannot drop the evaluations
+	static volatile int sink;
+
+	public static void main(String[] args) throws IOException {
+		File file = new File(args.length > 0 ? args[0] : "assets/Year11-12.txt");
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		InputStream in = new FileInputStream(file);
+		String[] words;
+		try {
+			words = WordListLoader.readWords(in);
+		}
+		finally {
+			in.close();
+		}
+		Random random = new Random(1);
+		String[] answers = new String[words.length * 2];
+		String[] targets = new String[words.length * 2];
+		for (int i = 0; i < words.length; i++) {
+			targets[2 * i] = words[i];
+			answers[2 * i] = swapMiddle(words[i]);
+			targets[2 * i + 1] = words[i];
+			answers[2 * i + 1] = randomWord(random, words[i].length());
+		}
+
+		AnswerChecker checker = new AnswerChecker();
+		//Warm up so the JIT has compiled the checker before measuring
+		run(checker, answers, targets, rounds / 4 + 1);
+
+		System.out.println("case\tpairs\tns/op\tbytes/op");
+		report(file.getName(), checker, answers, targets, rounds);
+		for (int length : LENGTHS) {
+			String[] lengthTargets = new String[256];
+			String[] lengthAnswers = new String[256];
+			for (int i = 0; i < lengthTargets.length; i++) {
+				lengthTargets[i] = randomWord(random, length);
+				lengthAnswers[i] = i % 2 == 0 ? swapMiddle(lengthTargets[i]) : randomWord(random, length);
+			}
+			run(checker, lengthAnswers, lengthTargets, rounds / 4 + 1);
+			report(length + " letters", checker, lengthAnswers, lengthTargets, rounds * 10);
+		}
+	}
+
+	private static void report(String name, AnswerChecker checker, String[] answers, String[] targets, int rounds) {
+		long bytes = EngineLoadTest.allocatedBytes();
+		long start = System.nanoTime();
+		sink = run(checker, answers, targets, rounds);
+		long nanos = System.nanoTime() - start;
+		bytes = EngineLoadTest.allocatedBytes() - bytes;
+		long operations = (long) answers.length * rounds;
+		System.out.println(name + "\t" + answers.length + "\t" + (double) nanos / operations + "\t"
+				+ (bytes < 0 ? "n/a" : String.valueOf((double) bytes / operations)));
+	}
+
+	private static int run(AnswerChecker checker, String[] answers, String[] targets, int rounds) {
+		int total = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < answers.length; i++)
+				total += checker.evaluate(answers[i], targets[i]) + checker.distance();
+		}
+		return total;
+	}
+
+	private static String swapMiddle(String word) {
+		if (word.length() < 2)
+			return word + word;
+		int i = word.length() / 2 - 1;
+		return word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+	}
+
+	private static String randomWord(Random random, int length) {
+		char[] letters = new char[length];
+		for (int i = 0; i < length; i++)
+			letters[i] = (char) ('a' + random.nextInt(26));
+		return new String(letters);
+	}
+}
@@ -0,0 +1,124 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import com.bethuneci.spellingbee.ClassroomRoom;
+import com.bethuneci.spellingbee.ClassroomServer;
+import com.bethuneci.spellingbee.Clock;
+import com.bethuneci.spellingbee.DifficultyWeights;
+import com.bethuneci.spellingbee.WordList;
+import com.bethuneci.spellingbee.WordPack;
+
+/* 
+ * Description: Loopback load test for ClassroomServer. Starts a server on a free port,
+ * connects the given number of simulated clients, moves the room to a new word every few
+ * milliseconds, and has every client answer continuously (70% correctly). Reports answer
+ * throughput and the p50/p99/max time from sending an answer to reading the reply. Run from
+ * the project root:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.ClassroomLoadTest [clients] [answers each] [round millis]
+*/
+
+public class ClassroomLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		final int answers = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		final long roundMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+		final WordList words = new WordPack(WordListLoadTiming.map(new File("assets", WordPackCompiler.PACK))).list("list.txt");
+
+		final ClassroomRoom room = new ClassroomRoom(new Clock() {
+			@Override
+			public long now() {
+				return System.nanoTime() / 1000000;
+			}
+		}, DifficultyWeights.empty());
+		final ClassroomServer server = new ClassroomServer(room, 0);
+		server.start();
+		final int port = server.awaitPort();
+		if (port < 0)
+			throw server.getFailure();
+		server.startRound(words.get(0));
+
+		final long[][] latencies = new long[clients][answers];
+		final CountDownLatch connected = new CountDownLatch(clients);
+		final CountDownLatch finished = new CountDownLatch(clients);
+		for (int c = 0; c < clients; c++) {
+			final int client = c;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						play(port, room, client, latencies[client], connected);
+					}
+					catch (Exception e) {
+						e.printStackTrace();
+					}
+					finally {
+						finished.countDown();
+					}
+				}
+			}).start();
+		}
+		connected.await();
+
+		//Host moves the room on until every client is done
+		long start = System.nanoTime();
+		Random random = new Random(1);
+		while (finished.getCount() > 0) {
+			Thread.sleep(roundMillis);
+			server.startRound(words.get(random.nextInt(words.size())));
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		server.stop();
+
+		long[] all = new long[clients * answers];
+		for (int c = 0; c < clients; c++)
+			System.arraycopy(latencies[c], 0, all, c * answers, answers);
+		Arrays.sort(all);
+		System.out.println(clients + " clients x " + answers + " answers, " + room.currentRound().number + " rounds");
+		System.out.println("answers/s: " + (long) (all.length / seconds));
+		System.out.println("p50 us: " + all[all.length / 2] / 1000);
+		System.out.println("p99 us: " + all[(int) (all.length * 0.99)] / 1000);
+		System.out.println("max us: " + all[all.length - 1] / 1000);
+	}
+
+	/* 
+	 * One client on a blocking socket. The correct spelling is read straight from the room,
+	 * the point is to load the server, not to spell.
+	*/
+	static void play(int port, ClassroomRoom room, int client, long[] latencies, CountDownLatch connected) throws Exception {
+		Socket socket = new Socket("127.0.0.1", port);
+		socket.setTcpNoDelay(true);
+		try {
+			OutputStream out = socket.getOutputStream();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			out.write(("JOIN player" + client + "\n").getBytes("UTF-8"));
+			while (!in.readLine().startsWith("WELCOME")) {
+			}
+			connected.countDown();
+			Random random = new Random(client);
+			for (int i = 0; i < latencies.length; i++) {
+				ClassroomRoom.Round round = room.currentRound();
+				String guess = random.nextInt(10) < 7 ? round.word : round.word + "e";
+				long sent = System.nanoTime();
+				out.write(("ANSWER " + round.number + " " + guess + "\n").getBytes("UTF-8"));
+				String reply;
+				do {
+					reply = in.readLine();
+				} while (reply.startsWith("WORD"));
+				latencies[i] = System.nanoTime() - sent;
+			}
+		}
+		finally {
+			socket.close();
+		}
+	}
+}
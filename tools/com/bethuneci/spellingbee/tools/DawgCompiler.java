@@ -0,0 +1,57 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.bethuneci.spellingbee.Dawg;
+import com.bethuneci.spellingbee.DawgWriter;
+import com.bethuneci.spellingbee.WordListLoader;
+
+/* 
+ * Description: Build step that compiles every word of the lists under assets/ into the
+ * words.dawg read by Dawg, used to flag typing that cannot become any real word. Words with
+ * characters the DAWG cannot store are reported and left out. Re-run it whenever a list
+ * changes:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.DawgCompiler [assets dir]
+*/
+
+public class DawgCompiler {
+
+	public static void main(String[] args) throws IOException {
+		File assetsDir = new File(args.length > 0 ? args[0] : "assets");
+		DawgWriter writer = new DawgWriter();
+		int total = 0;
+		for (String list : WordPackCompiler.lists(assetsDir)) {
+			InputStream in = new FileInputStream(new File(assetsDir, list));
+			String[] words;
+			try {
+				words = WordListLoader.readWords(in);
+			}
+			finally {
+				in.close();
+			}
+			for (String word : words) {
+				if (!writer.addWord(word))
+					System.out.println("Warning: " + list + ": skipped \"" + word + "\", it has a character the DAWG cannot store");
+			}
+			total += words.length;
+		}
+		int[] edges = writer.toEdges();
+		File dawg = new File(assetsDir, Dawg.ASSET);
+		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(dawg));
+		try {
+			writer.writeTo(outputStream);
+		}
+		finally {
+			outputStream.close();
+		}
+		System.out.println("Wrote " + writer.wordCount() + " distinct words of " + total + " as " + edges.length
+				+ " edges to " + dawg + " (" + dawg.length() + " bytes)");
+	}
+}
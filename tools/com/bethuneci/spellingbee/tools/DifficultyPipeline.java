@@ -0,0 +1,398 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+import com.bethuneci.spellingbee.AnswerLog;
+import com.bethuneci.spellingbee.DifficultyScorer;
+import com.bethuneci.spellingbee.DifficultyWeights;
+import com.bethuneci.spellingbee.WordHistory;
+
+/* 
+ * Description: Offline build step that rates every word with DifficultyScorer and writes
+ * the difficulty.idx weights read by DifficultyWeights, plus the words re-bucketed by
+ * rating into equally sized Level lists. Dictionaries are streamed in chunks, so only the
+ * set of words already written is held in memory. Each chunk is split across a fork-join
+ * pool while the next chunk is read. The first pass counts letter pairs, the second rates
+ * words and writes the weights, the third writes the lists, bucketed by the ratings
+ * histogram of the second. Observed error rates come from an AnswerLog directory pulled
+ * from a device. With --synthetic a dictionary of that many made-up words is generated
+ * from the shipped lists first, to measure throughput; its weights go to the out directory
+ * with everything else, so the shipped assets are left alone. Run from the project root:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.DifficultyPipeline [--assets dir] [--out dir]
+ *         [--answers dir] [--buckets n] [--synthetic words] [dictionary files...]
+*/
+
+public class DifficultyPipeline {
+
+	private static final int CHUNK_WORDS = 64 * 1024;
+	private static final int LEAF_WORDS = 2048;
+	//Ratings histogram resolution, in hundredths of a letter
+	private static final int HISTOGRAM_BINS = 100 * 100;
+
+	private final ForkJoinPool pool = new ForkJoinPool();
+	private final HashMap<String, WordHistory> history;
+
+	DifficultyPipeline(HashMap<String, WordHistory> history) {
+		this.history = history;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		File assetsDir = new File("assets");
+		File outDir = new File("difficulty");
+		File answersDir = null;
+		int buckets = 4;
+		int synthetic = 0;
+		List<File> dictionaries = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--assets"))
+				assetsDir = new File(args[++i]);
+			else if (args[i].equals("--out"))
+				outDir = new File(args[++i]);
+			else if (args[i].equals("--answers"))
+				answersDir = new File(args[++i]);
+			else if (args[i].equals("--buckets"))
+				buckets = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--synthetic"))
+				synthetic = Integer.parseInt(args[++i]);
+			else
+				dictionaries.add(new File(args[i]));
+		}
+		if (dictionaries.isEmpty()) {
+			for (String list : WordPackCompiler.lists(assetsDir))
+				dictionaries.add(new File(assetsDir, list));
+		}
+		outDir.mkdirs();
+		if (synthetic > 0) {
+			File file = new File(outDir, "synthetic.txt");
+			writeSynthetic(dictionaries, synthetic, file);
+			dictionaries.clear();
+			dictionaries.add(file);
+		}
+
+		HashMap<String, WordHistory> history = new HashMap<String, WordHistory>();
+		if (answersDir != null) {
+			for (Map.Entry<String, WordHistory> entry : new AnswerLog(answersDir).history().get().entrySet())
+				history.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+			System.out.println("Read answers for " + history.size() + " words from " + answersDir);
+		}
+		DifficultyPipeline pipeline = new DifficultyPipeline(history);
+
+		long start = System.nanoTime();
+		DifficultyScorer.BigramCounts counts = pipeline.countBigrams(dictionaries);
+		report("count letter pairs", counts.total(), start);
+
+		start = System.nanoTime();
+		DifficultyScorer scorer = new DifficultyScorer(counts);
+		//Made-up words never replace the shipped weights
+		File weightsFile = new File(synthetic > 0 ? outDir : assetsDir, DifficultyWeights.MANIFEST);
+		int[] histogram = new int[HISTOGRAM_BINS];
+		int words = pipeline.writeWeights(dictionaries, scorer, weightsFile, histogram);
+		report("rate and write weights", words, start);
+
+		start = System.nanoTime();
+		double[] bounds = bucketBounds(histogram, words, buckets);
+		int[] sizes = pipeline.writeBuckets(dictionaries, scorer, bounds, outDir);
+		report("write lists", words, start);
+
+		System.out.println("Wrote weights of " + words + " words to " + weightsFile + " (" + weightsFile.length() + " bytes)");
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			System.out.println("Level" + (bucket + 1) + ".txt\t" + sizes[bucket] + " words\trating below "
+					+ (bucket < buckets - 1 ? String.format("%.2f", bounds[bucket]) : "any"));
+		}
+		pipeline.pool.shutdown();
+	}
+
+	/* 
+	 * First pass: letter pair counts of every dictionary.
+	*/
+	DifficultyScorer.BigramCounts countBigrams(List<File> dictionaries) throws IOException, InterruptedException,
+			ExecutionException {
+		DifficultyScorer.BigramCounts total = new DifficultyScorer.BigramCounts();
+		for (File dictionary : dictionaries) {
+			ChunkReader reader = new ChunkReader(dictionary);
+			try {
+				String[] chunk = reader.next();
+				while (chunk != null) {
+					Future<DifficultyScorer.BigramCounts> counted = pool.submit(new CountTask(chunk, 0, chunk.length));
+					chunk = reader.next();
+					total.merge(counted.get());
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		return total;
+	}
+
+	/* 
+	 * Second pass: rates every word and writes each one's weight the first time it is seen,
+	 * counting the ratings into the histogram. Returns the number of distinct words.
+	*/
+	int writeWeights(List<File> dictionaries, DifficultyScorer scorer, File weightsFile, int[] histogram)
+			throws IOException, InterruptedException, ExecutionException {
+		HashSet<String> written = new HashSet<String>();
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(weightsFile), "UTF-8"));
+		try {
+			for (File dictionary : dictionaries) {
+				ChunkReader reader = new ChunkReader(dictionary);
+				try {
+					String[] chunk = reader.next();
+					while (chunk != null) {
+						Future<double[]> rated = pool.submit(new ScoreTask(scorer, chunk, 0, chunk.length));
+						String[] nextChunk = reader.next();
+						double[] scores = rated.get();
+						for (int i = 0; i < chunk.length; i++) {
+							if (!written.add(chunk[i]))
+								continue;
+							out.write(chunk[i]);
+							out.write('\t');
+							out.write(Integer.toString(DifficultyScorer.weight(chunk[i], scores[i])));
+							out.write('\n');
+							histogram[bin(scores[i])]++;
+						}
+						chunk = nextChunk;
+					}
+				}
+				finally {
+					reader.close();
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		return written.size();
+	}
+
+	/* 
+	 * Third pass: writes each distinct word to the Level list its rating falls in. Returns the
+	 * number of words in each list.
+	*/
+	int[] writeBuckets(List<File> dictionaries, DifficultyScorer scorer, double[] bounds, File outDir)
+			throws IOException, InterruptedException, ExecutionException {
+		int[] sizes = new int[bounds.length + 1];
+		Writer[] outs = new Writer[bounds.length + 1];
+		HashSet<String> written = new HashSet<String>();
+		try {
+			for (int bucket = 0; bucket < outs.length; bucket++) {
+				outs[bucket] = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outDir, "Level"
+						+ (bucket + 1) + ".txt")), "UTF-8"));
+			}
+			for (File dictionary : dictionaries) {
+				ChunkReader reader = new ChunkReader(dictionary);
+				try {
+					String[] chunk = reader.next();
+					while (chunk != null) {
+						Future<double[]> rated = pool.submit(new ScoreTask(scorer, chunk, 0, chunk.length));
+						String[] nextChunk = reader.next();
+						double[] scores = rated.get();
+						for (int i = 0; i < chunk.length; i++) {
+							if (!written.add(chunk[i]))
+								continue;
+							int bucket = 0;
+							while (bucket < bounds.length && scores[i] >= bounds[bucket])
+								bucket++;
+							outs[bucket].write(chunk[i]);
+							outs[bucket].write('\n');
+							sizes[bucket]++;
+						}
+						chunk = nextChunk;
+					}
+				}
+				finally {
+					reader.close();
+				}
+			}
+		}
+		finally {
+			for (Writer out : outs) {
+				if (out != null)
+					out.close();
+			}
+		}
+		return sizes;
+	}
+
+	/* 
+	 * Ratings splitting the words into buckets of about equal size.
+	*/
+	static double[] bucketBounds(int[] histogram, int words, int buckets) {
+		double[] bounds = new double[buckets - 1];
+		int seen = 0;
+		int bound = 0;
+		for (int bin = 0; bin < histogram.length && bound < bounds.length; bin++) {
+			seen += histogram[bin];
+			while (bound < bounds.length && seen >= (long) words * (bound + 1) / buckets)
+				bounds[bound++] = (bin + 1) / 100.0;
+		}
+		while (bound < bounds.length)
+			bounds[bound++] = Double.MAX_VALUE;
+		return bounds;
+	}
+
+	private static int bin(double score) {
+		int bin = (int) (score * 100);
+		return bin < 0 ? 0 : bin >= HISTOGRAM_BINS ? HISTOGRAM_BINS - 1 : bin;
+	}
+
+	private static void report(String pass, long items, long startNanos) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		System.out.println(String.format("%s: %d in %.3f s, %.0f per second", pass, items, seconds, items / seconds));
+	}
+
+	/* 
+	 * Counts the letter pairs of part of a chunk, splitting it in half until it is small.
+	*/
+	private static class CountTask extends RecursiveTask<DifficultyScorer.BigramCounts> {
+		private static final long serialVersionUID = 1L;
+
+		private final String[] words;
+		private final int from;
+		private final int to;
+
+		CountTask(String[] words, int from, int to) {
+			this.words = words;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected DifficultyScorer.BigramCounts compute() {
+			if (to - from <= LEAF_WORDS) {
+				DifficultyScorer.BigramCounts counts = new DifficultyScorer.BigramCounts();
+				for (int i = from; i < to; i++)
+					counts.add(words[i]);
+				return counts;
+			}
+			int middle = (from + to) >>> 1;
+			CountTask left = new CountTask(words, from, middle);
+			left.fork();
+			DifficultyScorer.BigramCounts counts = new CountTask(words, middle, to).compute();
+			counts.merge(left.join());
+			return counts;
+		}
+	}
+
+	/* 
+	 * Rates part of a chunk into an array covering the whole chunk.
+	*/
+	private class ScoreTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final DifficultyScorer scorer;
+		private final String[] words;
+		private final int from;
+		private final int to;
+		private final double[] scores;
+
+		ScoreTask(DifficultyScorer scorer, String[] words, int from, int to) {
+			this(scorer, words, from, to, new double[words.length]);
+		}
+
+		private ScoreTask(DifficultyScorer scorer, String[] words, int from, int to, double[] scores) {
+			this.scorer = scorer;
+			this.words = words;
+			this.from = from;
+			this.to = to;
+			this.scores = scores;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (to - from <= LEAF_WORDS) {
+				for (int i = from; i < to; i++)
+					scores[i] = scorer.score(words[i], history.get(words[i]));
+				return scores;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ScoreTask(scorer, words, from, middle, scores), new ScoreTask(scorer, words, middle, to, scores));
+			return scores;
+		}
+	}
+
+	/* 
+	 * Reads a dictionary of one word per line in chunks, trimmed, lower case, without blank
+	 * lines.
+	*/
+	private static class ChunkReader {
+		private final BufferedReader reader;
+
+		ChunkReader(File file) throws IOException {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"), 1 << 16);
+		}
+
+		/* 
+		 * Returns the next chunk of words, or null at the end of the file.
+		*/
+		String[] next() throws IOException {
+			ArrayList<String> words = new ArrayList<String>(CHUNK_WORDS);
+			String line;
+			while (words.size() < CHUNK_WORDS && (line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0)
+					words.add(line.toLowerCase(Locale.ROOT));
+			}
+			return words.isEmpty() ? null : words.toArray(new String[words.size()]);
+		}
+
+		void close() throws IOException {
+			reader.close();
+		}
+	}
+
+	/* 
+	 * Writes made-up words, each the start of one real word joined to the end of another.
+	*/
+	private static void writeSynthetic(List<File> dictionaries, int count, File file) throws IOException {
+		ArrayList<String> real = new ArrayList<String>();
+		for (File dictionary : dictionaries) {
+			ChunkReader reader = new ChunkReader(dictionary);
+			try {
+				String[] chunk;
+				while ((chunk = reader.next()) != null) {
+					for (String word : chunk)
+						real.add(word);
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		Random random = new Random(1);
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			for (int i = 0; i < count; i++) {
+				String first = real.get(random.nextInt(real.size()));
+				String second = real.get(random.nextInt(real.size()));
+				out.write(first, 0, 1 + random.nextInt(first.length()));
+				out.write(second.substring(random.nextInt(second.length())));
+				out.write('\n');
+			}
+		}
+		finally {
+			out.close();
+		}
+		System.out.println("Wrote " + count + " made-up words to " + file);
+	}
+}
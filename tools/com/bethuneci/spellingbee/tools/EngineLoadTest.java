@@ -0,0 +1,135 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.bethuneci.spellingbee.Clock;
+import com.bethuneci.spellingbee.ShuffleBagScheduler;
+import com.bethuneci.spellingbee.SpacedRepetitionScheduler;
+import com.bethuneci.spellingbee.SpellingGameEngine;
+import com.bethuneci.spellingbee.WordList;
+import com.bethuneci.spellingbee.WordPack;
+import com.bethuneci.spellingbee.WordScheduler;
+
+/* 
+ * Description: Desktop load harness for SpellingGameEngine. Simulates many players, each
+ * with their own engine over the shared list from words.pack, answering as fast as they can
+ * on a thread pool. Each player has a fake clock that moves 1.5 seconds per answer. Reports
+ * answers per second and bytes allocated per answer (HotSpot only). Run from the project
+ * root:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.EngineLoadTest [players] [answers each] [threads] [shuffle|srs]
+ * 
+ * The app targets Java 6, so players run on a platform thread pool rather than virtual threads.
+*/
+
+public class EngineLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		int players = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int answers = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		final boolean spacedRepetition = args.length > 3 && args[3].equals("srs");
+		final WordList words = new WordPack(WordListLoadTiming.map(new File("assets", WordPackCompiler.PACK))).list("list.txt");
+
+		//One warm-up round so the JIT has compiled the engine before measuring
+		run(words, Math.min(players, 100), answers, threads, spacedRepetition);
+		long start = System.nanoTime();
+		long[] totals = run(words, players, answers, threads, spacedRepetition);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long total = totals[0];
+		System.out.println(players + " players x " + answers + " answers on " + threads + " threads"
+				+ (spacedRepetition ? " (spaced repetition)" : " (shuffle bag)"));
+		System.out.println("answers/s: " + (long) (total / seconds));
+		System.out.println("correct: " + totals[1] + " of " + total);
+		if (totals[2] >= 0)
+			System.out.println("bytes allocated/answer: " + totals[2] / total);
+	}
+
+	/* 
+	 * Returns total answers, correct answers and bytes allocated, or -1 bytes if unknown.
+	*/
+	static long[] run(final WordList words, int players, final int answers, int threads, final boolean spacedRepetition)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		for (int p = 0; p < players; p++) {
+			final long seed = p;
+			results.add(pool.submit(new Callable<long[]>() {
+				@Override
+				public long[] call() {
+					return play(words, answers, seed, spacedRepetition);
+				}
+			}));
+		}
+		long[] totals = new long[3];
+		for (Future<long[]> result : results) {
+			long[] player = result.get();
+			totals[0] += player[0];
+			totals[1] += player[1];
+			totals[2] = totals[2] < 0 || player[2] < 0 ? -1 : totals[2] + player[2];
+		}
+		pool.shutdown();
+		return totals;
+	}
+
+	/* 
+	 * One player: answers right 70% of the time, asks a hint 20% of the time, and skips a
+	 * word after two wrong answers.
+	*/
+	static long[] play(WordList words, int answers, long seed, boolean spacedRepetition) {
+		long allocatedBefore = allocatedBytes();
+		final long[] time = {0};
+		Clock clock = new Clock() {
+			@Override
+			public long now() {
+				return time[0];
+			}
+		};
+		Random random = new Random(seed);
+		WordScheduler scheduler = spacedRepetition ? new SpacedRepetitionScheduler(clock, new Random(seed))
+				: new ShuffleBagScheduler(seed);
+		scheduler.reset(words.size());
+		SpellingGameEngine engine = new SpellingGameEngine(clock, clock);
+		engine.setWordList(words, scheduler);
+		engine.resetStats();
+		long correct = 0;
+		int wrongInARow = 0;
+		for (int i = 0; i < answers; i++) {
+			time[0] += 1500;
+			if (random.nextInt(5) == 0)
+				engine.nextHint();
+			String word = engine.getCurrentWord();
+			String input = random.nextInt(10) < 7 ? word : word + "x";
+			if (engine.submitAnswer(input)) {
+				engine.scoreCorrectAnswer();
+				engine.nextWord();
+				correct++;
+				wrongInARow = 0;
+			}
+			else if (++wrongInARow == 2) {
+				engine.skipWord();
+				wrongInARow = 0;
+			}
+		}
+		long allocatedAfter = allocatedBytes();
+		return new long[] {answers, correct, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore};
+	}
+
+	/* 
+	 * Bytes allocated so far by the current thread, or -1 if the JVM cannot tell.
+	*/
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+}
@@ -0,0 +1,409 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.bethuneci.spellingbee.ImageAtlas;
+import com.bethuneci.spellingbee.WordListLoader;
+
+/* 
+ * Description: Build step that turns the source pictures under art/images into the packed
+ * images.atlas.jpg asset read by ImageAtlas. Every picture is checked to be a complete JPEG
+ * that actually decodes, then scaled down to fit each target size and re-encoded as a
+ * baseline JPEG without metadata. Broken and misnamed pictures (e.g. "ate.jpeg.jpg") are
+ * reported, and with --strict they fail the build. Words in the lists without a picture are
+ * counted. Finally the size of the pictures in the APK and the time to decode them, before
+ * and after, are printed; assets ending in .jpg are stored uncompressed, so their size is
+ * what they add to the APK. Run from the project root:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.ImageAtlasBuilder [--strict]
+ *         [--source dir] [--assets dir] [--sizes 160,300] [--quality 0.8]
+*/
+
+public class ImageAtlasBuilder {
+
+	//Longest side of each stored size. The image view is 300dp, the pictures are 300 pixels wide
+	private static final int[] DEFAULT_SIZES = {160, 300};
+	private static final float DEFAULT_QUALITY = 0.8f;
+
+	/* 
+	 * One picture, encoded at every size.
+	*/
+	static class Encoded {
+		final String word;
+		final byte[][] jpegs;
+		final int[] widths;
+		final int[] heights;
+
+		Encoded(String word, int sizes) {
+			this.word = word;
+			jpegs = new byte[sizes][];
+			widths = new int[sizes];
+			heights = new int[sizes];
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		boolean strict = false;
+		File sourceDir = new File("art/images");
+		File assetsDir = new File("assets");
+		int[] sizes = DEFAULT_SIZES;
+		float quality = DEFAULT_QUALITY;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--strict"))
+				strict = true;
+			else if (args[i].equals("--source"))
+				sourceDir = new File(args[++i]);
+			else if (args[i].equals("--assets"))
+				assetsDir = new File(args[++i]);
+			else if (args[i].equals("--sizes"))
+				sizes = parseSizes(args[++i]);
+			else if (args[i].equals("--quality"))
+				quality = Float.parseFloat(args[++i]);
+			else
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+		String[] files = sourceDir.list();
+		if (files == null)
+			throw new IOException("No pictures in " + sourceDir);
+		Arrays.sort(files);
+
+		//Validate and pick one picture per word
+		int problems = 0;
+		long sourceBytes = 0;
+		Set<String> words = new HashSet<String>();
+		List<String> keptWords = new ArrayList<String>();
+		List<File> keptFiles = new ArrayList<File>();
+		for (String file : files) {
+			if (!file.endsWith(".jpg"))
+				continue;
+			File source = new File(sourceDir, file);
+			sourceBytes += source.length();
+			String word = file.substring(0, file.length() - ".jpg".length());
+			if (word.endsWith(".jpeg")) {
+				word = word.substring(0, word.length() - ".jpeg".length());
+				System.err.println("warning: misnamed image " + file + ", expected " + word + ".jpg");
+				problems++;
+			}
+			if (jpegSize(source) == null) {
+				System.err.println("warning: broken image " + file);
+				problems++;
+				continue;
+			}
+			if (!words.add(word)) {
+				System.err.println("warning: more than one image for " + word + ", keeping the first");
+				problems++;
+				continue;
+			}
+			keptWords.add(word);
+			keptFiles.add(source);
+		}
+
+		//Scale and encode on every core
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<Encoded>> futures = new ArrayList<Future<Encoded>>();
+		final int[] finalSizes = sizes;
+		final float finalQuality = quality;
+		long start = System.nanoTime();
+		for (int i = 0; i < keptWords.size(); i++) {
+			final String word = keptWords.get(i);
+			final File source = keptFiles.get(i);
+			futures.add(pool.submit(new Callable<Encoded>() {
+				@Override
+				public Encoded call() throws IOException {
+					return encode(word, source, finalSizes, finalQuality);
+				}
+			}));
+		}
+		List<Encoded> images = new ArrayList<Encoded>();
+		for (int i = 0; i < futures.size(); i++) {
+			Encoded encoded = futures.get(i).get();
+			if (encoded == null) {
+				System.err.println("warning: image " + keptFiles.get(i).getName() + " does not decode");
+				problems++;
+				words.remove(keptWords.get(i));
+				continue;
+			}
+			images.add(encoded);
+		}
+		pool.shutdown();
+		long encodeMillis = (System.nanoTime() - start) / 1000000;
+
+		File atlas = new File(assetsDir, ImageAtlas.ASSET);
+		write(atlas, sizes, images);
+
+		for (String list : WordPackCompiler.lists(assetsDir)) {
+			String[] listWords = WordListLoader.readWords(new FileInputStream(new File(assetsDir, list)));
+			int missing = 0;
+			for (String word : listWords) {
+				if (!words.contains(word))
+					missing++;
+			}
+			System.out.println(list + ": " + missing + " of " + listWords.length + " words have no image");
+		}
+		System.out.println("Wrote " + images.size() + " images at sizes " + Arrays.toString(sizes) + " to " + atlas + " in "
+				+ encodeMillis + " ms, " + problems + " problems");
+		report(keptFiles, atlas, sourceBytes);
+		if (strict && problems > 0)
+			System.exit(1);
+	}
+
+	/* 
+	 * Decodes a picture and encodes it scaled to fit each size, never scaling up. Returns
+	 * null if the picture does not decode.
+	*/
+	static Encoded encode(String word, File source, int[] sizes, float quality) throws IOException {
+		BufferedImage image;
+		try {
+			image = ImageIO.read(source);
+		}
+		catch (IOException e) {
+			return null;
+		}
+		if (image == null)
+			return null;
+		Encoded encoded = new Encoded(word, sizes.length);
+		for (int i = 0; i < sizes.length; i++) {
+			double scale = Math.min(1.0, (double) sizes[i] / Math.max(image.getWidth(), image.getHeight()));
+			int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+			int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+			if (i > 0 && width == encoded.widths[i - 1] && height == encoded.heights[i - 1]) {
+				//Smaller than this size already, share the bytes of the last one
+				encoded.jpegs[i] = encoded.jpegs[i - 1];
+			}
+			else {
+				encoded.jpegs[i] = jpeg(scale(image, width, height), quality);
+			}
+			encoded.widths[i] = width;
+			encoded.heights[i] = height;
+		}
+		return encoded;
+	}
+
+	/* 
+	 * Scales to an opaque RGB image, halving with bilinear filtering first for large
+	 * reductions so no source pixels are skipped.
+	*/
+	static BufferedImage scale(BufferedImage image, int width, int height) {
+		BufferedImage current = image;
+		while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height)
+			current = draw(current, current.getWidth() / 2, current.getHeight() / 2, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		return draw(current, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+	}
+
+	private static BufferedImage draw(BufferedImage image, int width, int height, Object interpolation) {
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		}
+		finally {
+			graphics.dispose();
+		}
+		return scaled;
+	}
+
+	static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(quality);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageOutputStream out = ImageIO.createImageOutputStream(bytes);
+		try {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), param);
+		}
+		finally {
+			out.close();
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+
+	/* 
+	 * Writes the header, directory and JPEG bytes in the layout described in ImageAtlas.
+	 * Bytes shared between sizes of a picture are stored once.
+	*/
+	static void write(File atlas, int[] sizes, List<Encoded> images) throws IOException {
+		int position = 16 + 4 * sizes.length;
+		for (Encoded image : images)
+			position += 2 + image.word.getBytes("UTF-8").length + 12 * sizes.length;
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(atlas)));
+		try {
+			out.writeInt(ImageAtlas.MAGIC);
+			out.writeInt(ImageAtlas.VERSION);
+			out.writeInt(sizes.length);
+			out.writeInt(images.size());
+			for (int size : sizes)
+				out.writeInt(size);
+			for (Encoded image : images) {
+				byte[] word = image.word.getBytes("UTF-8");
+				out.writeShort(word.length);
+				out.write(word);
+				int offset = -1;
+				for (int i = 0; i < sizes.length; i++) {
+					if (i == 0 || image.jpegs[i] != image.jpegs[i - 1]) {
+						offset = position;
+						position += image.jpegs[i].length;
+					}
+					out.writeInt(offset);
+					out.writeInt(image.jpegs[i].length);
+					out.writeShort(image.widths[i]);
+					out.writeShort(image.heights[i]);
+				}
+			}
+			for (Encoded image : images) {
+				for (int i = 0; i < sizes.length; i++) {
+					if (i == 0 || image.jpegs[i] != image.jpegs[i - 1])
+						out.write(image.jpegs[i]);
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/* 
+	 * Prints the bytes the pictures add to the APK and the average time to decode one from
+	 * the source files and from the atlas, at each size. Decoding is timed with ImageIO on
+	 * this machine, which only stands in for BitmapFactory on a phone; the IMAGE_DECODE stage
+	 * of the developer metrics measures the real thing.
+	*/
+	static void report(List<File> sources, File atlasFile, long sourceBytes) throws IOException {
+		ImageAtlas atlas = new ImageAtlas(ByteBuffer.wrap(readFully(atlasFile)));
+		int[] sizes = atlas.sizes();
+		System.out.println("APK images: " + sourceBytes / 1024 + " KB in " + sources.size() + " assets before, "
+				+ atlasFile.length() / 1024 + " KB in 1 asset after");
+
+		//Decode everything once to warm up, then time the second pass
+		double[] atlasMicros = new double[sizes.length];
+		double sourceMicros = 0;
+		byte[] jpeg = new byte[64 * 1024];
+		for (int pass = 0; pass < 2; pass++) {
+			long start = System.nanoTime();
+			for (File source : sources)
+				ImageIO.read(new ByteArrayInputStream(readFully(source)));
+			sourceMicros = (System.nanoTime() - start) / 1000.0 / sources.size();
+			for (int size = 0; size < sizes.length; size++) {
+				start = System.nanoTime();
+				for (int image = 0; image < atlas.imageCount(); image++) {
+					int length = atlas.length(image, size);
+					if (jpeg.length < length)
+						jpeg = new byte[length];
+					atlas.read(image, size, jpeg);
+					ImageIO.read(new ByteArrayInputStream(jpeg, 0, length));
+				}
+				atlasMicros[size] = (System.nanoTime() - start) / 1000.0 / atlas.imageCount();
+			}
+		}
+		System.out.printf("Decode: %.0f us per image before%n", sourceMicros);
+		for (int size = 0; size < sizes.length; size++)
+			System.out.printf("Decode: %.0f us per image after, at %d pixels%n", atlasMicros[size], sizes[size]);
+	}
+
+	private static int[] parseSizes(String list) {
+		String[] parts = list.split(",");
+		int[] sizes = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			sizes[i] = Integer.parseInt(parts[i].trim());
+		Arrays.sort(sizes);
+		return sizes;
+	}
+
+	private static byte[] readFully(File file) throws IOException {
+		byte[] data = new byte[(int) file.length()];
+		FileInputStream inputStream = new FileInputStream(file);
+		try {
+			int read = 0;
+			while (read < data.length) {
+				int count = inputStream.read(data, read, data.length - read);
+				if (count < 0)
+					throw new IOException("Short read of " + file);
+				read += count;
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+		return data;
+	}
+
+	/* 
+	 * Returns {width, height} of a baseline or progressive JPEG, or null if the file does not
+	 * start with SOI, has a malformed segment before the frame header, or lacks EOI.
+	*/
+	static int[] jpegSize(File file) throws IOException {
+		byte[] data = readFully(file);
+		if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8)
+			return null;
+		if (!endsWithEoi(data))
+			return null;
+		int position = 2;
+		while (position + 4 <= data.length) {
+			if ((data[position] & 0xFF) != 0xFF)
+				return null;
+			int marker = data[position + 1] & 0xFF;
+			if (marker == 0xFF) {
+				//Fill byte before a marker
+				position++;
+				continue;
+			}
+			int length = ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+			if (length < 2 || position + 2 + length > data.length)
+				return null;
+			boolean frameHeader = marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+			if (frameHeader) {
+				if (length < 7)
+					return null;
+				int height = ((data[position + 5] & 0xFF) << 8) | (data[position + 6] & 0xFF);
+				int width = ((data[position + 7] & 0xFF) << 8) | (data[position + 8] & 0xFF);
+				return width > 0 && height > 0 ? new int[] {width, height} : null;
+			}
+			if (marker == 0xDA || marker == 0xD9)
+				return null;
+			position += 2 + length;
+		}
+		return null;
+	}
+
+	/* 
+	 * Some editors pad files after EOI, so look for it near the end rather than at the end.
+	*/
+	private static boolean endsWithEoi(byte[] data) {
+		for (int i = data.length - 2; i >= Math.max(0, data.length - 1024); i--) {
+			if ((data[i] & 0xFF) == 0xFF && (data[i + 1] & 0xFF) == 0xD9)
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,96 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Random;
+
+import com.bethuneci.spellingbee.ImageAtlas;
+import com.bethuneci.spellingbee.WordList;
+import com.bethuneci.spellingbee.WordListImporter;
+import com.bethuneci.spellingbee.WordListLoader;
+import com.bethuneci.spellingbee.WordPack;
+
+/* 
+ * Description: Desktop timing harness for WordListImporter. Writes a word list file of the
+ * given number of lines the way teachers' files come: the app's words in any case, padded
+ * with whitespace, as CSV with quotes and extra columns, many times over, mixed with made up
+ * words and lines that are not words. Then imports it a few times and reports the throughput
+ * and the heap in use afterwards, and checks the pack reads back. Run it with a small heap to
+ * see memory stays bounded, from the project root:
+ *
+ *     java -Xmx32m -cp <classes> com.bethuneci.spellingbee.tools.WordListImportTiming [lines] [rounds]
+*/
+
+public class WordListImportTiming {
+
+	public static void main(String[] args) throws IOException {
+		File assetsDir = new File("assets");
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		File input = File.createTempFile("import", ".csv");
+		File pack = File.createTempFile("import", ".pack");
+		input.deleteOnExit();
+		pack.deleteOnExit();
+		writeInput(input, lines, WordListLoader.readWords(new FileInputStream(new File(assetsDir, "list.txt"))));
+		ImageAtlas atlas = new ImageAtlas(WordListLoadTiming.map(new File(assetsDir, ImageAtlas.ASSET)));
+		System.out.println("Input: " + lines + " lines, " + input.length() / 1024 + " KB");
+
+		WordListImporter.Result result = null;
+		for (int round = 0; round < rounds; round++) {
+			result = new WordListImporter(atlas, WordListImporter.DEFAULT_MAX_WORDS).importWords(new FileInputStream(input),
+					pack, WordListImporter.LIST);
+			System.gc();
+			Runtime runtime = Runtime.getRuntime();
+			double seconds = result.nanos / 1e9;
+			System.out.println(String.format(Locale.ROOT, "round %d: %.0f ms, %.0f lines/s, %.1f MB/s, heap in use %d KB",
+					round + 1, result.nanos / 1e6, result.lines / seconds, input.length() / seconds / (1024 * 1024),
+					(runtime.totalMemory() - runtime.freeMemory()) / 1024));
+		}
+		System.out.print(result.summary());
+
+		WordList words = new WordPack(WordListLoadTiming.map(pack)).list(WordListImporter.LIST);
+		System.out.println("Pack: " + pack.length() / 1024 + " KB, " + words.size() + " words, first " + words.get(0)
+				+ ", last " + words.get(words.size() - 1));
+	}
+
+	/* 
+	 * Writes lines drawn at random: half the app's words dressed up, a third made up words,
+	 * the rest blank or not words. A header comes first.
+	*/
+	static void writeInput(File file, int lines, String[] words) throws IOException {
+		Random random = new Random(42);
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 65536);
+		try {
+			out.write("Word,Notes\n");
+			for (int i = 1; i < lines; i++) {
+				int kind = random.nextInt(6);
+				if (kind < 3) {
+					String word = words[random.nextInt(words.length)];
+					word = random.nextBoolean() ? word.toUpperCase(Locale.ROOT) : word;
+					if (random.nextBoolean())
+						out.write("  " + word + " \t\n");
+					else
+						out.write("\"" + word + "\",week " + random.nextInt(40) + "\n");
+				}
+				else if (kind < 5) {
+					StringBuilder made = new StringBuilder();
+					int length = 4 + random.nextInt(9);
+					for (int j = 0; j < length; j++)
+						made.append((char) ('a' + random.nextInt(26)));
+					out.write(made + "\n");
+				}
+				else
+					out.write(random.nextBoolean() ? "\n" : "item " + random.nextInt(1000) + "\n");
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.bethuneci.spellingbee.WordList;
+import com.bethuneci.spellingbee.WordListLoader;
+import com.bethuneci.spellingbee.WordPack;
+
+/* 
+ * Description: Desktop timing harness comparing the original two-pass word list read
+ * (readNumberOfLines followed by a second read into the array) with the single-pass
+ * WordListLoader and with resolving the list out of the compiled words.pack. The pack
+ * columns time opening the list, and opening it plus decoding every word. Run from the
+ * project root after WordPackCompiler:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.WordListLoadTiming [assets dir] [rounds]
+*/
+
+public class WordListLoadTiming {
+
+	private static final String[] LISTS = {"list.txt", "Year5-6.txt", "Year7-8.txt", "Year9-10.txt", "Year11-12.txt"};
+
+	public static void main(String[] args) throws IOException {
+		File assetsDir = new File(args.length > 0 ? args[0] : "assets");
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		ByteBuffer pack = map(new File(assetsDir, WordPackCompiler.PACK));
+
+		//Warm up both paths so the JIT has compiled them before measuring
+		for (int i = 0; i < rounds / 4; i++) {
+			for (String list : LISTS) {
+				twoPass(new File(assetsDir, list));
+				singlePass(new File(assetsDir, list));
+				packed(pack, list, true);
+			}
+		}
+
+		System.out.println("list\twords\ttwo-pass us\tsingle-pass us\tpack open us\tpack all words us");
+		for (String list : LISTS) {
+			File file = new File(assetsDir, list);
+			int words = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				words = twoPass(file).length;
+			long twoPassNanos = (System.nanoTime() - start) / rounds;
+			start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				singlePass(file);
+			long singlePassNanos = (System.nanoTime() - start) / rounds;
+			start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				packed(pack, list, false);
+			long packOpenNanos = (System.nanoTime() - start) / rounds;
+			start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				packed(pack, list, true);
+			long packAllNanos = (System.nanoTime() - start) / rounds;
+			System.out.println(list + "\t" + words + "\t" + twoPassNanos / 1000.0 + "\t" + singlePassNanos / 1000.0
+					+ "\t" + packOpenNanos / 1000.0 + "\t" + packAllNanos / 1000.0);
+		}
+	}
+
+	/* 
+	 * Mirror of the original MainActivity.setWordList/readNumberOfLines pair.
+	*/
+	static String[] twoPass(File file) throws IOException {
+		int numberOfLines = 0;
+		BufferedReader textReader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+		while (textReader.readLine() != null)
+			numberOfLines++;
+		textReader.close();
+		String[] wordList = new String[numberOfLines];
+		textReader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+		for (int i = 0; i < numberOfLines; i++)
+			wordList[i] = textReader.readLine();
+		textReader.close();
+		return wordList;
+	}
+
+	static String[] singlePass(File file) throws IOException {
+		InputStream inputStream = new FileInputStream(file);
+		return WordListLoader.readWords(inputStream);
+	}
+
+	/* 
+	 * Parses the pack header and resolves the list, optionally decoding every word.
+	*/
+	static int packed(ByteBuffer buffer, String list, boolean decodeAll) throws IOException {
+		WordList words = new WordPack(buffer).list(list);
+		int length = 0;
+		if (decodeAll) {
+			for (int i = 0; i < words.size(); i++)
+				length += words.get(i).length();
+		}
+		return length;
+	}
+
+	static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+}
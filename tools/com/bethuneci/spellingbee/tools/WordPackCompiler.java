@@ -0,0 +1,92 @@
+package com.bethuneci.spellingbee.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.bethuneci.spellingbee.DifficultyScorer;
+import com.bethuneci.spellingbee.HintGenerator;
+import com.bethuneci.spellingbee.PackRegistry;
+import com.bethuneci.spellingbee.WordHints;
+import com.bethuneci.spellingbee.WordListLoader;
+import com.bethuneci.spellingbee.WordPackWriter;
+
+/* 
+ * Description: Build step that compiles the plain text word lists under assets/ into the
+ * binary packs read by WordPack, one per pack named in the packs.idx manifest, holding the
+ * lists the manifest puts in it. The hints of every word are worked out by HintGenerator,
+ * with similar words found across all the lists of the same pack. Re-run it whenever a list
+ * or the manifest changes:
+ * 
+ *     java -cp <classes> com.bethuneci.spellingbee.tools.WordPackCompiler [assets dir]
+*/
+
+public class WordPackCompiler {
+
+	//Pack of the built-in lists
+	public static final String PACK = "words.pack";
+
+	public static void main(String[] args) throws IOException {
+		File assetsDir = new File(args.length > 0 ? args[0] : "assets");
+		PackRegistry registry = registry(assetsDir);
+		for (String pack : registry.packs())
+			compile(assetsDir, pack, registry.lists(pack));
+	}
+
+	public static PackRegistry registry(File assetsDir) throws IOException {
+		return PackRegistry.read(new FileInputStream(new File(assetsDir, PackRegistry.MANIFEST)));
+	}
+
+	/* 
+	 * Returns the name of every list in the manifest, packed or not.
+	*/
+	public static String[] lists(File assetsDir) throws IOException {
+		PackRegistry registry = registry(assetsDir);
+		String[] lists = new String[registry.size()];
+		for (int i = 0; i < lists.length; i++)
+			lists[i] = registry.name(i);
+		return lists;
+	}
+
+	private static void compile(File assetsDir, String packName, String[] names) throws IOException {
+		String[][] lists = new String[names.length][];
+		DifficultyScorer.BigramCounts bigrams = new DifficultyScorer.BigramCounts();
+		for (int i = 0; i < names.length; i++) {
+			lists[i] = WordListLoader.readWords(new FileInputStream(new File(assetsDir, names[i])));
+			for (String word : lists[i])
+				bigrams.add(word);
+		}
+
+		//Every word is indexed before any hints are worked out, so similar words come from all lists
+		long start = System.nanoTime();
+		HintGenerator generator = new HintGenerator(new DifficultyScorer(bigrams));
+		for (String[] words : lists)
+			generator.addWords(words);
+		WordPackWriter writer = new WordPackWriter();
+		int total = 0;
+		int similar = 0;
+		for (int i = 0; i < names.length; i++) {
+			WordHints[] hints = generator.hints(lists[i]);
+			for (WordHints hint : hints) {
+				if (hint.getSimilar() != null)
+					similar++;
+			}
+			writer.addList(names[i], lists[i], hints);
+			total += lists[i].length;
+		}
+		System.out.println("Worked out hints in " + (System.nanoTime() - start) / 1000000 + " ms, " + similar + " of "
+				+ total + " words have a similar word");
+		File pack = new File(assetsDir, packName);
+		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(pack));
+		try {
+			writer.writeTo(outputStream);
+		}
+		finally {
+			outputStream.close();
+		}
+		System.out.println("Wrote " + total + " words in " + names.length + " lists to " + pack + " (" + pack.length() + " bytes)");
+	}
+}